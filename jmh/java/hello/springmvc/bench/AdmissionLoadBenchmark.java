@@ -0,0 +1,75 @@
+package hello.springmvc.bench;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//  로컬에서 띄운 애플리케이션에 동시 요청을 몰아서 AdmissionControlFilter가 응답 시간을 지키는지 보는 부하 발생기
+//  스레드 192개 = 기본 동시 처리 한도(hello.admission.initial-limit=64)의 3배
+//  SampleTime 모드라 p50 / p99 / p99.9 가 같이 나온다. (거절된 요청도 포함. 거절은 바로 돌아오므로 받은 요청의 꼬리는 그보다 길다)
+//  ok / rateLimited / overloaded 카운터가 200, 429, 503 개수다.
+//  필터는 기본으로 꺼져 있으므로 켜서 띄운다. 스레드마다 X-Client-Id를 다르게 보내므로 클라이언트별 제한까지 보려면 헤더로 구분하도록 띄운다.
+//    ./gradlew bootRun --args='--hello.admission.enabled=true --hello.admission.client-header=X-Client-Id'
+//    ./gradlew jmh -Pjmh.includes=AdmissionLoadBenchmark
+//  hello.admission.enabled=false(기본) 로 띄운 결과와 비교한다.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(192)
+public class AdmissionLoadBenchmark {
+
+    private static final AtomicInteger CLIENTS = new AtomicInteger();
+
+    @Param({"http://localhost:8080"})
+    private String baseUrl;
+
+    @Param({"/mapping/users/userA/orders/1", "/response-body-json-v1"})
+    private String path;
+
+    private String clientId;
+    private URL url;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Responses {
+        public long ok;
+        public long rateLimited;
+        public long overloaded;
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        clientId = "client-" + CLIENTS.incrementAndGet();
+        url = new URL(baseUrl + path);
+    }
+
+    @Benchmark
+    public int request(Responses responses) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestProperty("X-Client-Id", clientId);
+        int status = connection.getResponseCode();
+        if (status == 200) {
+            responses.ok++;
+        } else if (status == 429) {
+            responses.rateLimited++;
+        } else if (status == 503) {
+            responses.overloaded++;
+        }
+//        끝까지 읽고 닫아야 커넥션이 keep-alive 풀로 돌아간다.
+        try (InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+            if (in != null) {
+                StreamUtils.drain(in);
+            }
+        }
+        return status;
+    }
+}
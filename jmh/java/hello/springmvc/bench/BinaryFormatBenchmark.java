@@ -0,0 +1,86 @@
+package hello.springmvc.bench;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import hello.springmvc.basic.HelloData;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//  HelloData 하나, HelloData 1000개 리스트를 JSON / Smile / CBOR 로 쓰고(encode) 읽는(decode) 처리량
+//  payloadBytes 카운터가 한번 쓴 결과의 크기다.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BinaryFormatBenchmark {
+
+    @Param({"json", "smile", "cbor"})
+    private String format;
+
+    @Param({"1", "1000"})
+    private int records;
+
+    private Object value;
+    private ObjectWriter writer;
+    private ObjectReader reader;
+    private byte[] encoded;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Size {
+        public long payloadBytes;
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper mapper = new ObjectMapper(factory(format));
+        List<HelloData> list = new ArrayList<>(records);
+        for (int i = 0; i < records; i++) {
+            HelloData data = new HelloData();
+            data.setUsername("user" + i);
+            data.setAge(i % 100);
+            list.add(data);
+        }
+        JavaType type = records == 1
+                ? mapper.constructType(HelloData.class)
+                : mapper.getTypeFactory().constructCollectionType(List.class, HelloData.class);
+        value = records == 1 ? list.get(0) : list;
+        writer = mapper.writerFor(type);
+        reader = mapper.readerFor(type);
+        encoded = writer.writeValueAsBytes(value);
+    }
+
+    @Benchmark
+    public byte[] encode(Size size) throws IOException {
+        byte[] bytes = writer.writeValueAsBytes(value);
+        size.payloadBytes = bytes.length;
+        return bytes;
+    }
+
+    @Benchmark
+    public Object decode() throws IOException {
+        return reader.readValue(encoded);
+    }
+
+    private static JsonFactory factory(String format) {
+        switch (format) {
+            case "smile":
+                return new SmileFactory();
+            case "cbor":
+                return new CBORFactory();
+            default:
+                return new JsonFactory();
+        }
+    }
+}
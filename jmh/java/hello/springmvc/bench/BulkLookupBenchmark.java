@@ -0,0 +1,76 @@
+package hello.springmvc.bench;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+//  로컬에서 띄운 애플리케이션(./gradlew bootRun)에 실제 HTTP로 요청하는 부하 발생기
+//  orders 건을 조회하는 데 걸리는 시간
+//  - single : GET /mapping/users/{userId}/orders/{orderId} 를 orders 번 (keep-alive)
+//  - bulk   : POST /mapping/orders/bulk 한번 (NDJSON)
+//  ./gradlew jmh -Pjmh.includes=BulkLookupBenchmark  (-p baseUrl=http://host:port 로 바꿀 수 있다)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BulkLookupBenchmark {
+
+    @Param({"http://localhost:8080"})
+    private String baseUrl;
+
+    @Param({"1", "10", "100"})
+    private int orders;
+
+    @Param({"false", "true"})
+    private boolean ordered;
+
+    private byte[] bulkBody;
+
+    @Setup
+    public void setUp() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < orders; i++) {
+            sb.append("{\"userId\":\"userA\",\"orderId\":").append(i).append("}\n");
+        }
+        bulkBody = sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public long single() throws IOException {
+        long bytes = 0;
+        for (int i = 0; i < orders; i++) {
+            HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + "/mapping/users/userA/orders/" + i).openConnection();
+            bytes += drain(connection);
+        }
+        return bytes;
+    }
+
+    @Benchmark
+    public long bulk() throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + "/mapping/orders/bulk?ordered=" + ordered).openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setRequestProperty("Content-Type", "application/x-ndjson");
+        connection.setFixedLengthStreamingMode(bulkBody.length);
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(bulkBody);
+        }
+        return drain(connection);
+    }
+
+//    끝까지 읽고 닫아야 커넥션이 keep-alive 풀로 돌아간다.
+    private static long drain(HttpURLConnection connection) throws IOException {
+        try (InputStream in = connection.getInputStream()) {
+            return StreamUtils.drain(in);
+        }
+    }
+}
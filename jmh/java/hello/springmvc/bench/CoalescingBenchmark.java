@@ -0,0 +1,62 @@
+package hello.springmvc.bench;
+
+import hello.springmvc.web.coalesce.SingleFlight;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+//  느린 백엔드(backendMicros 동안 멈춘 뒤 응답 바이트를 만든다)를 32 스레드가 keys 개의 키로 부를 때
+//  - direct    : 요청마다 백엔드를 부른다.
+//  - coalesced : SingleFlight로 같은 키의 동시 호출을 합친다. (@Coalesce가 쓰는 것)
+//  backendCalls 카운터가 실제 백엔드 호출 수다. (요청 수 대비 비율이 합쳐진 정도)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(32)
+public class CoalescingBenchmark {
+
+    @Param({"1", "8", "64"})
+    private int keys;
+
+    @Param({"2000"})
+    private long backendMicros;
+
+    private final SingleFlight<String, byte[]> flights = new SingleFlight<>();
+    private String[] keyNames;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Backend {
+        public long backendCalls;
+    }
+
+    @Setup
+    public void setUp() {
+        keyNames = new String[keys];
+        for (int i = 0; i < keys; i++) {
+            keyNames[i] = "GET /mapping/users/" + i + "\nAccept:application/json";
+        }
+    }
+
+    @Benchmark
+    public byte[] direct(Backend backend) {
+        return backend(backend);
+    }
+
+    @Benchmark
+    public byte[] coalesced(Backend backend) {
+        String key = keyNames[ThreadLocalRandom.current().nextInt(keys)];
+        return flights.execute(key, () -> backend(backend));
+    }
+
+    private byte[] backend(Backend backend) {
+        backend.backendCalls++;
+        LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(backendMicros));
+        return "{\"username\":\"userA\",\"age\":20}".getBytes();
+    }
+}
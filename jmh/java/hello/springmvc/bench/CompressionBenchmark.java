@@ -0,0 +1,104 @@
+package hello.springmvc.bench;
+
+import hello.springmvc.web.compress.CompressionFilter;
+import hello.springmvc.web.io.BufferPool;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+//  응답 크기별 압축 CPU 비용과 줄어든 바이트
+//  - identity     : 압축 없이 필터만 통과 (Accept-Encoding 없음)
+//  - gzipPooled   : CompressionFilter (풀의 Deflater 재사용)
+//  - deflatePooled: CompressionFilter, Content-Encoding: deflate
+//  - gzipPerCall  : 응답마다 new GZIPOutputStream (톰캣 server.compression 과 같은 방식)
+//  Bytes 카운터의 outputBytes / inputBytes 를 보면 압축률이 나온다.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompressionBenchmark {
+
+    @Param({"512", "4096", "65536", "1048576"})
+    private int size;
+
+    private byte[] payload;
+    private CompressionFilter filter;
+    private HttpServlet servlet;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Bytes {
+        public long inputBytes;
+        public long outputBytes;
+    }
+
+    @Setup
+    public void setUp() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; sb.length() < size; i++) {
+            sb.append("{\"username\":\"user").append(i).append("\",\"age\":").append(i % 100).append("},");
+        }
+        payload = sb.substring(0, size - 1).concat("]").getBytes(StandardCharsets.UTF_8);
+        filter = new CompressionFilter(new BufferPool(8192, 1024), 1024, 6, 64,
+                Collections.singletonList(MediaType.APPLICATION_JSON));
+        servlet = new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+                resp.setContentType(MediaType.APPLICATION_JSON_VALUE);
+                resp.getOutputStream().write(payload);
+            }
+        };
+    }
+
+    @Benchmark
+    public MockHttpServletResponse identity(Bytes bytes) throws Exception {
+        return filter(null, bytes);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse gzipPooled(Bytes bytes) throws Exception {
+        return filter("gzip", bytes);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse deflatePooled(Bytes bytes) throws Exception {
+        return filter("deflate", bytes);
+    }
+
+    @Benchmark
+    public byte[] gzipPerCall(Bytes bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(payload.length);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(payload);
+        }
+        bytes.inputBytes += payload.length;
+        bytes.outputBytes += out.size();
+        return out.toByteArray();
+    }
+
+    private MockHttpServletResponse filter(String acceptEncoding, Bytes bytes) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/response-body-json");
+        if (acceptEncoding != null) {
+            request.addHeader("Accept-Encoding", acceptEncoding);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain(servlet));
+        bytes.inputBytes += payload.length;
+        bytes.outputBytes += response.getContentAsByteArray().length;
+        return response;
+    }
+}
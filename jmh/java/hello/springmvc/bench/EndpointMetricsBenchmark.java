@@ -0,0 +1,60 @@
+package hello.springmvc.bench;
+
+import hello.springmvc.web.metrics.EndpointMetrics;
+import hello.springmvc.web.metrics.EndpointMetricsInterceptor;
+import hello.springmvc.web.metrics.LatencyHistogram;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.concurrent.TimeUnit;
+
+//  EndpointMetricsInterceptor를 항상 켜둬도 되는지 보는 벤치마크
+//  - interceptor : preHandle + afterCompletion (요청 하나에 붙는 비용 전부)
+//  - histogram   : LatencyHistogram.recordNanos 만
+//  여러 스레드가 같은 패턴에 기록할 때(@Threads 4)도 요청당 수십 ns, 할당 0 이어야 한다.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class EndpointMetricsBenchmark {
+
+    private EndpointMetricsInterceptor interceptor;
+    private LatencyHistogram histogram;
+
+    @State(Scope.Thread)
+    public static class Exchange {
+        MockHttpServletRequest request;
+        MockHttpServletResponse response;
+        long nanos;
+
+        @Setup
+        public void setUp() {
+            request = new MockHttpServletRequest("GET", "/mapping/userA");
+            request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/mapping/{userId}");
+            response = new MockHttpServletResponse();
+            response.setContentLength(2);
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        interceptor = new EndpointMetricsInterceptor(new EndpointMetrics());
+        histogram = new LatencyHistogram();
+    }
+
+    @Benchmark
+    public void interceptor(Exchange exchange) {
+        interceptor.preHandle(exchange.request, exchange.response, this);
+        interceptor.afterCompletion(exchange.request, exchange.response, this, null);
+    }
+
+    @Benchmark
+    public void histogram(Exchange exchange) {
+        histogram.recordNanos(exchange.nanos += 1237);
+    }
+}
@@ -0,0 +1,86 @@
+package hello.springmvc.bench;
+
+import hello.springmvc.basic.request.RequestHeaderController;
+import hello.springmvc.web.http.LazyHeaders;
+import hello.springmvc.web.http.LazyHeadersArgumentResolver;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.MethodParameter;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.bind.support.ConfigurableWebBindingInitializer;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.method.support.HandlerMethodArgumentResolverComposite;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+import org.springframework.web.servlet.mvc.method.annotation.ServletRequestDataBinderFactory;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+//  RequestHeaderController /headers 와 /headers-v2 의 파라미터를 만드는 비용 비교 (-prof gc 로 요청당 할당량을 본다)
+//  - standard : /headers 의 파라미터 7개를 RequestMappingHandlerAdapter 기본 리졸버로 만든다.
+//  - lazy     : /headers-v2 의 LazyHeaders를 만들고 핸들러가 쓰는 값(메서드, Locale, host, myCookie)을 꺼낸다.
+//  브라우저가 보내는 정도의 헤더를 넣는다. MockHttpServletRequest는 Cookie 헤더를 미리 Cookie[]로 만들어 두므로
+//  실제 톰캣보다 standard 쪽 비용이 적게 나온다.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HeaderArgumentBenchmark {
+
+    private ServletWebRequest webRequest;
+    private WebDataBinderFactory binderFactory;
+    private HandlerMethodArgumentResolverComposite resolvers;
+    private MethodParameter[] standardParameters;
+    private MethodParameter lazyParameter;
+
+    @Setup
+    public void setUp() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/headers");
+        request.addHeader("Host", "localhost:8080");
+        request.addHeader("Connection", "keep-alive");
+        request.addHeader("User-Agent", "Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_7) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/118.0 Safari/537.36");
+        request.addHeader("Accept", "text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8");
+        request.addHeader("Accept-Encoding", "gzip, deflate, br");
+        request.addHeader("Accept-Language", "ko-KR,ko;q=0.9,en-US;q=0.8,en;q=0.7");
+        request.addHeader("Cache-Control", "max-age=0");
+        request.addHeader("Cookie", "JSESSIONID=4F1C2B7D9E0A; myCookie=hello; theme=dark");
+        webRequest = new ServletWebRequest(request, new MockHttpServletResponse());
+        binderFactory = new ServletRequestDataBinderFactory(null, new ConfigurableWebBindingInitializer());
+
+        RequestMappingHandlerAdapter adapter = new RequestMappingHandlerAdapter();
+        adapter.setCustomArgumentResolvers(Collections.singletonList(new LazyHeadersArgumentResolver()));
+        adapter.afterPropertiesSet();
+        resolvers = new HandlerMethodArgumentResolverComposite().addResolvers(adapter.getArgumentResolvers());
+
+        RequestHeaderController controller = new RequestHeaderController();
+        for (Method method : RequestHeaderController.class.getMethods()) {
+            if (method.getName().equals("headers")) {
+                standardParameters = new HandlerMethod(controller, method).getMethodParameters();
+            } else if (method.getName().equals("headersV2")) {
+                lazyParameter = new HandlerMethod(controller, method).getMethodParameters()[0];
+            }
+        }
+    }
+
+    @Benchmark
+    public Object[] standard() throws Exception {
+        ModelAndViewContainer mavContainer = new ModelAndViewContainer();
+        Object[] args = new Object[standardParameters.length];
+        for (int i = 0; i < args.length; i++) {
+            args[i] = resolvers.resolveArgument(standardParameters[i], mavContainer, webRequest, binderFactory);
+        }
+        return args;
+    }
+
+    @Benchmark
+    public Object[] lazy() throws Exception {
+        LazyHeaders headers = (LazyHeaders) resolvers.resolveArgument(lazyParameter, new ModelAndViewContainer(), webRequest, binderFactory);
+        return new Object[]{headers.getMethod(), headers.getLocale(), headers.getHost(), headers.getCookie("myCookie")};
+    }
+}
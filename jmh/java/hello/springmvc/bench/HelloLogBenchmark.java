@@ -0,0 +1,64 @@
+package hello.springmvc.bench;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import hello.springmvc.basic.HelloData;
+import hello.springmvc.logging.HelloLog;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+//  꺼진 레벨(debug, 로거 레벨은 INFO)로 핸들러가 남기는 것과 같은 로그를 부를 때 비용 (-prof gc 로 호출당 할당량을 본다)
+//  - slf4j*    : logback Logger를 바로 부른다. int는 박싱되고(age가 127보다 크면 새 Integer) 인자 3개부터는 Object[]를 만든다.
+//                (TwoArgs 는 String + int, ThreeArgs 는 객체 3개)
+//  - helloLog* : HelloLog. 저장해둔 레벨만 보고 끝나므로 gc.alloc.rate.norm 이 0 이어야 한다.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HelloLogBenchmark {
+
+    private static final String NAME = "hello.springmvc.bench.HelloLogBenchmark";
+
+    private Logger slf4j;
+    private HelloLog helloLog;
+    private String username;
+    private int age;
+    private HelloData data;
+
+    @Setup
+    public void setUp() {
+        ((LoggerContext) LoggerFactory.getILoggerFactory()).getLogger(NAME).setLevel(Level.INFO);
+        slf4j = LoggerFactory.getLogger(NAME);
+        helloLog = HelloLog.getLogger(NAME);
+        username = "hello";
+        age = 1000;
+        data = new HelloData();
+        data.setUsername(username);
+        data.setAge(age);
+    }
+
+    @Benchmark
+    public void slf4jTwoArgs() {
+        slf4j.debug("username={}, age={}", username, age);
+    }
+
+    @Benchmark
+    public void helloLogTwoArgs() {
+        helloLog.debug("username={}, age={}", username, age);
+    }
+
+    @Benchmark
+    public void slf4jThreeArgs() {
+        slf4j.debug("username={}, path={}, data={}", username, NAME, data);
+    }
+
+    @Benchmark
+    public void helloLogThreeArgs() {
+        helloLog.debug("username={}, path={}, data={}", username, NAME, data);
+    }
+}
@@ -0,0 +1,75 @@
+package hello.springmvc.bench;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+//  로컬에서 띄운 애플리케이션(./gradlew bootRun)의 POST /request-body-json-batch 에 큰 NDJSON 배치를 흘려 보내는 부하 발생기
+//  바디는 미리 만들어 두고 chunked로 보낸다. (서버는 바디를 다 받기 전부터 chunk-size 건씩 처리한다)
+//  records 카운터(OPERATIONS)가 초당 처리한 건수(records/sec)다. 200이 아닌 응답은 세지 않는다.
+//  threads 개의 클라이언트가 동시에 보낸다. (-t 로 바꾼다)
+//    ./gradlew jmh -Pjmh.includes=JsonBatchLoadBenchmark  (-p baseUrl=http://host:port 로 바꿀 수 있다)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@Threads(4)
+public class JsonBatchLoadBenchmark {
+
+    @Param({"http://localhost:8080"})
+    private String baseUrl;
+
+    @Param({"10000", "100000", "1000000"})
+    private int records;
+
+    private URL url;
+    private byte[] body;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Processed {
+        public long records;
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        url = new URL(baseUrl + "/request-body-json-batch");
+        StringBuilder sb = new StringBuilder(records * 32);
+        for (int i = 0; i < records; i++) {
+            sb.append("{\"username\":\"user").append(i).append("\",\"age\":").append(i % 100).append("}\n");
+        }
+        body = sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public int batch(Processed processed) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setRequestProperty("Content-Type", "application/x-ndjson");
+        connection.setChunkedStreamingMode(64 * 1024);
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(body);
+        }
+        int status = connection.getResponseCode();
+//        끝까지 읽고 닫아야 커넥션이 keep-alive 풀로 돌아간다.
+        try (InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+            if (in != null) {
+                StreamUtils.drain(in);
+            }
+        }
+        if (status == 200) {
+            processed.records += records;
+        }
+        return status;
+    }
+}
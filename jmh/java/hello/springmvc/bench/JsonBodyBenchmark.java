@@ -0,0 +1,80 @@
+package hello.springmvc.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hello.springmvc.basic.HelloData;
+import hello.springmvc.web.json.JsonMappers;
+import hello.springmvc.web.json.JsonStreamReader;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.util.StreamUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+//  JSON 바디 한건(또는 배열)을 읽는 비용 비교
+//  - copyThenParse : 예전 requestBodyJsonV1 방식 (StreamUtils.copyToString -> 컨트롤러 전용 new ObjectMapper().readValue)
+//  - stream        : JsonStreamReader (InputStream -> JsonParser, 공유 ObjectMapper의 캐시된 ObjectReader)
+//  - perControllerMapper / sharedReader : 컨트롤러 전용 ObjectMapper 와 JsonMappers의 캐시된 ObjectReader
+//  -prof gc 로 돌리면 gc.alloc.rate.norm 에서 요청당 할당 바이트 차이를 볼 수 있다.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonBodyBenchmark {
+
+    @Param({"1", "1000"})
+    private int records;
+
+    private byte[] body;
+    private ObjectMapper perControllerMapper;
+    private JsonMappers jsonMappers;
+    private JsonStreamReader jsonStreamReader;
+
+    @Setup
+    public void setUp() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < records; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"username\":\"hello").append(i).append("\", \"age\":").append(i % 100).append('}');
+        }
+        body = (records == 1 ? sb.substring(1) : sb.append(']').toString()).getBytes(StandardCharsets.UTF_8);
+        perControllerMapper = new ObjectMapper();
+        jsonMappers = new JsonMappers(new ObjectMapper());
+        jsonStreamReader = new JsonStreamReader(jsonMappers);
+    }
+
+    @Benchmark
+    public void copyThenParse(Blackhole bh) throws IOException {
+        String messageBody = StreamUtils.copyToString(new ByteArrayInputStream(body), StandardCharsets.UTF_8);
+        if (records == 1) {
+            bh.consume(perControllerMapper.readValue(messageBody, HelloData.class));
+        } else {
+            bh.consume(perControllerMapper.readValue(messageBody, HelloData[].class));
+        }
+    }
+
+    @Benchmark
+    public void stream(Blackhole bh) throws IOException {
+        if (records == 1) {
+            bh.consume(jsonStreamReader.read(new ByteArrayInputStream(body), HelloData.class));
+        } else {
+            jsonStreamReader.readEach(new ByteArrayInputStream(body), HelloData.class, bh::consume);
+        }
+    }
+
+    @Benchmark
+    public Object perControllerMapper() throws IOException {
+        return perControllerMapper.readValue(body, records == 1 ? HelloData.class : HelloData[].class);
+    }
+
+    @Benchmark
+    public Object sharedReader() throws IOException {
+        return jsonMappers.reader(records == 1 ? HelloData.class : HelloData[].class).readValue(body);
+    }
+}
@@ -0,0 +1,80 @@
+package hello.springmvc.bench;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.FileAppender;
+import hello.springmvc.logging.RingBufferFileAppender;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+//  /log-test 가 남기는 것과 같은 info 로그를 여러 스레드에서 동시에 남길 때 요청 스레드가 쓰는 시간
+//  - sync        : logback FileAppender (요청 스레드가 직접 파일에 쓰고 flush)
+//  - ringDrop    : RingBufferFileAppender policy=drop
+//  - ringBlock   : RingBufferFileAppender policy=block
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class LogAppenderBenchmark {
+
+    @Param({"sync", "ringDrop", "ringBlock"})
+    private String mode;
+
+    private LoggerContext context;
+    private Logger log;
+    private Appender<ILoggingEvent> appender;
+
+    @Setup
+    public void setUp() throws IOException {
+        context = new LoggerContext();
+        File file = File.createTempFile("log-bench", ".log");
+        file.deleteOnExit();
+
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern("%d %-5level [%thread] %logger - %msg%n");
+        encoder.start();
+
+        if (mode.equals("sync")) {
+            FileAppender<ILoggingEvent> fileAppender = new FileAppender<>();
+            fileAppender.setFile(file.getPath());
+            fileAppender.setEncoder(encoder);
+            appender = fileAppender;
+        } else {
+            RingBufferFileAppender ring = new RingBufferFileAppender();
+            ring.setFile(file.getPath());
+            ring.setEncoder(encoder);
+            ring.setPolicy(mode.equals("ringDrop") ? "drop" : "block");
+            appender = ring;
+        }
+        appender.setContext(context);
+        appender.setName("bench");
+        appender.start();
+
+        log = context.getLogger("hello.springmvc.basic.LogTestController");
+        log.setLevel(Level.INFO);
+        log.setAdditive(false);
+        log.addAppender(appender);
+    }
+
+    @TearDown
+    public void tearDown() {
+        appender.stop();
+        context.stop();
+    }
+
+    @Benchmark
+    public void logTest() {
+        log.info(" info log={}", "Spring");
+    }
+}
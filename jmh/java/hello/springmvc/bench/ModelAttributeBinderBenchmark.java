@@ -0,0 +1,59 @@
+package hello.springmvc.bench;
+
+import hello.springmvc.basic.HelloData;
+import hello.springmvc.basic.request.RequestParamController;
+import hello.springmvc.web.bind.FastModelAttributeArgumentResolver;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.MethodParameter;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.bind.support.ConfigurableWebBindingInitializer;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import org.springframework.web.servlet.mvc.method.annotation.ServletModelAttributeMethodProcessor;
+import org.springframework.web.servlet.mvc.method.annotation.ServletRequestDataBinderFactory;
+
+import java.util.concurrent.TimeUnit;
+
+//  같은 요청(username=hello&age=20)을 HelloData로 바인딩하는 비용 비교
+//  - standard : @ModelAttribute (ServletModelAttributeMethodProcessor + WebDataBinder)
+//  - fast     : @FastModelAttribute (BindPlan)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ModelAttributeBinderBenchmark {
+
+    private ServletWebRequest webRequest;
+    private WebDataBinderFactory binderFactory;
+    private MethodParameter standardParameter;
+    private MethodParameter fastParameter;
+    private ServletModelAttributeMethodProcessor standard;
+    private FastModelAttributeArgumentResolver fast;
+
+    @Setup
+    public void setUp() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/model-attribute");
+        request.addParameter("username", "hello");
+        request.addParameter("age", "20");
+        webRequest = new ServletWebRequest(request);
+        binderFactory = new ServletRequestDataBinderFactory(null, new ConfigurableWebBindingInitializer());
+
+        standardParameter = new MethodParameter(RequestParamController.class.getMethod("modelAttributeV1", HelloData.class), 0);
+        fastParameter = new MethodParameter(RequestParamController.class.getMethod("modelAttributeV3", HelloData.class), 0);
+        standard = new ServletModelAttributeMethodProcessor(false);
+        fast = new FastModelAttributeArgumentResolver();
+    }
+
+    @Benchmark
+    public Object standard() throws Exception {
+        return standard.resolveArgument(standardParameter, new ModelAndViewContainer(), webRequest, binderFactory);
+    }
+
+    @Benchmark
+    public Object fast() throws Exception {
+        return fast.resolveArgument(fastParameter, new ModelAndViewContainer(), webRequest, binderFactory);
+    }
+}
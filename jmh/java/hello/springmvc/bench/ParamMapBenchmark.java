@@ -0,0 +1,79 @@
+package hello.springmvc.bench;
+
+import hello.springmvc.basic.request.RequestParamController;
+import hello.springmvc.web.bind.ParamMap;
+import hello.springmvc.web.bind.RawRequestParams;
+import hello.springmvc.web.io.BufferPool;
+import hello.springmvc.web.io.RequestBodyReader;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.MethodParameter;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.method.annotation.RequestParamMapMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+//  /request-param-map 과 /request-param-map-v2 의 파라미터를 만들고 username, age를 꺼내는 비용 비교 (-prof gc 로 요청당 할당량을 본다)
+//  - map      : @RequestParam Map<String, Object> (RequestParamMapMethodArgumentResolver) + get + Integer.parseInt
+//  - paramMap : ParamMap + getString / getInt
+//  params 는 요청에 붙은 파라미터 개수 (username, age 포함)
+//  MockHttpServletRequest는 파라미터 맵을 미리 만들어 두므로 map 쪽에는 컨테이너가 쿼리를 디코딩하는 비용이 빠져 있다.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParamMapBenchmark {
+
+    @Param({"2", "20", "200"})
+    private int params;
+
+    private ServletWebRequest webRequest;
+    private MockHttpServletRequest request;
+    private MethodParameter mapParameter;
+    private RequestParamMapMethodArgumentResolver mapResolver;
+    private RequestBodyReader bodyReader;
+    private BufferPool pool;
+
+    @Setup
+    public void setUp() throws Exception {
+        request = new MockHttpServletRequest("GET", "/request-param-map");
+        StringBuilder query = new StringBuilder("username=hello&age=20");
+        request.addParameter("username", "hello");
+        request.addParameter("age", "20");
+        for (int i = 2; i < params; i++) {
+            query.append("&field").append(i).append("=value").append(i);
+            request.addParameter("field" + i, "value" + i);
+        }
+        request.setQueryString(query.toString());
+        webRequest = new ServletWebRequest(request);
+        mapParameter = new MethodParameter(RequestParamController.class.getMethod("requestParamMap", Map.class), 0);
+        mapResolver = new RequestParamMapMethodArgumentResolver();
+        pool = new BufferPool(8192, 1024);
+        bodyReader = new RequestBodyReader(pool, 1024 * 1024);
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public int map() throws Exception {
+        Map<String, Object> map = (Map<String, Object>) mapResolver.resolveArgument(mapParameter, new ModelAndViewContainer(), webRequest, null);
+        String username = (String) map.get("username");
+        int age = Integer.parseInt(String.valueOf(map.get("age")));
+        return username.length() + age;
+    }
+
+    @Benchmark
+    public int paramMap() throws Exception {
+        ParamMap map = ParamMap.index(RawRequestParams.read(request, bodyReader, pool));
+        try {
+            String username = map.getString("username");
+            int age = map.getInt("age");
+            return username.length() + age;
+        } finally {
+            map.release();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package hello.springmvc.bench;
+
+import hello.springmvc.web.bind.RawRequestParams;
+import hello.springmvc.web.io.BufferPool;
+import hello.springmvc.web.io.RequestBodyReader;
+import org.apache.tomcat.util.buf.MessageBytes;
+import org.apache.tomcat.util.http.Parameters;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+//  /request-param-v1 의 username, age 두개를 꺼내는 비용 비교 (-prof gc 로 요청당 할당량을 본다)
+//  - getParameter : 톰캣 request.getParameter()가 쓰는 Parameters로 쿼리 전체를 디코딩하고 두개를 꺼낸 뒤 Integer.parseInt
+//                   (MockHttpServletRequest의 getParameter는 미리 만든 맵을 돌려줄 뿐이라 톰캣 것을 직접 쓴다)
+//  - raw          : RawRequestParams (BufferPool 버퍼 사용)
+//  extra 는 같이 붙어 오는 다른 파라미터 개수 (추적용 utm_* 같은 것)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RawRequestParamsBenchmark {
+
+    @Param({"0", "10"})
+    private int extra;
+
+    private byte[] queryBytes;
+    private MockHttpServletRequest request;
+    private RequestBodyReader bodyReader;
+    private BufferPool pool;
+
+    @State(Scope.Thread)
+    public static class TomcatParameters {
+        final Parameters parameters = new Parameters();
+        final MessageBytes query = MessageBytes.newInstance();
+    }
+
+    @Setup
+    public void setUp() {
+        StringBuilder query = new StringBuilder();
+        for (int i = 0; i < extra; i++) {
+            query.append("utm_param").append(i).append("=campaign%20").append(i).append('&');
+        }
+        query.append("username=hello%20world&age=20");
+        queryBytes = query.toString().getBytes(StandardCharsets.US_ASCII);
+        request = new MockHttpServletRequest("GET", "/request-param-v5");
+        request.setQueryString(query.toString());
+        pool = new BufferPool(8192, 1024);
+        bodyReader = new RequestBodyReader(pool, 1024 * 1024);
+    }
+
+    @Benchmark
+    public int getParameter(TomcatParameters state) {
+        Parameters parameters = state.parameters;
+        parameters.recycle();
+        state.query.setBytes(queryBytes, 0, queryBytes.length);
+        parameters.setQuery(state.query);
+        parameters.setQueryStringCharset(StandardCharsets.UTF_8);
+        parameters.handleQueryParameters();
+        String username = parameters.getParameter("username");
+        int age = Integer.parseInt(parameters.getParameter("age"));
+        return username.length() + age;
+    }
+
+    @Benchmark
+    public int raw() throws Exception {
+        RawRequestParams params = RawRequestParams.read(request, bodyReader, pool);
+        try {
+            String username = params.getString("username");
+            int age = params.getInt("age");
+            return username.length() + age;
+        } finally {
+            params.release();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package hello.springmvc.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hello.springmvc.basic.request.RequestBodyJsonController;
+import hello.springmvc.basic.request.RequestParamController;
+import hello.springmvc.web.io.BufferPool;
+import hello.springmvc.web.io.RequestBodyReader;
+import hello.springmvc.web.json.JsonMappers;
+import hello.springmvc.web.json.JsonStreamReader;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+//  basic.request 에 있는 바인딩 방식들을 같은 데이터(username=hello, age=20)로 MockMvc를 통해 호출해서 비교한다.
+//  DispatcherServlet -> 핸들러 매핑 -> 아규먼트 리졸버 -> 메시지 컨버터 까지 실제 요청과 같은 경로를 탄다.
+//  ns/op 는 기본으로 나오고, 요청당 할당 바이트는 gc 프로파일러(-prof gc)의 gc.alloc.rate.norm 으로 본다.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestBindingBenchmark {
+
+    private static final String JSON = "{\"username\":\"hello\", \"age\":20}";
+
+    private MockMvc mockMvc;
+
+    @Setup
+    public void setUp() {
+        JsonStreamReader jsonStreamReader = new JsonStreamReader(new JsonMappers(new ObjectMapper()));
+        RequestBodyReader requestBodyReader = new RequestBodyReader(new BufferPool(8192, 1024), 1024 * 1024);
+        mockMvc = MockMvcBuilders
+                .standaloneSetup(new RequestParamController(), new RequestBodyJsonController(jsonStreamReader, requestBodyReader))
+                .build();
+    }
+
+    @Benchmark
+    public MockHttpServletResponse requestParamV1() throws Exception {
+        return perform(get("/request-param-v1").param("username", "hello").param("age", "20"));
+    }
+
+    @Benchmark
+    public MockHttpServletResponse requestParamV2() throws Exception {
+        return perform(get("/request-param-v2").param("username", "hello").param("age", "20"));
+    }
+
+    @Benchmark
+    public MockHttpServletResponse requestParamV3() throws Exception {
+        return perform(get("/request-param-v3").param("username", "hello").param("age", "20"));
+    }
+
+    @Benchmark
+    public MockHttpServletResponse requestParamV4() throws Exception {
+        return perform(get("/request-param-v4").param("username", "hello").param("age", "20"));
+    }
+
+    @Benchmark
+    public MockHttpServletResponse requestParamMap() throws Exception {
+        return perform(get("/request-param-map").param("username", "hello").param("age", "20"));
+    }
+
+    @Benchmark
+    public MockHttpServletResponse modelAttributeV1() throws Exception {
+        return perform(get("/model-attribute-v1").param("username", "hello").param("age", "20"));
+    }
+
+    @Benchmark
+    public MockHttpServletResponse modelAttributeV2() throws Exception {
+        return perform(get("/model-attribute-v2").param("username", "hello").param("age", "20"));
+    }
+
+    @Benchmark
+    public MockHttpServletResponse requestBodyJsonV1() throws Exception {
+        return perform(json("/request-body-json-v1"));
+    }
+
+    @Benchmark
+    public MockHttpServletResponse requestBodyJsonV2() throws Exception {
+        return perform(json("/request-body-json-v2"));
+    }
+
+    @Benchmark
+    public MockHttpServletResponse requestBodyJsonV3() throws Exception {
+        return perform(json("/request-body-json-v3"));
+    }
+
+    @Benchmark
+    public MockHttpServletResponse requestBodyJsonV4() throws Exception {
+        return perform(json("/request-body-json-v4"));
+    }
+
+    @Benchmark
+    public MockHttpServletResponse requestBodyJsonV5() throws Exception {
+        return perform(json("/request-body-json-v5"));
+    }
+
+    private RequestBuilder json(String url) {
+        return post(url).contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON).content(JSON);
+    }
+
+    private MockHttpServletResponse perform(RequestBuilder request) throws Exception {
+        return mockMvc.perform(request).andReturn().getResponse();
+    }
+}
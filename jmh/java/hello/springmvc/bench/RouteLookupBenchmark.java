@@ -0,0 +1,86 @@
+package hello.springmvc.bench;
+
+import hello.springmvc.web.routing.IndexedRequestMappingHandlerMapping;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.context.support.StaticWebApplicationContext;
+import org.springframework.web.servlet.HandlerExecutionChain;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+//  경로 변수가 있는 패턴을 routes 개수만큼 등록해두고 마지막에 등록한 패턴으로 요청했을 때 핸들러를 찾는 비용
+//  - standard : RequestMappingHandlerMapping (후보 패턴을 모두 검사하고 정렬)
+//  - indexed  : IndexedRequestMappingHandlerMapping (RouteTrie)
+//  indexed는 routes가 늘어나도 거의 일정해야 한다.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RouteLookupBenchmark {
+
+    @Param({"10", "1000", "5000"})
+    private int routes;
+
+    private RequestMappingHandlerMapping standard;
+    private RequestMappingHandlerMapping indexed;
+    private MockHttpServletRequest variableRequest;
+    private MockHttpServletRequest literalRequest;
+
+    @Setup
+    public void setUp() throws Exception {
+        standard = mapping(new RequestMappingHandlerMapping());
+        indexed = mapping(new IndexedRequestMappingHandlerMapping());
+        variableRequest = new MockHttpServletRequest("GET", "/r" + (routes - 1) + "/users/userA/orders/100");
+        literalRequest = new MockHttpServletRequest("GET", "/hello-" + (routes - 1));
+    }
+
+    @Benchmark
+    public HandlerExecutionChain standardVariable() throws Exception {
+        return standard.getHandler(variableRequest);
+    }
+
+    @Benchmark
+    public HandlerExecutionChain indexedVariable() throws Exception {
+        return indexed.getHandler(variableRequest);
+    }
+
+    @Benchmark
+    public HandlerExecutionChain standardLiteral() throws Exception {
+        return standard.getHandler(literalRequest);
+    }
+
+    @Benchmark
+    public HandlerExecutionChain indexedLiteral() throws Exception {
+        return indexed.getHandler(literalRequest);
+    }
+
+    private RequestMappingHandlerMapping mapping(RequestMappingHandlerMapping mapping) throws Exception {
+        StaticWebApplicationContext context = new StaticWebApplicationContext();
+        context.setServletContext(new MockServletContext());
+        context.refresh();
+        mapping.setApplicationContext(context);
+        mapping.afterPropertiesSet();
+
+        SyntheticController controller = new SyntheticController();
+        Method handle = SyntheticController.class.getMethod("handle");
+        for (int i = 0; i < routes; i++) {
+            mapping.registerMapping(RequestMappingInfo.paths("/r" + i + "/users/{userId}/orders/{orderId}")
+                    .methods(RequestMethod.GET).build(), controller, handle);
+            mapping.registerMapping(RequestMappingInfo.paths("/hello-" + i).build(), controller, handle);
+        }
+        return mapping;
+    }
+
+    public static class SyntheticController {
+        public String handle() {
+            return "ok";
+        }
+    }
+}
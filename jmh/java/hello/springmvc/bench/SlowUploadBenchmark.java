@@ -0,0 +1,176 @@
+package hello.springmvc.bench;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+//  로컬에서 띄운 애플리케이션에 느린 업로드를 동시에 많이 보내는 부하 발생기
+//  스레드마다 커넥션 하나로 chunks 개의 조각을 uploadMillis 동안 나눠 보낸다. (chunked, 조각 사이에 쉰다)
+//  스레드 1000개 = 톰캣 기본 스레드 풀(server.tomcat.threads.max=200)의 5배. 더 늘리려면 -t 4000 처럼 준다.
+//  SampleTime 모드라 업로드 하나의 p50 / p99 / p99.9 가 같이 나온다. (보내는 시간 uploadMillis + 스레드를 기다린 시간)
+//  iteration이 끝날 때마다 served concurrency(초당 끝난 업로드 수 x uploadMillis)를 출력한다.
+//  동시에 처리하던 업로드 수를 Little의 법칙으로 본 값이다. 스레드 풀이면 풀 크기 근처에서 멈추고, 가상 스레드면 보낸 커넥션 수까지 올라간다.
+//  ok / failed 카운터가 200, 그 밖의 응답(또는 끊김) 개수다.
+//  같이 /metrics 의 hello_jvm_threads(서버의 플랫폼 스레드 수)를 250ms 마다 읽어서 iteration 시작 때 값과 가장 큰 값을 출력한다.
+//  블로킹 핸들러(request-body-string-v1~v4)는 톰캣 풀을 한도까지 키우고, 비동기 핸들러(request-body-string-async)는 거의 그대로다.
+//  톰캣은 늘어난 스레드를 바로 줄이지 않으므로 path 마다 애플리케이션을 다시 띄워서 하나씩(-p path=...) 돌린다.
+//    ./gradlew bootRun --args='--hello.server.execution-mode=platform'   (기본)
+//    ./gradlew bootRun --args='--hello.server.execution-mode=virtual'    (JDK 21+)
+//    ./gradlew jmh -Pjmh.includes=SlowUploadBenchmark
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1, time = 10)
+@Measurement(iterations = 3, time = 20)
+@Fork(value = 1, jvmArgsAppend = "-Dhttp.maxConnections=10000")
+@Threads(1000)
+public class SlowUploadBenchmark {
+
+    private static final Pattern THREADS = Pattern.compile("(?m)^hello_jvm_threads (\\S+)$");
+
+    @Param({"http://localhost:8080"})
+    private String baseUrl;
+
+    @Param({"/request-body-string-v1", "/request-body-string-v2", "/request-body-string-v3", "/request-body-string-v4",
+            "/request-body-string-async"})
+    private String path;
+
+    @Param({"2000"})
+    private long uploadMillis;
+
+    @Param({"20"})
+    private int chunks;
+
+    @Param({"64"})
+    private int chunkBytes;
+
+    private URL url;
+    private byte[] chunk;
+
+    @State(Scope.Benchmark)
+    public static class Served {
+        private final LongAdder uploads = new LongAdder();
+        private volatile long uploadMillis;
+        private volatile String metricsUrl;
+        private long startNanos;
+        private ScheduledExecutorService sampler;
+        private volatile long startThreads;
+        private final AtomicLong maxThreads = new AtomicLong();
+
+        @Setup(Level.Iteration)
+        public void start() {
+            uploads.reset();
+            startNanos = System.nanoTime();
+            startThreads = -1;
+            maxThreads.set(-1);
+            sampler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "server-thread-sampler");
+                thread.setDaemon(true);
+                return thread;
+            });
+            sampler.scheduleWithFixedDelay(this::sample, 0, 250, TimeUnit.MILLISECONDS);
+        }
+
+        @TearDown(Level.Iteration)
+        public void report() {
+            sampler.shutdownNow();
+            double seconds = (System.nanoTime() - startNanos) / 1e9;
+            double perSecond = uploads.sum() / seconds;
+            System.out.printf("%nserved concurrency=%.0f (uploads/s=%.1f x upload=%dms), server threads start=%d max=%d%n",
+                    perSecond * uploadMillis / 1000, perSecond, uploadMillis, startThreads, maxThreads.get());
+        }
+
+//        setUp()이 metricsUrl을 넣기 전이거나 /metrics 를 읽지 못하면 건너뛴다.
+        private void sample() {
+            String url = metricsUrl;
+            if (url == null) {
+                return;
+            }
+            try {
+                HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+                String body;
+                try (InputStream in = connection.getInputStream()) {
+                    body = StreamUtils.copyToString(in, StandardCharsets.UTF_8);
+                }
+                Matcher matcher = THREADS.matcher(body);
+                if (matcher.find()) {
+                    long threads = (long) Double.parseDouble(matcher.group(1));
+                    if (startThreads < 0) {
+                        startThreads = threads;
+                    }
+                    maxThreads.accumulateAndGet(threads, Math::max);
+                }
+            } catch (IOException | RuntimeException e) {
+//                다음 샘플에서 다시 읽는다.
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Responses {
+        public long ok;
+        public long failed;
+    }
+
+    @Setup
+    public void setUp(Served served) throws IOException {
+        served.uploadMillis = uploadMillis;
+        served.metricsUrl = baseUrl + "/metrics";
+        url = new URL(baseUrl + path);
+        chunk = new byte[chunkBytes];
+        Arrays.fill(chunk, (byte) 'a');
+    }
+
+    @Benchmark
+    public int upload(Responses responses, Served served) throws IOException, InterruptedException {
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setChunkedStreamingMode(chunkBytes);
+        connection.setRequestProperty("Content-Type", "text/plain;charset=UTF-8");
+        int status;
+        try {
+            try (OutputStream out = connection.getOutputStream()) {
+                for (int i = 0; i < chunks; i++) {
+                    out.write(chunk);
+                    out.flush();
+                    if (i < chunks - 1) {
+                        Thread.sleep(uploadMillis / (chunks - 1));
+                    }
+                }
+            }
+            status = connection.getResponseCode();
+            try (InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+                if (in != null) {
+                    StreamUtils.drain(in);
+                }
+            }
+        } catch (IOException e) {
+            responses.failed++;
+            connection.disconnect();
+            return -1;
+        }
+        if (status == 200) {
+            responses.ok++;
+            served.uploads.increment();
+        } else {
+            responses.failed++;
+        }
+        return status;
+    }
+}
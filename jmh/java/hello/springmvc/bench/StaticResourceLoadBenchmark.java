@@ -0,0 +1,97 @@
+package hello.springmvc.bench;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+//  로컬에서 띄운 애플리케이션의 정적 리소스(static/)에 동시 요청을 몰아서 응답 시간을 보는 부하 발생기
+//  - acceptEncoding : identity 는 원본, gzip 은 압축본을 받는다.
+//  - conditional    : 처음 받은 ETag, Last-Modified로 If-None-Match, If-Modified-Since를 보내서 304를 받는다.
+//  SampleTime 모드라 p50 / p99 / p99.9 가 같이 나온다. ok / notModified 카운터가 200, 304 개수, bytes가 받은 바디 크기다.
+//  캐시 핸들러(CachedStaticResource)로 띄운 결과와 기본 핸들러(ResourceHttpRequestHandler)로 띄운 결과를 비교한다.
+//    ./gradlew bootRun --args='--hello.static.cache.enabled=true'   (기본 핸들러는 false, 기본값)
+//    ./gradlew jmh -Pjmh.includes=StaticResourceLoadBenchmark
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(64)
+public class StaticResourceLoadBenchmark {
+
+    @Param({"http://localhost:8080"})
+    private String baseUrl;
+
+    @Param({"/index.html", "/basic/hello-form.html"})
+    private String path;
+
+    @Param({"identity", "gzip"})
+    private String acceptEncoding;
+
+    @Param({"false", "true"})
+    private boolean conditional;
+
+    private URL url;
+    private String etag;
+    private String lastModified;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Responses {
+        public long ok;
+        public long notModified;
+        public long bytes;
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        url = new URL(baseUrl + path);
+        HttpURLConnection connection = open();
+        if (connection.getResponseCode() != 200) {
+            throw new IllegalStateException(path + " returned " + connection.getResponseCode());
+        }
+        etag = connection.getHeaderField("ETag");
+        lastModified = connection.getHeaderField("Last-Modified");
+        try (InputStream in = connection.getInputStream()) {
+            StreamUtils.drain(in);
+        }
+    }
+
+    @Benchmark
+    public int request(Responses responses) throws IOException {
+        HttpURLConnection connection = open();
+        if (conditional) {
+            if (etag != null) {
+                connection.setRequestProperty("If-None-Match", etag);
+            }
+            if (lastModified != null) {
+                connection.setRequestProperty("If-Modified-Since", lastModified);
+            }
+        }
+        int status = connection.getResponseCode();
+        if (status == 200) {
+            responses.ok++;
+        } else if (status == 304) {
+            responses.notModified++;
+        }
+//        끝까지 읽고 닫아야 커넥션이 keep-alive 풀로 돌아간다.
+        try (InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+            if (in != null) {
+                responses.bytes += StreamUtils.drain(in);
+            }
+        }
+        return status;
+    }
+
+    private HttpURLConnection open() throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestProperty("Accept-Encoding", acceptEncoding);
+        return connection;
+    }
+}
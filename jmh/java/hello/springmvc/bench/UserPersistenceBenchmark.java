@@ -0,0 +1,113 @@
+package hello.springmvc.bench;
+
+import hello.springmvc.user.User;
+import hello.springmvc.user.UserPersistence;
+import hello.springmvc.user.UserStore;
+import hello.springmvc.user.UserWriteAheadLog;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+//  UserPersistence 벤치마크
+//  - Writes   : WAL을 켠 UserStore에 16 스레드가 update. groupCommitMicros 별 초당 쓰기 수
+//               (0이면 기록마다 fsync에 가깝고, 창이 길수록 fsync 한번에 묶이는 기록이 많아진다)
+//  - Recovery : users 명을 저장해두고 새 UserStore로 복구하는 시간
+//               snapshot=true 는 스냅샷만 읽고, false 는 WAL 전체를 다시 적용한다.
+public class UserPersistenceBenchmark {
+
+    private static final int SEGMENT_BYTES = 64 * 1024 * 1024;
+
+    @State(Scope.Benchmark)
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Warmup(iterations = 2, time = 3)
+    @Measurement(iterations = 5, time = 3)
+    @Fork(1)
+    @Threads(16)
+    public static class Writes {
+
+        @Param({"0", "200", "1000", "5000"})
+        private long groupCommitMicros;
+
+        private Path directory;
+        private UserStore store;
+        private UserPersistence persistence;
+
+        @Setup
+        public void setUp() throws IOException {
+            directory = Files.createTempDirectory("user-wal-bench");
+            store = new UserStore(60);
+            persistence = new UserPersistence(store, directory, SEGMENT_BYTES, groupCommitMicros, 0);
+            for (int i = 0; i < 10_000; i++) {
+                store.create("user" + i, i % 100);
+            }
+        }
+
+        @TearDown
+        public void tearDown() throws Exception {
+            persistence.close();
+            FileSystemUtils.deleteRecursively(directory);
+        }
+
+        @Benchmark
+        public User update() {
+            return store.update(ThreadLocalRandom.current().nextLong(10_000) + 1, null, ThreadLocalRandom.current().nextInt(100));
+        }
+    }
+
+    @State(Scope.Benchmark)
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 5)
+    @Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+    public static class Recovery {
+
+        @Param({"10000", "100000", "1000000"})
+        private int users;
+
+        @Param({"true", "false"})
+        private boolean snapshot;
+
+        private Path directory;
+        private UserPersistence recovered;
+
+//        요청마다 fsync를 기다리면 채우는 데만 한참 걸리므로 WAL에 직접 기록하고 마지막에 한번 내린다.
+        @Setup(Level.Trial)
+        public void fill() throws Exception {
+            directory = Files.createTempDirectory("user-recovery-bench");
+            try (UserWriteAheadLog wal = new UserWriteAheadLog(directory, SEGMENT_BYTES, 0)) {
+                for (int i = 1; i <= users; i++) {
+                    wal.append(wal.encode(i, new User(i, "user" + i, i % 100)), i);
+                }
+            }
+            if (snapshot) {
+                UserPersistence persistence = new UserPersistence(new UserStore(60), directory, SEGMENT_BYTES, 0, 0);
+                persistence.snapshot();
+                persistence.close();
+            }
+        }
+
+        @TearDown(Level.Iteration)
+        public void closeRecovered() throws Exception {
+            recovered.close();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            FileSystemUtils.deleteRecursively(directory.toFile());
+        }
+
+        @Benchmark
+        public long recover() throws IOException {
+            UserStore store = new UserStore(60);
+            recovered = new UserPersistence(store, directory, SEGMENT_BYTES, 0, 0);
+            return store.size();
+        }
+    }
+}
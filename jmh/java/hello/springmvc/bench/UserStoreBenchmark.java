@@ -0,0 +1,86 @@
+package hello.springmvc.bench;
+
+import hello.springmvc.user.User;
+import hello.springmvc.user.UserPage;
+import hello.springmvc.user.UserStore;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+//  UserStore 읽기/쓰기 처리량
+//  users 명을 미리 넣어두고 find(읽기) 3 : update(쓰기) 1 비율로 같이 돌린다.
+//  코어 수에 따라 어떻게 늘어나는지는 스레드 수를 바꿔서 본다.
+//  ./gradlew jmh -Pjmh.includes=UserStoreBenchmark -Pjmh.threads=1  (2, 4, 8 ...)
+//  (그룹 벤치마크는 -t 대신 @GroupThreads 비율이 스레드 수만큼 복제된다: -Pjmh.threadGroups=1,1 -> 2,2 -> 4,4 ...)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class UserStoreBenchmark {
+
+    @Param({"1000000"})
+    private int users;
+
+    private UserStore store;
+
+    @Setup
+    public void setUp() {
+        store = new UserStore(60);
+        for (int i = 0; i < users; i++) {
+            store.create("user" + i, i % 100);
+        }
+    }
+
+    @Benchmark
+    public User find() {
+        return store.find(randomId());
+    }
+
+    @Benchmark
+    public User update() {
+        return store.update(randomId(), null, ThreadLocalRandom.current().nextInt(100));
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(3)
+    public User mixedFind() {
+        return store.find(randomId());
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public User mixedUpdate() {
+        return store.update(randomId(), null, ThreadLocalRandom.current().nextInt(100));
+    }
+
+//    쓰기가 계속 되는 동안 한 스냅샷으로 100명씩 페이지를 넘긴다.
+    @Benchmark
+    @Group("paging")
+    @GroupThreads(1)
+    public UserPage pagingRead(Pager pager) {
+        UserPage page = store.page(pager.cursor, 100);
+        pager.cursor = page.getNextCursor();
+        return page;
+    }
+
+    @Benchmark
+    @Group("paging")
+    @GroupThreads(1)
+    public User pagingUpdate() {
+        return store.update(randomId(), null, ThreadLocalRandom.current().nextInt(100));
+    }
+
+    @State(Scope.Thread)
+    public static class Pager {
+        String cursor;
+    }
+
+    private long randomId() {
+        return ThreadLocalRandom.current().nextLong(users) + 1;
+    }
+}
@@ -27,7 +27,7 @@ public class LogTestController {
         log.warn(" warn log={}", name);
         log.error("error log={}", name);
 
-        log.trace("trace my log=" + name);
+        log.trace("trace my log=" + name); // log-concat-ok : 아래 설명용으로 남겨둔 잘못된 예
 //        log의 레벨을 info로 했을 경우에 log.trace() 는 실행되지 않지만 java의 특성상 문자열 합쳐지는것(concatenate)는
 //        실행이 된다. concatenate연산이 실행이 된다는것이 핵심이다. 연산을 하기 때문에 메모리도 사용하고 CPU도 사용하기 때문에,
 //        즉 쓸모없는 리소스를 사용하기 때문에 성능 측면에서 좋지 않은 것이다.
@@ -0,0 +1,81 @@
+package hello.springmvc.basic.request;
+
+import hello.springmvc.basic.HelloData;
+import hello.springmvc.web.json.JsonStreamReader;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+//  {"username":"hello", "age":20}
+//  {"username":"hello2", "age":30}
+//  content-type: application/x-ndjson (한 줄에 JSON 하나)
+//  또는 content-type: application/json 으로 [{...}, {...}] 배열을 보내도 된다.
+//  /request-body-json-v3 에 한건씩 POST하면 건마다 HTTP 요청 비용이 들기 때문에 여러건을 한번에 받는다.
+@Slf4j
+@RestController
+public class RequestBodyJsonBatchController {
+
+    private final JsonStreamReader jsonStreamReader;
+    private final int chunkSize;
+
+    public RequestBodyJsonBatchController(JsonStreamReader jsonStreamReader,
+                                          @Value("${hello.json.batch.chunk-size:100}") int chunkSize) {
+        this.jsonStreamReader = jsonStreamReader;
+        this.chunkSize = chunkSize;
+    }
+
+//    바디를 읽는 동안 chunkSize 만큼 모이면 바로 처리하고 비운다.
+//    chunk 하나만 재사용하기 때문에 배치가 아무리 커도 메모리에는 chunkSize 건만 올라와 있다.
+    @PostMapping(value = "/request-body-json-batch", consumes = {"application/x-ndjson", "application/json"})
+    public BatchResult requestBodyJsonBatch(InputStream inputStream) throws IOException {
+        long start = System.nanoTime();
+        List<HelloData> chunk = new ArrayList<>(chunkSize);
+        BatchResult result = new BatchResult(chunkSize);
+
+        jsonStreamReader.readEach(inputStream, HelloData.class, data -> {
+            chunk.add(data);
+            if (chunk.size() == chunkSize) {
+                processChunk(chunk, result);
+            }
+        });
+        if (!chunk.isEmpty()) {
+            processChunk(chunk, result);
+        }
+
+        result.setElapsedMillis((System.nanoTime() - start) / 1_000_000);
+        result.setRecordsPerSecond(result.getRecords() * 1_000_000_000L / Math.max(1, System.nanoTime() - start));
+        log.info("records={}, batches={}, recordsPerSecond={}", result.getRecords(), result.getBatches(), result.getRecordsPerSecond());
+        return result;
+    }
+
+    private void processChunk(List<HelloData> chunk, BatchResult result) {
+        for (HelloData data : chunk) {
+            log.debug("username={}, age={}", data.getUsername(), data.getAge());
+        }
+        result.addBatch(chunk.size());
+        chunk.clear();
+    }
+
+    @Data
+    public static class BatchResult {
+        private final int chunkSize;
+        private long records;
+        private int batches;
+        private int lastBatchSize;
+        private long elapsedMillis;
+        private long recordsPerSecond;
+
+        void addBatch(int count) {
+            records += count;
+            batches++;
+            lastBatchSize = count;
+        }
+    }
+}
@@ -1,8 +1,10 @@
 package hello.springmvc.basic.request;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import hello.springmvc.basic.HelloData;
-import lombok.extern.slf4j.Slf4j;
+import hello.springmvc.logging.HelloLog;
+import hello.springmvc.web.io.RequestBodyReader;
+import hello.springmvc.web.json.JsonStreamReader;
+import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.http.converter.StringHttpMessageConverter;
@@ -13,7 +15,6 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.ResponseBody;
 
-import javax.servlet.ServletInputStream;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
@@ -23,19 +24,19 @@ import java.nio.charset.StandardCharsets;
 //  {"username":"hello", "age":20}
 //  content-type: application/json
 //  이렇게 요청 메시지를 보낼 것이다.
-@Slf4j
 @Controller
+@RequiredArgsConstructor
 public class RequestBodyJsonController {
-    private ObjectMapper objectMapper = new ObjectMapper();
+    private static final HelloLog log = HelloLog.getLogger(RequestBodyJsonController.class);
+    private final JsonStreamReader jsonStreamReader;
+    private final RequestBodyReader requestBodyReader;
 
     @PostMapping("/request-body-json-v1")
     public void requestBodyJsonV1(HttpServletRequest request, HttpServletResponse response) throws IOException {
-        ServletInputStream inputStream = request.getInputStream();
-        String messageBody = StreamUtils.copyToString(inputStream, StandardCharsets.UTF_8);
-        // HttpServletRequest를 사용해서 직접 HTTP메시지 바디에서 데이터를 읽어와서, 문자로 변환한다.
-        log.info("messageBody={}", messageBody);
-        HelloData helloData = objectMapper.readValue(messageBody, HelloData.class);
-        // 문자로 된 JSON 데이터를 Jackson 라이브러리인 objectMapper를 사용해서 자바 객체로 변환한다.
+        InputStream inputStream = requestBodyReader.limit(request); // 너무 큰 바디는 413 (Content-Length가 없으면 읽다가)
+        // 예전에는 StreamUtils.copyToString()으로 바디를 문자로 통째로 바꾼 다음에 objectMapper.readValue()를 했다.
+        // 그러면 바디 크기만큼 문자열이 한번 더 만들어지기 때문에 지금은 InputStream에서 바로 JSON을 읽어서 자바 객체로 변환한다.
+        HelloData helloData = jsonStreamReader.read(inputStream, HelloData.class);
         log.info("username={}, age={}", helloData.getUsername(), helloData.getAge());
         response.getWriter().write("ok");
     }
@@ -48,14 +49,29 @@ public class RequestBodyJsonController {
 //    - 모든 메서드에 @ResponseBody 적용
 //    - 메시지 바디 정보 직접 반환()
 //    - HttpMessageConverter 사용 -> StringHttpMessageConverter 적용
+//
+//    @RequestBody String messageBody 로 받으면 바디 전체가 문자열로 만들어진 다음에 다시 파싱된다.
+//    그래서 지금은 스트림에서 바로 JSON을 읽는다. (RequestBodyStringController V2 참고)
+//    InputStream을 인자로 받으면 크기 제한이 없으므로 requestBodyReader.limit()으로 max-body-size를 넘지 않게 읽는다.
     @ResponseBody
     @PostMapping("/request-body-json-v2")
-    public String requestBodyJsonV2(@RequestBody String messageBody) throws IOException{
-        HelloData data = objectMapper.readValue(messageBody, HelloData.class);
+    public String requestBodyJsonV2(HttpServletRequest request) throws IOException{
+        HelloData data = jsonStreamReader.read(requestBodyReader.limit(request), HelloData.class);
         log.info("username={}, age={}", data.getUsername(), data.getAge());
         return "ok";
     }
 
+//    [{"username":"hello", "age":20}, {"username":"hello2", "age":30}]
+//    배열로 여러건이 와도 List<HelloData>로 한번에 만들지 않고 원소를 하나씩 읽으면서 처리한다.
+    @ResponseBody
+    @PostMapping("/request-body-json-list")
+    public String requestBodyJsonList(HttpServletRequest request) throws IOException{
+        long count = jsonStreamReader.readEach(requestBodyReader.limit(request), HelloData.class,
+                data -> log.info("username={}, age={}", data.getUsername(), data.getAge()));
+        log.info("count={}", count);
+        return "ok";
+    }
+
 //    요청 메시지 바디에 json이 오면 매핑 메서드의 인자에서 문자열json로 받고 그 문자열 json을 jackson라이브러리(objectMapper)을 통해서
 //    java객체로 바꾸는 과정 즉, HelloData data = objectMapper.readValue(messageBody, HelloData.class); 이 코드를 쓰는과정이
 //    귀찮다. @ModelAttribute처럼 한번에 객체로 변환해서 매핑 메서드의 인자로 들어올 수는 없을까? -> 가능하다.
@@ -71,7 +87,7 @@ public class RequestBodyJsonController {
 //    @PostMapping("/request-body-json-v4")
 //    public HttpEntity<String> requestBodyJsonV4(HttpEntity<String> httpEntity) throws IOException{
 //        String messageBody = httpEntity.getBody();
-//        HelloData helloData = objectMapper.readValue(messageBody, HelloData.class);
+//        HelloData helloData = jsonMappers.reader(HelloData.class).readValue(messageBody);
 //        log.info("username={}, age={}", helloData.getUsername(), helloData.getAge());
 //        return new HttpEntity<>("ok");
 //    } => 정상 동작한다.
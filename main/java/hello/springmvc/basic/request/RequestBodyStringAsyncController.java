@@ -0,0 +1,136 @@
+package hello.springmvc.basic.request;
+
+import hello.springmvc.web.io.PayloadTooLargeException;
+import hello.springmvc.web.io.PooledBody;
+import hello.springmvc.web.io.RequestBodyReader;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.PostMapping;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+//  RequestBodyStringController V1~V4 는 모두 바디를 다 받을 때까지 요청 스레드가 기다린다.(블로킹)
+//  클라이언트가 느리게 보내면 그동안 톰캣 스레드 하나를 계속 붙잡고 있게 된다.
+//
+//  여기서는 서블릿 3.1 논블로킹 I/O를 사용한다.
+//  - request.startAsync() 후 핸들러는 바로 반환 -> 요청 스레드는 풀로 돌아간다.
+//  - ReadListener.onDataAvailable() : 도착한 만큼만 BufferPool의 버퍼에 읽어둔다. (isReady()가 false면 멈추고 다음 호출을 기다림)
+//  - ReadListener.onAllDataRead()   : 바디를 다 받으면 문자로 바꾸고 응답을 시작한다.
+//  - WriteListener.onWritePossible() : 쓸 수 있을 때 "ok"를 쓰고 complete()
+@Slf4j
+@Controller
+public class RequestBodyStringAsyncController {
+
+    private static final byte[] OK = "ok".getBytes(StandardCharsets.UTF_8);
+
+    private final RequestBodyReader requestBodyReader;
+    private final long timeoutMillis;
+
+    public RequestBodyStringAsyncController(RequestBodyReader requestBodyReader,
+                                            @Value("${hello.io.async-timeout-millis:30000}") long timeoutMillis) {
+        this.requestBodyReader = requestBodyReader;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    @PostMapping("/request-body-string-async")
+    public void requestBodyStringAsync(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        requestBodyReader.checkContentLength(request.getContentLengthLong());
+        AsyncContext asyncContext = request.startAsync();
+        asyncContext.setTimeout(timeoutMillis);
+        BodyReader reader = new BodyReader(asyncContext);
+        asyncContext.addListener(reader);
+        request.getInputStream().setReadListener(reader);
+    }
+
+    private class BodyReader implements ReadListener, WriteListener, AsyncListener {
+        private final AsyncContext asyncContext;
+        private final ServletInputStream in;
+        private final PooledBody body = new PooledBody(requestBodyReader.getBufferPool());
+        private boolean written;
+
+        BodyReader(AsyncContext asyncContext) throws IOException {
+            this.asyncContext = asyncContext;
+            this.in = asyncContext.getRequest().getInputStream();
+        }
+
+        @Override
+        public void onDataAvailable() throws IOException {
+            while (in.isReady() && !in.isFinished()) {
+                if (body.readFrom(in) < 0) {
+                    break;
+                }
+                try {
+                    requestBodyReader.checkSize(body.size());
+                } catch (PayloadTooLargeException e) {
+                    body.release();
+                    ((HttpServletResponse) asyncContext.getResponse()).sendError(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
+                    asyncContext.complete();
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public void onAllDataRead() throws IOException {
+            String messageBody = body.decodeUtf8();
+            body.release();
+            log.info("messageBody={}", messageBody);
+
+            HttpServletResponse response = (HttpServletResponse) asyncContext.getResponse();
+            response.setContentType("text/plain;charset=UTF-8");
+            response.setContentLength(OK.length);
+            response.getOutputStream().setWriteListener(this);
+        }
+
+        @Override
+        public void onWritePossible() throws IOException {
+            ServletOutputStream out = asyncContext.getResponse().getOutputStream();
+            while (out.isReady()) {
+                if (written) {
+                    asyncContext.complete();
+                    return;
+                }
+                out.write(OK);
+                written = true;
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            log.warn("async body error", t);
+            body.release();
+            asyncContext.complete();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) throws IOException {
+            body.release();
+            ((HttpServletResponse) asyncContext.getResponse()).sendError(HttpServletResponse.SC_REQUEST_TIMEOUT);
+            asyncContext.complete();
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            body.release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package hello.springmvc.basic.request;
 
+import hello.springmvc.web.io.RequestBodyReader;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.*;
 import org.springframework.http.converter.HttpMessageConverter;
@@ -17,11 +19,16 @@ import java.nio.charset.StandardCharsets;
 
 @Slf4j
 @Controller
+@RequiredArgsConstructor
 public class RequestBodyStringController {
+
+//    StreamUtils.copyToString(inputStream, StandardCharsets.UTF_8) 은 요청마다 버퍼를 새로 만들고 크기 제한도 없다.
+//    RequestBodyReader는 재사용하는 버퍼로 읽고 hello.io.max-body-size 를 넘으면 413으로 거절한다.
+    private final RequestBodyReader requestBodyReader;
+
     @PostMapping("/request-body-string-v1")
     public void requestBodyString(HttpServletRequest request, HttpServletResponse response) throws IOException{
-        ServletInputStream inputStream = request.getInputStream();
-        String messageBody = StreamUtils.copyToString(inputStream, StandardCharsets.UTF_8);
+        String messageBody = requestBodyReader.readUtf8(request);
         log.info("messageBody={}", messageBody);
         response.getWriter().write("ok");
     }
@@ -30,7 +37,7 @@ public class RequestBodyStringController {
 //    OutputStream(Writer) : HTTP 응답 메시지의 바디에 직접 결과 출력
     @PostMapping("/request-body-string-v2")
     public void requestBodyStringV2(InputStream inputStream, Writer responseWriter) throws IOException{
-        String messageBody = StreamUtils.copyToString(inputStream, StandardCharsets.UTF_8);
+        String messageBody = requestBodyReader.readUtf8(inputStream);
         log.info("messageBody={}", messageBody);
         responseWriter.write("ok");
     }
@@ -43,6 +50,7 @@ public class RequestBodyStringController {
 //    @ModelAttribute를 이용해야 하고 그 외의 이를테면 json, xml, text가 요청메시지의 바디에 들어올때에는 HttpEntity를 사용해서
 //    요청메시지의 body를 꺼낼 수 있다는 얘기이다. HttpEntity가 메서드의 인자로 주입(바인딩)되는 과정에서 HttpMessageConverter중에서
 //    StringHttpMessageConverter을 사용한다.
+//    (이 프로젝트에서는 StringHttpMessageConverter를 상속한 PooledStringHttpMessageConverter가 RequestBodyReader로 읽는다. WebConfig 참고)
 //
 //    메서드 내에서 HttpEntity를 반환 함으로서 응답메시지를 통째로 반환도 할 수 있는데, return new HttpEntity<>("ok"); 로 메서드 내에서
 //    반환을 하면 dispatcherServlet으로 가서 view를 조회 하는 것이 아니라 바로 요청한 클라이언트에게 응답메시지를 바로 보내는 것이다.
@@ -1,5 +1,6 @@
 package hello.springmvc.basic.request;
 
+import hello.springmvc.web.http.LazyHeaders;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpMethod;
 import org.springframework.util.LinkedMultiValueMap;
@@ -42,6 +43,19 @@ public class RequestHeaderController {
         return "ok";
     }
 
+//    위와 같은 값을 LazyHeaders 하나로 받는다.
+//    헤더 전체 맵, 모든 쿠키의 Cookie[] 를 미리 만들지 않고 꺼낼 때 요청에서 읽는다. (Locale, 쿠키는 한번 읽으면 저장)
+//    헤더 전체가 필요하면 headers.toMultiValueMap()
+    @RequestMapping("/headers-v2")
+    public String headersV2(LazyHeaders headers) {
+        log.info("httpMethod={}", headers.getMethod());
+        log.info("locale={}", headers.getLocale());
+        log.info("header host={}", headers.getHost());
+        log.info("myCookie={}", headers.getCookie("myCookie"));
+
+        return "ok";
+    }
+
 
 //    cf : Spring에서 제공하는 MultiaValueMap 인터페이스
 //    MAP과 유사한데, 하나의 key에 여러 값을 받을 수 있다.
@@ -1,9 +1,13 @@
 package hello.springmvc.basic.request;
 
 import hello.springmvc.basic.HelloData;
-import lombok.extern.slf4j.Slf4j;
+import hello.springmvc.logging.HelloLog;
+import hello.springmvc.web.bind.FastModelAttribute;
+import hello.springmvc.web.bind.ParamMap;
+import hello.springmvc.web.bind.RawRequestParams;
 import org.springframework.stereotype.Controller;
 import org.springframework.util.MultiValueMap;
+import org.springframework.web.bind.ServletRequestBindingException;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -15,9 +19,10 @@ import javax.swing.*;
 import java.io.IOException;
 import java.util.Map;
 
-@Slf4j
 @Controller
 public class RequestParamController {
+    private static final HelloLog log = HelloLog.getLogger(RequestParamController.class);
+
 //    반환 타입이 없으면서 이렇게 응담에 값을 직접 집에넣으면, view 조회x
     @RequestMapping("/request-param-v1")
     public void requestParamV1(HttpServletRequest request, HttpServletResponse response) throws IOException {
@@ -63,6 +68,19 @@ public class RequestParamController {
         return "ok";
     }
 
+//    RawRequestParams 사용
+//    v1처럼 이름으로 꺼내지만 컨테이너가 모든 파라미터를 디코딩해서 맵을 만들지 않는다.
+//    요청 바이트에서 username만 찾아 디코딩하고 age는 String 없이 바로 int로 읽는다.
+//    age가 없거나 숫자가 아니면 400
+    @ResponseBody
+    @RequestMapping("/request-param-v5")
+    public String requestParamV5(RawRequestParams params) throws ServletRequestBindingException {
+        String username = params.getString("username");
+        int age = params.getInt("age");
+        log.info("username={}, age={}", username, age);
+        return "ok";
+    }
+
 //    @RequestParam.required
 //    /request-param-required -> username이 없으므로 예외
 //    주의!
@@ -105,6 +123,16 @@ public class RequestParamController {
         return "ok";
     }
 
+//    ParamMap 사용 - requestParamMapV2
+//    Map처럼 이름으로 꺼내지만 LinkedHashMap과 값 String을 미리 만들지 않는다.
+//    getInt는 박싱 없이 int로 바로 읽는다. (없거나 숫자가 아니면 400)
+    @ResponseBody
+    @RequestMapping("/request-param-map-v2")
+    public String requestParamMapV2(ParamMap paramMap) throws ServletRequestBindingException {
+        log.info("username={}, age={}", paramMap.getString("username"), paramMap.getInt("age"));
+        return "ok";
+    }
+
 //    파라미터를 Map, MultiValueMap으로 조회할 수 있다.
 //    @RequestParam Map,
 //      Map(key=value)
@@ -152,6 +180,17 @@ public class RequestParamController {
 //    @ModelAttribute(name="asdf") HelloData helloData 와 같이 ModelAttribute에 name도 적을 수 있는데
 //    이 부분은 Spring MVC에서 뷰가 있어야 제대로 이해하기 때문에 나중에 작은 프로젝트 만드는 수업(동일 책 뒷부분) 에서 다뤄보겠다.
 
+//    @FastModelAttribute - modelAttributeV3
+//    결과는 @ModelAttribute와 같지만 요청마다 WebDataBinder를 만들지 않고
+//    애플리케이션 시작 시 HelloData용으로 만들어둔 setter 목록(BindPlan)으로 바로 값을 넣는다.
+//    /model-attribute-v3?username=hello&age=20
+    @ResponseBody
+    @RequestMapping("/model-attribute-v3")
+    public String modelAttributeV3(@FastModelAttribute HelloData data){
+        log.info("username={}, age={}", data.getUsername(), data.getAge());
+        return "ok";
+    }
+
 }
 
 
@@ -0,0 +1,236 @@
+package hello.springmvc.basic.requestmapping;
+
+import hello.springmvc.web.json.JsonMappers;
+import hello.springmvc.web.json.JsonStreamReader;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.annotation.PreDestroy;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+//  /mapping/users/{userId}/orders/{orderId} 를 여러건 한번에 조회한다.
+//  POST /mapping/orders/bulk?ordered=false
+//  content-type: application/x-ndjson
+//  {"userId":"userA", "orderId":1}
+//  {"userId":"userA", "orderId":2}
+//  (application/json 으로 [{...}, {...}] 배열을 보내도 된다.)
+//
+//  건마다 ForkJoinPool에서 따로 처리하고 끝나는 대로 한 줄씩(NDJSON) 쓰고 flush 하기 때문에
+//  응답은 Content-Length 없이 chunked로 나간다. 요청 바디를 다 읽기 전에도 끝난 결과부터 쓴다.
+//  아직 쓰지 않은 건이 max-in-flight를 넘으면 바디를 더 읽지 않고 기다린다. (한 건이 timeout-millis 안에 끝나지 않으면 중단)
+//  결과를 쓰기 시작한 뒤에 생긴 오류(잘못된 JSON, 건수 초과)는 상태 코드 대신 마지막 줄의 error로 알린다.
+//  ordered=true 면 요청 순서대로, false(기본) 면 먼저 끝난 것부터 쓴다.
+//  응답 쓰기는 요청 스레드 하나만 한다. (ServletOutputStream은 여러 스레드가 같이 쓰면 안 된다)
+@Slf4j
+@RestController
+public class MappingBulkController {
+
+    private static final byte[] NEW_LINE = {'\n'};
+
+    private final JsonStreamReader jsonStreamReader;
+    private final JsonMappers jsonMappers;
+    private final ForkJoinPool pool;
+    private final int maxOrders;
+    private final int maxInFlight;
+    private final long timeoutMillis;
+
+    public MappingBulkController(JsonStreamReader jsonStreamReader, JsonMappers jsonMappers,
+                                 @Value("${hello.mapping.bulk.parallelism:0}") int parallelism,
+                                 @Value("${hello.mapping.bulk.max-orders:10000}") int maxOrders,
+                                 @Value("${hello.mapping.bulk.max-in-flight:256}") int maxInFlight,
+                                 @Value("${hello.mapping.bulk.timeout-millis:30000}") long timeoutMillis) {
+        this.jsonStreamReader = jsonStreamReader;
+        this.jsonMappers = jsonMappers;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.maxOrders = maxOrders;
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    @PostMapping(value = "/mapping/orders/bulk", consumes = {"application/x-ndjson", "application/json"})
+    public void mappingOrdersBulk(@RequestParam(defaultValue = "false") boolean ordered,
+                                  HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setContentType("application/x-ndjson");
+        Results results = new Results(ordered, response.getOutputStream());
+        try {
+            jsonStreamReader.readEach(request.getInputStream(), OrderKey.class, key -> {
+                if (results.submitted == maxOrders) {
+                    throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, "more than " + maxOrders + " orders");
+                }
+                results.submit(key);
+                results.writeDone(maxInFlight);
+            });
+            results.writeDone(0);
+        } catch (RuntimeException | IOException e) {
+            Throwable error = e instanceof UncheckedIOException ? e.getCause() : e;
+//            이미 결과를 쓰기 시작했으면 상태 코드를 바꿀 수 없으므로 마지막 줄에 error로 알린다.
+            if (!response.isCommitted()) {
+                if (error instanceof IOException) {
+                    throw (IOException) error;
+                }
+                throw e;
+            }
+            log.warn("bulk orders stopped after {} results: {}", results.written, error.getMessage());
+            results.write(failed(null, error));
+        }
+        log.info("bulk orders={}, ordered={}", results.written, ordered);
+    }
+
+    private static OrderResult failed(OrderKey key, Throwable e) {
+        OrderResult result = key == null ? new OrderResult(null, null) : new OrderResult(key.getUserId(), key.getOrderId());
+        result.setError(e instanceof CompletionException && e.getCause() != null ? e.getCause().toString() : e.toString());
+        return result;
+    }
+
+//    요청 바디를 읽는 중간중간(건을 하나 넣을 때마다) 끝난 결과를 쓴다. 요청 스레드 하나만 쓴다.
+//    - ordered   : 아직 쓰지 않은 future를 요청 순서대로 pending에 두고 앞에서부터 끝난 것만 쓴다.
+//    - unordered : 끝난 결과가 completed 큐에 들어오고 들어온 것을 쓴다.
+//    아직 쓰지 않은 건이 maxInFlight를 넘으면 하나가 끝날 때까지 기다린다. (그동안 바디를 더 읽지 않는다)
+//    lookup이 Error로 끝나도 handle()에서 error가 채워진 결과로 바꾸기 때문에 기다리는 쪽이 멈추지 않는다.
+    private class Results {
+        private final boolean ordered;
+        private final ServletOutputStream out;
+        private final Deque<CompletableFuture<OrderResult>> pending = new ArrayDeque<>();
+        private final BlockingQueue<OrderResult> completed = new LinkedBlockingQueue<>();
+        private int submitted;
+        private int written;
+
+        Results(boolean ordered, ServletOutputStream out) {
+            this.ordered = ordered;
+            this.out = out;
+        }
+
+        void submit(OrderKey key) {
+            CompletableFuture<OrderResult> result;
+            try {
+                result = CompletableFuture.supplyAsync(() -> lookup(key), pool)
+                        .handle((r, e) -> e == null ? r : failed(key, e));
+            } catch (RejectedExecutionException e) {
+                result = CompletableFuture.completedFuture(failed(key, e));
+            }
+            if (ordered) {
+                pending.add(result);
+            } else {
+                result.thenAccept(completed::add);
+            }
+            submitted++;
+        }
+
+//        끝난 것을 모두 쓰고, 남은 건이 keep 이하가 될 때까지 기다리면서 쓴다. (keep = 0 이면 전부)
+        void writeDone(int keep) {
+            try {
+                while (true) {
+                    OrderResult result = ordered ? nextOrdered(submitted - written > keep) : nextUnordered(submitted - written > keep);
+                    if (result == null) {
+                        return;
+                    }
+                    write(result);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private OrderResult nextOrdered(boolean wait) throws IOException {
+            CompletableFuture<OrderResult> head = pending.peek();
+            if (head == null || !(head.isDone() || wait)) {
+                return null;
+            }
+            try {
+                OrderResult result = head.get(timeoutMillis, TimeUnit.MILLISECONDS);
+                pending.poll();
+                return result;
+            } catch (TimeoutException e) {
+                throw timedOut();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private OrderResult nextUnordered(boolean wait) throws IOException {
+            if (!wait) {
+                return completed.poll();
+            }
+            try {
+                OrderResult result = completed.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+                if (result == null) {
+                    throw timedOut();
+                }
+                return result;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+        }
+
+        private IOException timedOut() {
+            return new IOException("order lookup did not finish within " + timeoutMillis + "ms");
+        }
+
+        void write(OrderResult result) throws IOException {
+            out.write(jsonMappers.writer(OrderResult.class).writeValueAsBytes(result));
+            out.write(NEW_LINE);
+            out.flush();
+            written++;
+        }
+    }
+
+//    mappingPath(userId, orderId) 한건과 같은 일. 실패해도 다른 건은 계속 처리하고 그 건만 error를 채운다.
+    private OrderResult lookup(OrderKey key) {
+        OrderResult result = new OrderResult(key.getUserId(), key.getOrderId());
+        try {
+            if (key.getUserId() == null || key.getOrderId() == null) {
+                throw new IllegalArgumentException("userId and orderId are required");
+            }
+            log.debug("mappingPath userId={} orderId={}", key.getUserId(), key.getOrderId());
+            result.setResult("ok");
+        } catch (RuntimeException e) {
+            result.setError(e.getMessage());
+        }
+        return result;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    @Data
+    public static class OrderKey {
+        private String userId;
+        private Long orderId;
+    }
+
+    @Data
+    public static class OrderResult {
+        private final String userId;
+        private final Long orderId;
+        private String result;
+        private String error;
+    }
+}
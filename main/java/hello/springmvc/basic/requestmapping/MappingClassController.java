@@ -1,38 +1,73 @@
 package hello.springmvc.basic.requestmapping;
 
+import hello.springmvc.user.User;
+import hello.springmvc.user.UserForm;
+import hello.springmvc.user.UserPage;
+import hello.springmvc.user.UserStore;
+import hello.springmvc.web.coalesce.Coalesce;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
+//  UserStore(메모리 저장소)에 사용자를 저장하고 조회한다. userId는 POST 할 때 받은 숫자 id
 @RestController
 @RequestMapping("/mapping/users")
+@RequiredArgsConstructor
 public class MappingClassController {
 
-//    GET /mapping/users
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final UserStore userStore;
+
+//    GET /mapping/users?size=100
+//    GET /mapping/users?cursor={nextCursor}&size=100 (다음 페이지, 첫 페이지를 요청한 시점의 값 그대로)
     @GetMapping
-    public String users(){
-        return "get users";
+    public UserPage users(@RequestParam(required = false) String cursor,
+                          @RequestParam(defaultValue = "100") int size){
+        return userStore.page(cursor, Math.max(1, Math.min(size, MAX_PAGE_SIZE)));
     }
 
 //    POST /mapping/users
     @PostMapping
-    public String addUser(){
-        return "post user";
+    @ResponseStatus(HttpStatus.CREATED)
+    public User addUser(@RequestBody UserForm form){
+        return userStore.create(form.getUsername(), form.getAge() == null ? 0 : form.getAge());
     }
 
 //    GET /mapping/users/{userId}
+    @Coalesce
     @GetMapping("/{userId}")
-    public String findUser(@PathVariable String userId){
-        return "get userId=" + userId;
+    public User findUser(@PathVariable long userId){
+        return found(userStore.find(userId));
     }
 
 //    PATCH /mapping/users/{userId}
     @PatchMapping("/{userId}")
-    public String updateUser(@PathVariable String userId){
-        return "update userId="+userId;
+    public User updateUser(@PathVariable long userId, @RequestBody UserForm form){
+        return found(userStore.update(userId, form.getUsername(), form.getAge()));
     }
 
 //    DELETE /mapping/users/{userId}
     @DeleteMapping("/{userId}")
-    public String deleteUser(@PathVariable String userId){
-        return "delete userId="+userId;
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void deleteUser(@PathVariable long userId){
+        if (!userStore.delete(userId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        }
+    }
+
+//    잘못된 cursor
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> badRequest(IllegalArgumentException e){
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+
+    private static User found(User user){
+        if (user == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        }
+        return user;
     }
 }
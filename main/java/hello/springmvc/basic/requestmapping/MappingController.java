@@ -1,7 +1,7 @@
 package hello.springmvc.basic.requestmapping;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import hello.springmvc.logging.HelloLog;
+import hello.springmvc.web.coalesce.Coalesce;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 
@@ -9,7 +9,7 @@ import java.lang.reflect.Type;
 
 @RestController
 public class MappingController {
-    private Logger log = LoggerFactory.getLogger(getClass());
+    private final HelloLog log = HelloLog.getLogger(getClass());
 
 
 //    기본요청
@@ -56,6 +56,7 @@ public class MappingController {
 //    매핑url의 변수명과 메서드의 인자 변수명이 같으면 생략 가능
 //    @PathVariable("userId") String userId -> @PathVariabl String userId
 //     => ("userId") 생략 가능
+    @Coalesce
     @GetMapping("/mapping/{userId}")
     public String mappingPath(@PathVariable("userId") String data){
         log.info("mappingPath userId={}", data);
@@ -1,6 +1,8 @@
 package hello.springmvc.basic.response;
 
 import hello.springmvc.basic.HelloData;
+import hello.springmvc.web.cache.CachedResponse;
+import hello.springmvc.web.coalesce.Coalesce;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpStatus;
@@ -38,6 +40,9 @@ public class ResponseBodyController {
         return "ok";
     }
 
+//    항상 같은 값이라 한번 직렬화한 바이트를 재사용한다. (ETag, gzip 포함)
+    @Coalesce
+    @CachedResponse(key = "response-body-json-v1", ttlSeconds = 300)
     @GetMapping("/response-body-json-v1")
     public ResponseEntity<HelloData> responseBodyJsonV1(){
         HelloData helloData = new HelloData();
@@ -47,6 +52,7 @@ public class ResponseBodyController {
     }
     @ResponseStatus(HttpStatus.OK)
     @ResponseBody
+    @CachedResponse(key = "response-body-json-v2", ttlSeconds = 300)
     @GetMapping("/response-body-json-v2")
     public HelloData responseBodyJsonV2(){
         HelloData helloData = new HelloData();
@@ -0,0 +1,58 @@
+package hello.springmvc.logging;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import hello.springmvc.web.metrics.MetricsSource;
+import hello.springmvc.web.metrics.PrometheusWriter;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+//  logback에 붙어있는 RingBufferFileAppender들의 큐 깊이, 버린 건수 등을 /metrics 로 내보낸다.
+@Component
+public class AsyncLogMetrics implements MetricsSource {
+
+    @Override
+    public void collect(PrometheusWriter writer) {
+        List<RingBufferFileAppender> appenders = appenders();
+        if (appenders.isEmpty()) {
+            return;
+        }
+        writer.family("hello_log_queue_depth", "gauge", "Log events waiting in the ring buffer");
+        appenders.forEach(a -> writer.sample("hello_log_queue_depth", label(a), a.getQueueDepth()));
+        writer.family("hello_log_queue_capacity", "gauge", "Ring buffer capacity");
+        appenders.forEach(a -> writer.sample("hello_log_queue_capacity", label(a), a.getQueueCapacity()));
+        writer.family("hello_log_dropped_total", "counter", "Log events dropped because the ring buffer was full");
+        appenders.forEach(a -> writer.sample("hello_log_dropped_total", label(a), a.getDropped()));
+        writer.family("hello_log_written_total", "counter", "Log events written to disk");
+        appenders.forEach(a -> writer.sample("hello_log_written_total", label(a), a.getWritten()));
+        writer.family("hello_log_flushes_total", "counter", "Batched flushes to disk");
+        appenders.forEach(a -> writer.sample("hello_log_flushes_total", label(a), a.getFlushes()));
+    }
+
+    private static String label(RingBufferFileAppender appender) {
+        return PrometheusWriter.labels("appender", appender.getName());
+    }
+
+    private static List<RingBufferFileAppender> appenders() {
+        List<RingBufferFileAppender> result = new ArrayList<>();
+        if (!(LoggerFactory.getILoggerFactory() instanceof LoggerContext)) {
+            return result;
+        }
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        for (Logger logger : context.getLoggerList()) {
+            for (Iterator<Appender<ILoggingEvent>> it = logger.iteratorForAppenders(); it.hasNext(); ) {
+                Appender<ILoggingEvent> appender = it.next();
+                if (appender instanceof RingBufferFileAppender && !result.contains(appender)) {
+                    result.add((RingBufferFileAppender) appender);
+                }
+            }
+        }
+        return result;
+    }
+}
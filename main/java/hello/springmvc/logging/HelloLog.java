@@ -0,0 +1,390 @@
+package hello.springmvc.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.LoggerContextListener;
+import org.slf4j.ILoggerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+//  자주 불리는 핸들러용 로거 (slf4j Logger를 감싼다)
+//  - 레벨 확인을 logback에 묻지 않고 로거마다 저장해둔 값(volatile int) 하나와 비교한다.
+//    로그 레벨이 바뀌면(logging.level.*, /actuator/loggers, logback 설정 다시 읽기) LoggerContextListener가 모든 HelloLog의 값을 다시 계산한다.
+//  - int, long 인자 오버로드가 있어서 info("age={}", age) 가 박싱되지 않는다. 꺼진 레벨이면 박싱도, Object[]도 만들지 않는다.
+//    (켜진 레벨일 때만 박싱해서 slf4j로 넘긴다)
+//  인자가 3개까지는 Object[] 없이 받는다. (3개짜리는 Object만 받으므로 int, long을 넘기면 부르는 쪽에서 박싱된다)
+//  문자열을 + 로 합쳐서 넘기지 않는다. (LogConcatenationTest가 확인한다)
+//  logback이 아니면 레벨을 저장하지 않고 매번 slf4j에 맡긴다.
+public final class HelloLog {
+
+    private static final int TRACE = 0;
+    private static final int DEBUG = 1;
+    private static final int INFO = 2;
+    private static final int WARN = 3;
+    private static final int ERROR = 4;
+    private static final int OFF = 5;
+
+    private static final ConcurrentMap<String, HelloLog> LOGGERS = new ConcurrentHashMap<>();
+    private static volatile boolean listening;
+
+    private final Logger logger;
+    private volatile int threshold;
+
+    private HelloLog(Logger logger) {
+        this.logger = logger;
+        refresh();
+    }
+
+    public static HelloLog getLogger(Class<?> type) {
+        return getLogger(type.getName());
+    }
+
+    public static HelloLog getLogger(String name) {
+        HelloLog log = LOGGERS.get(name);
+        if (log != null) {
+            return log;
+        }
+        listen();
+        return LOGGERS.computeIfAbsent(name, n -> new HelloLog(LoggerFactory.getLogger(n)));
+    }
+
+    public boolean isTraceEnabled() {
+        return threshold <= TRACE;
+    }
+
+    public boolean isDebugEnabled() {
+        return threshold <= DEBUG;
+    }
+
+    public boolean isInfoEnabled() {
+        return threshold <= INFO;
+    }
+
+    public boolean isWarnEnabled() {
+        return threshold <= WARN;
+    }
+
+    public boolean isErrorEnabled() {
+        return threshold <= ERROR;
+    }
+
+//    trace
+    public void trace(String msg) {
+        if (threshold <= TRACE) {
+            logger.trace(msg);
+        }
+    }
+
+    public void trace(String format, Object arg) {
+        if (threshold <= TRACE) {
+            logger.trace(format, arg);
+        }
+    }
+
+    public void trace(String format, long arg) {
+        if (threshold <= TRACE) {
+            logger.trace(format, arg);
+        }
+    }
+
+    public void trace(String format, Object arg1, Object arg2) {
+        if (threshold <= TRACE) {
+            logger.trace(format, arg1, arg2);
+        }
+    }
+
+    public void trace(String format, Object arg1, long arg2) {
+        if (threshold <= TRACE) {
+            logger.trace(format, arg1, arg2);
+        }
+    }
+
+    public void trace(String format, long arg1, Object arg2) {
+        if (threshold <= TRACE) {
+            logger.trace(format, arg1, arg2);
+        }
+    }
+
+    public void trace(String format, long arg1, long arg2) {
+        if (threshold <= TRACE) {
+            logger.trace(format, arg1, arg2);
+        }
+    }
+
+    public void trace(String format, Object arg1, Object arg2, Object arg3) {
+        if (threshold <= TRACE) {
+            logger.trace(format, arg1, arg2, arg3);
+        }
+    }
+
+//    debug
+    public void debug(String msg) {
+        if (threshold <= DEBUG) {
+            logger.debug(msg);
+        }
+    }
+
+    public void debug(String format, Object arg) {
+        if (threshold <= DEBUG) {
+            logger.debug(format, arg);
+        }
+    }
+
+    public void debug(String format, long arg) {
+        if (threshold <= DEBUG) {
+            logger.debug(format, arg);
+        }
+    }
+
+    public void debug(String format, Object arg1, Object arg2) {
+        if (threshold <= DEBUG) {
+            logger.debug(format, arg1, arg2);
+        }
+    }
+
+    public void debug(String format, Object arg1, long arg2) {
+        if (threshold <= DEBUG) {
+            logger.debug(format, arg1, arg2);
+        }
+    }
+
+    public void debug(String format, long arg1, Object arg2) {
+        if (threshold <= DEBUG) {
+            logger.debug(format, arg1, arg2);
+        }
+    }
+
+    public void debug(String format, long arg1, long arg2) {
+        if (threshold <= DEBUG) {
+            logger.debug(format, arg1, arg2);
+        }
+    }
+
+    public void debug(String format, Object arg1, Object arg2, Object arg3) {
+        if (threshold <= DEBUG) {
+            logger.debug(format, arg1, arg2, arg3);
+        }
+    }
+
+//    info
+    public void info(String msg) {
+        if (threshold <= INFO) {
+            logger.info(msg);
+        }
+    }
+
+    public void info(String format, Object arg) {
+        if (threshold <= INFO) {
+            logger.info(format, arg);
+        }
+    }
+
+    public void info(String format, long arg) {
+        if (threshold <= INFO) {
+            logger.info(format, arg);
+        }
+    }
+
+    public void info(String format, Object arg1, Object arg2) {
+        if (threshold <= INFO) {
+            logger.info(format, arg1, arg2);
+        }
+    }
+
+    public void info(String format, Object arg1, long arg2) {
+        if (threshold <= INFO) {
+            logger.info(format, arg1, arg2);
+        }
+    }
+
+    public void info(String format, long arg1, Object arg2) {
+        if (threshold <= INFO) {
+            logger.info(format, arg1, arg2);
+        }
+    }
+
+    public void info(String format, long arg1, long arg2) {
+        if (threshold <= INFO) {
+            logger.info(format, arg1, arg2);
+        }
+    }
+
+    public void info(String format, Object arg1, Object arg2, Object arg3) {
+        if (threshold <= INFO) {
+            logger.info(format, arg1, arg2, arg3);
+        }
+    }
+
+//    warn
+    public void warn(String msg) {
+        if (threshold <= WARN) {
+            logger.warn(msg);
+        }
+    }
+
+    public void warn(String format, Object arg) {
+        if (threshold <= WARN) {
+            logger.warn(format, arg);
+        }
+    }
+
+    public void warn(String format, long arg) {
+        if (threshold <= WARN) {
+            logger.warn(format, arg);
+        }
+    }
+
+    public void warn(String format, Object arg1, Object arg2) {
+        if (threshold <= WARN) {
+            logger.warn(format, arg1, arg2);
+        }
+    }
+
+    public void warn(String format, Object arg1, long arg2) {
+        if (threshold <= WARN) {
+            logger.warn(format, arg1, arg2);
+        }
+    }
+
+    public void warn(String format, long arg1, Object arg2) {
+        if (threshold <= WARN) {
+            logger.warn(format, arg1, arg2);
+        }
+    }
+
+    public void warn(String format, long arg1, long arg2) {
+        if (threshold <= WARN) {
+            logger.warn(format, arg1, arg2);
+        }
+    }
+
+    public void warn(String format, Object arg1, Object arg2, Object arg3) {
+        if (threshold <= WARN) {
+            logger.warn(format, arg1, arg2, arg3);
+        }
+    }
+
+//    error
+    public void error(String msg) {
+        if (threshold <= ERROR) {
+            logger.error(msg);
+        }
+    }
+
+    public void error(String format, Object arg) {
+        if (threshold <= ERROR) {
+            logger.error(format, arg);
+        }
+    }
+
+    public void error(String format, long arg) {
+        if (threshold <= ERROR) {
+            logger.error(format, arg);
+        }
+    }
+
+    public void error(String format, Object arg1, Object arg2) {
+        if (threshold <= ERROR) {
+            logger.error(format, arg1, arg2);
+        }
+    }
+
+    public void error(String format, Object arg1, long arg2) {
+        if (threshold <= ERROR) {
+            logger.error(format, arg1, arg2);
+        }
+    }
+
+    public void error(String format, long arg1, Object arg2) {
+        if (threshold <= ERROR) {
+            logger.error(format, arg1, arg2);
+        }
+    }
+
+    public void error(String format, long arg1, long arg2) {
+        if (threshold <= ERROR) {
+            logger.error(format, arg1, arg2);
+        }
+    }
+
+    public void error(String format, Object arg1, Object arg2, Object arg3) {
+        if (threshold <= ERROR) {
+            logger.error(format, arg1, arg2, arg3);
+        }
+    }
+
+//    logback 로거의 실제(부모에게 물려받은) 레벨로 다시 계산한다.
+    private void refresh() {
+        if (!(logger instanceof ch.qos.logback.classic.Logger)) {
+            threshold = TRACE;
+            return;
+        }
+        Level level = ((ch.qos.logback.classic.Logger) logger).getEffectiveLevel();
+        switch (level.toInt()) {
+            case Level.TRACE_INT:
+            case Level.ALL_INT:
+                threshold = TRACE;
+                break;
+            case Level.DEBUG_INT:
+                threshold = DEBUG;
+                break;
+            case Level.INFO_INT:
+                threshold = INFO;
+                break;
+            case Level.WARN_INT:
+                threshold = WARN;
+                break;
+            case Level.ERROR_INT:
+                threshold = ERROR;
+                break;
+            default:
+                threshold = OFF;
+        }
+    }
+
+    private static void refreshAll() {
+        LOGGERS.values().forEach(HelloLog::refresh);
+    }
+
+//    부모 로거의 레벨만 바뀌어도 자식의 실제 레벨이 바뀌기 때문에 어떤 변경이든 전부 다시 계산한다. (드문 일)
+    private static synchronized void listen() {
+        if (listening) {
+            return;
+        }
+        listening = true;
+        ILoggerFactory factory = LoggerFactory.getILoggerFactory();
+        if (factory instanceof LoggerContext) {
+            ((LoggerContext) factory).addListener(new LevelListener());
+        }
+    }
+
+    private static class LevelListener implements LoggerContextListener {
+
+        @Override
+        public boolean isResetResistant() {
+            return true;
+        }
+
+        @Override
+        public void onStart(LoggerContext context) {
+            refreshAll();
+        }
+
+        @Override
+        public void onReset(LoggerContext context) {
+            refreshAll();
+        }
+
+        @Override
+        public void onStop(LoggerContext context) {
+        }
+
+        @Override
+        public void onLevelChange(ch.qos.logback.classic.Logger logger, Level level) {
+            refreshAll();
+        }
+    }
+}
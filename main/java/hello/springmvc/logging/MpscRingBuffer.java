@@ -0,0 +1,65 @@
+package hello.springmvc.logging;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+//  여러 스레드가 넣고(offer) 한 스레드만 꺼내는(drain) 크기 고정 링 버퍼. 락을 쓰지 않는다.
+//  - 넣는 쪽: tail을 CAS로 하나 증가시켜서 자리를 먼저 잡고 그 자리에 값을 쓴다. 꽉 차 있으면 false
+//  - 꺼내는 쪽: head 자리부터 값이 채워진 곳까지 꺼내고 자리를 비운 다음 head를 옮긴다.
+final class MpscRingBuffer<E> {
+
+    private final AtomicReferenceArray<E> slots;
+    private final int capacity;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+
+    MpscRingBuffer(int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two: " + capacity);
+        }
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+    }
+
+    boolean offer(E element) {
+        long t;
+        do {
+            t = tail.get();
+            if (t - head.get() >= capacity) {
+                return false;
+            }
+        } while (!tail.compareAndSet(t, t + 1));
+        slots.lazySet((int) (t & mask), element);
+        return true;
+    }
+
+//    자리는 잡았지만 아직 값을 쓰지 않은 칸을 만나면 거기서 멈추고 다음 drain 때 이어서 꺼낸다.(순서 유지)
+    int drain(Consumer<? super E> consumer, int max) {
+        long h = head.get();
+        int count = 0;
+        while (count < max) {
+            int index = (int) (h & mask);
+            E element = slots.get(index);
+            if (element == null) {
+                break;
+            }
+            slots.lazySet(index, null);
+            h++;
+            count++;
+            consumer.accept(element);
+        }
+        head.set(h);
+        return count;
+    }
+
+    int size() {
+        return (int) Math.max(0, tail.get() - head.get());
+    }
+
+    int capacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,208 @@
+package hello.springmvc.logging;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import ch.qos.logback.core.encoder.Encoder;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+//  요청 스레드는 로그 이벤트를 링 버퍼에 넣기만 하고 바로 돌아간다.
+//  별도의 스레드 하나가 버퍼에서 batchSize 만큼씩 꺼내서 파일에 쓰고, 버퍼가 비면 한번만 flush 한다.
+//  버퍼가 비어 있는 동안 쓰는 스레드는 park 해서 기다리고, 이벤트를 넣은 요청 스레드가 그때만 unpark 한다. (주기적으로 깨어나지 않음)
+//  stop()은 쓰는 스레드가 남은 이벤트를 다 쓰고 파일을 닫을 때까지 기다린다.
+//  버퍼가 꽉 찼을 때는 policy 에 따라
+//   - drop  : 이벤트를 버리고 dropped 카운터를 올린다. (요청 스레드가 절대 기다리지 않음)
+//   - block : 자리가 날 때까지 기다린다. (로그를 잃지 않음)
+//  logback-spring.xml 의 async-log 프로파일에서 사용한다.
+public class RingBufferFileAppender extends UnsynchronizedAppenderBase<ILoggingEvent> {
+
+    private String file;
+    private Encoder<ILoggingEvent> encoder;
+    private int bufferSize = 8192;
+    private int batchSize = 256;
+    private String policy = "drop";
+
+    private MpscRingBuffer<ILoggingEvent> ring;
+    private OutputStream out;
+    private Thread worker;
+    private volatile boolean running;
+//    쓰는 스레드가 park 하려는 중이면 true. 요청 스레드는 이 값이 true일 때만 unpark 한다.
+    private volatile boolean waiting;
+
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+
+    @Override
+    public void start() {
+        if (encoder == null || file == null) {
+            addError("encoder and file are required for appender [" + name + "]");
+            return;
+        }
+        try {
+            File target = new File(file);
+            if (target.getParentFile() != null) {
+                target.getParentFile().mkdirs();
+            }
+            out = new BufferedOutputStream(new FileOutputStream(target, true), 64 * 1024);
+        } catch (IOException e) {
+            addError("cannot open log file " + file, e);
+            return;
+        }
+        ring = new MpscRingBuffer<>(bufferSize);
+        running = true;
+        worker = new Thread(this::drainLoop, "log-writer-" + name);
+        worker.setDaemon(true);
+        worker.start();
+        super.start();
+    }
+
+    @Override
+    public void stop() {
+        if (!isStarted()) {
+            return;
+        }
+        super.stop();
+        running = false;
+        LockSupport.unpark(worker);
+//        파일은 쓰는 스레드가 닫는다. 남은 이벤트를 다 쓰기 전에 닫으면 끝부분을 잃는다.
+        boolean interrupted = false;
+        while (worker.isAlive()) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+//        요청 스레드에서 MDC, 메시지 포맷팅 등을 확정해둬야 나중에 다른 스레드에서 써도 값이 바뀌지 않는다.
+        event.prepareForDeferredProcessing();
+        if (ring.offer(event)) {
+            wakeWorker();
+            return;
+        }
+        if (!"block".equalsIgnoreCase(policy)) {
+            dropped.increment();
+            return;
+        }
+        while (running && !ring.offer(event)) {
+            LockSupport.parkNanos(50_000);
+        }
+        wakeWorker();
+    }
+
+    private void wakeWorker() {
+        if (waiting) {
+            LockSupport.unpark(worker);
+        }
+    }
+
+    private void drainLoop() {
+        boolean dirty = false;
+        try {
+            while (running || ring.size() > 0) {
+                int n = ring.drain(this::write, batchSize);
+                if (n > 0) {
+                    dirty = true;
+                    continue;
+                }
+                if (dirty) {
+                    flush();
+                    dirty = false;
+                }
+                awaitEvents();
+            }
+            flush();
+        } finally {
+            close();
+        }
+    }
+
+//    waiting을 먼저 올리고 버퍼를 다시 본다. 그 사이에 들어온 이벤트는 여기서 보이거나, 넣은 쪽이 waiting을 보고 unpark 한다.
+//    (unpark가 park보다 먼저 와도 park는 바로 돌아온다)
+    private void awaitEvents() {
+        waiting = true;
+        if (running && ring.size() == 0) {
+            LockSupport.park(this);
+        }
+        waiting = false;
+    }
+
+    private void write(ILoggingEvent event) {
+        try {
+            out.write(encoder.encode(event));
+            written.increment();
+        } catch (IOException e) {
+            addError("cannot write log event", e);
+        }
+    }
+
+    private void close() {
+        try {
+            out.close();
+        } catch (IOException e) {
+            addError("cannot close log file " + file, e);
+        }
+    }
+
+    private void flush() {
+        try {
+            out.flush();
+            flushes.increment();
+        } catch (IOException e) {
+            addError("cannot flush log file " + file, e);
+        }
+    }
+
+    public int getQueueDepth() {
+        return ring == null ? 0 : ring.size();
+    }
+
+    public int getQueueCapacity() {
+        return bufferSize;
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    public long getWritten() {
+        return written.sum();
+    }
+
+    public long getFlushes() {
+        return flushes.sum();
+    }
+
+    public void setFile(String file) {
+        this.file = file;
+    }
+
+    public void setEncoder(Encoder<ILoggingEvent> encoder) {
+        this.encoder = encoder;
+    }
+
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public void setPolicy(String policy) {
+        this.policy = policy;
+    }
+}
@@ -0,0 +1,14 @@
+package hello.springmvc.user;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+//  cursor의 스냅샷이 보관 기간(hello.user.store.snapshot-retention-seconds)보다 오래되어서 더 이상 읽을 수 없을 때 (410)
+//  처음 페이지부터 다시 요청해야 한다.
+@ResponseStatus(HttpStatus.GONE)
+public class SnapshotExpiredException extends RuntimeException {
+
+    public SnapshotExpiredException(long ageMillis) {
+        super("snapshot is " + ageMillis + "ms old");
+    }
+}
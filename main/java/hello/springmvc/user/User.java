@@ -0,0 +1,12 @@
+package hello.springmvc.user;
+
+import lombok.Value;
+
+//  UserStore에 저장하는 값. 한번 만들면 바꾸지 않고 수정할 때는 새 User를 만든다.
+//  (읽는 스레드가 락 없이 이전 버전을 그대로 볼 수 있어야 하기 때문)
+@Value
+public class User {
+    long id;
+    String username;
+    int age;
+}
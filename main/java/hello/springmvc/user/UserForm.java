@@ -0,0 +1,11 @@
+package hello.springmvc.user;
+
+import lombok.Data;
+
+//  POST, PATCH /mapping/users 요청 바디
+//  PATCH 에서는 null인 값은 바꾸지 않는다.
+@Data
+public class UserForm {
+    private String username;
+    private Integer age;
+}
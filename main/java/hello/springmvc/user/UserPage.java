@@ -0,0 +1,13 @@
+package hello.springmvc.user;
+
+import lombok.Value;
+
+import java.util.List;
+
+//  GET /mapping/users 응답. nextCursor를 다음 요청의 cursor로 넘기면 같은 스냅샷의 다음 페이지를 준다.
+//  마지막 페이지면 nextCursor는 null
+@Value
+public class UserPage {
+    List<User> users;
+    String nextCursor;
+}
@@ -0,0 +1,240 @@
+package hello.springmvc.user;
+
+import hello.springmvc.web.metrics.MetricsSource;
+import hello.springmvc.web.metrics.PrometheusWriter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+//  UserStore를 재시작해도 남도록 디스크에 저장한다. (hello.user.store.persistence.enabled=true)
+//
+//  시작할 때(recover)
+//  1. 가장 최근 스냅샷(snapshot-{세그먼트 번호}.dat)을 읽는다.
+//  2. 그 번호부터의 WAL 세그먼트를 순서대로 다시 적용한다. (id마다 version이 큰 것이 이김)
+//  3. 새 세그먼트를 열어 WAL을 UserStore에 연결한다.
+//
+//  스냅샷(snapshot)
+//  1. WAL을 새 세그먼트(N)로 넘기고, N보다 작은 세그먼트의 가장 큰 version까지 UserStore에 commit될 때까지 기다린다.
+//     그러면 N보다 작은 세그먼트의 기록은 모두 UserStore에 반영되어 있다.
+//  2. UserStore의 id별 최신 버전을 임시 파일에 쓰고 fsync한 다음 snapshot-N.dat 으로 이름을 바꾸고 디렉터리를 fsync한다.
+//     헤더에 version과 마지막 id를 같이 써서 복구한 뒤에 id와 version이 예전 값보다 작아지지 않게 한다.
+//  3. N보다 작은 세그먼트와 이전 스냅샷을 지운다.
+//  쓰는 동안에도 요청은 계속 처리하고, 그 사이의 변경은 세그먼트 N 이후에 남아서 복구할 때 다시 적용된다.
+@Slf4j
+public class UserPersistence implements MetricsSource, AutoCloseable {
+
+    private static final int MAGIC_V1 = 0x55534e31; // "USN1" : [version]
+    private static final int MAGIC = 0x55534e32; // "USN2" : [version][마지막 id]
+    private static final String PREFIX = "snapshot-";
+    private static final String SUFFIX = ".dat";
+
+    private final UserStore userStore;
+    private final Path directory;
+    private final UserWriteAheadLog wal;
+    private final Object snapshotLock = new Object();
+    private final ScheduledExecutorService scheduler;
+
+    private volatile long recoveryMillis;
+    private volatile long lastSnapshotMillis;
+    private volatile long lastSnapshotVersion;
+
+//    snapshotIntervalSeconds 마다 바뀐 것이 있으면 스냅샷을 만든다. (0 이하면 종료할 때만)
+    public UserPersistence(UserStore userStore, Path directory, int segmentBytes, long groupCommitMicros,
+                           long snapshotIntervalSeconds) throws IOException {
+        this.userStore = userStore;
+        this.directory = Files.createDirectories(directory);
+        recover();
+        this.wal = new UserWriteAheadLog(directory, segmentBytes, groupCommitMicros);
+        this.lastSnapshotVersion = userStore.getVersion();
+        userStore.setChangeLog(wal);
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "user-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (snapshotIntervalSeconds > 0) {
+            scheduler.scheduleWithFixedDelay(() -> {
+                try {
+                    snapshotIfChanged();
+                } catch (IOException | RuntimeException e) {
+                    log.error("user snapshot failed", e);
+                }
+            }, snapshotIntervalSeconds, snapshotIntervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    public void snapshot() throws IOException {
+        synchronized (snapshotLock) {
+            long start = System.nanoTime();
+            UserWriteAheadLog.Rolled rolled = wal.roll();
+            long segment = rolled.getSegment();
+//            이전 세그먼트에 기록만 하고 아직 체인에 붙이지 않은 쓰기가 있으면 그 쓰기는 아래에서 읽지 못하고 세그먼트와 같이 지워진다.
+//            그 세그먼트들의 가장 큰 version까지 commit될 때까지 기다린다. (commit은 기록 바로 뒤에 하므로 길지 않다)
+            while (userStore.getVersion() < rolled.getLastVersion()) {
+                Thread.yield();
+            }
+            long version = userStore.getVersion();
+            long lastId = userStore.getLastId();
+            Path tmp = directory.resolve(PREFIX + segment + SUFFIX + ".tmp");
+            long[] count = new long[1];
+            try (OutputStream file = Files.newOutputStream(tmp);
+                 CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(file, 1 << 16), new CRC32());
+                 DataOutputStream out = new DataOutputStream(checked)) {
+                out.writeInt(MAGIC);
+                out.writeLong(version);
+                out.writeLong(lastId);
+                userStore.forEachLatest((id, v, user) -> {
+                    out.writeBoolean(true);
+                    out.writeLong(id);
+                    out.writeLong(v);
+                    writeUser(out, user);
+                    count[0]++;
+                });
+                out.writeBoolean(false);
+                out.flush();
+                out.writeLong(checked.getChecksum().getValue());
+            }
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+            Files.move(tmp, directory.resolve(PREFIX + segment + SUFFIX), StandardCopyOption.ATOMIC_MOVE);
+//            이름 바꾼 것이 디스크에 남기 전에 세그먼트를 지우면 죽었을 때 스냅샷도 세그먼트도 없게 된다.
+            UserWriteAheadLog.syncDirectory(directory);
+
+            wal.deleteSegmentsBefore(segment);
+            try (Stream<Path> files = Files.list(directory)) {
+                files.filter(path -> snapshotSegment(path) >= 0 && snapshotSegment(path) < segment)
+                        .forEach(path -> path.toFile().delete());
+            }
+            lastSnapshotVersion = version;
+            lastSnapshotMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            log.info("user snapshot segment={} users={} took {}ms", segment, count[0], lastSnapshotMillis);
+        }
+    }
+
+//    마지막 스냅샷 이후 바뀐 것이 있을 때만 스냅샷을 만든다.
+    public void snapshotIfChanged() throws IOException {
+        if (userStore.getVersion() != lastSnapshotVersion) {
+            snapshot();
+        }
+    }
+
+    public long getRecoveryMillis() {
+        return recoveryMillis;
+    }
+
+    @Override
+    public void collect(PrometheusWriter writer) {
+        wal.collect(writer);
+        writer.gauge("hello_user_recovery_millis", "Time spent loading the snapshot and replaying the WAL at startup", recoveryMillis)
+                .gauge("hello_user_snapshot_millis", "Time spent writing the last snapshot", lastSnapshotMillis);
+    }
+
+//    다음 시작이 WAL을 다시 적용하지 않고 스냅샷만 읽으면 되도록 종료할 때 한번 더 스냅샷을 만든다.
+    @Override
+    public void close() throws InterruptedException {
+        scheduler.shutdownNow();
+        try {
+            snapshotIfChanged();
+        } catch (IOException e) {
+            log.error("user snapshot on shutdown failed", e);
+        }
+        wal.close();
+    }
+
+    private void recover() throws IOException {
+        long start = System.nanoTime();
+        long fromSegment = 0;
+        long loaded = 0;
+        Optional<Path> snapshot;
+        try (Stream<Path> files = Files.list(directory)) {
+            snapshot = files.filter(path -> snapshotSegment(path) >= 0)
+                    .max(Comparator.comparingLong(UserPersistence::snapshotSegment));
+        }
+        if (snapshot.isPresent()) {
+            fromSegment = snapshotSegment(snapshot.get());
+            loaded = load(snapshot.get());
+        }
+        long replayed = UserWriteAheadLog.replay(directory, fromSegment, userStore::restore);
+        recoveryMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        log.info("user store recovered: snapshot={} records, wal={} records, users={}, took {}ms",
+                loaded, replayed, userStore.size(), recoveryMillis);
+    }
+
+    private long load(Path snapshot) throws IOException {
+        long count = 0;
+        try (InputStream file = Files.newInputStream(snapshot);
+             CheckedInputStream checked = new CheckedInputStream(new BufferedInputStream(file, 1 << 16), new CRC32());
+             DataInputStream in = new DataInputStream(checked)) {
+            int magic = in.readInt();
+            if (magic != MAGIC && magic != MAGIC_V1) {
+                throw new IOException("not a user snapshot: " + snapshot);
+            }
+            long snapshotVersion = in.readLong();
+            long lastId = magic == MAGIC ? in.readLong() : 0;
+            userStore.restoreCounters(lastId, snapshotVersion);
+            while (in.readBoolean()) {
+                long id = in.readLong();
+                long version = in.readLong();
+                userStore.restore(id, version, readUser(in, id));
+                count++;
+            }
+            long expected = checked.getChecksum().getValue();
+            if (in.readLong() != expected) {
+                throw new IOException("corrupt user snapshot: " + snapshot);
+            }
+        } catch (EOFException e) {
+            throw new IOException("truncated user snapshot: " + snapshot, e);
+        }
+        return count;
+    }
+
+    private static void writeUser(DataOutputStream out, User user) throws IOException {
+        out.writeBoolean(user != null);
+        if (user != null) {
+            out.writeBoolean(user.getUsername() != null);
+            if (user.getUsername() != null) {
+                out.writeUTF(user.getUsername());
+            }
+            out.writeInt(user.getAge());
+        }
+    }
+
+    private static User readUser(DataInputStream in, long id) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        String username = in.readBoolean() ? in.readUTF() : null;
+        return new User(id, username, in.readInt());
+    }
+
+    private static long snapshotSegment(Path path) {
+        String name = path.getFileName().toString();
+        if (!name.startsWith(PREFIX) || !name.endsWith(SUFFIX)) {
+            return -1;
+        }
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+}
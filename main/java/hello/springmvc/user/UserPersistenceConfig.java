@@ -0,0 +1,24 @@
+package hello.springmvc.user;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+//  UserStore를 WAL + 스냅샷으로 디스크에 저장 (외부 DB 없이 재시작해도 사용자가 남는다)
+@Configuration
+@ConditionalOnProperty(name = "hello.user.store.persistence.enabled", havingValue = "true")
+public class UserPersistenceConfig {
+
+    @Bean(destroyMethod = "close")
+    public UserPersistence userPersistence(UserStore userStore,
+                                           @Value("${hello.user.store.directory:data/users}") String directory,
+                                           @Value("${hello.user.store.wal.segment-bytes:67108864}") int segmentBytes,
+                                           @Value("${hello.user.store.wal.group-commit-micros:1000}") long groupCommitMicros,
+                                           @Value("${hello.user.store.snapshot-interval-seconds:300}") long snapshotIntervalSeconds) throws IOException {
+        return new UserPersistence(userStore, Paths.get(directory), segmentBytes, groupCommitMicros, snapshotIntervalSeconds);
+    }
+}
@@ -0,0 +1,402 @@
+package hello.springmvc.user;
+
+import hello.springmvc.web.metrics.MetricsSource;
+import hello.springmvc.web.metrics.PrometheusWriter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+//  메모리 사용자 저장소 (MappingClassController)
+//
+//  읽기는 락이 없고, 쓰기는 id로 고른 구역(stripe) 락 하나만 잡는다.
+//  사용자마다 버전 체인(최신 -> 이전)을 들고 있어서 페이지 조회는 첫 페이지를 요청한 시점(스냅샷)의 값을 끝까지 본다.
+//  - 쓰기 : stripe 락 안에서 버전 번호를 받고 체인 앞에 새 버전을 붙인 다음 commit(v)
+//  - commit : 버전 번호 순서대로 committed를 올린다. committed 이하의 버전은 모두 체인에 붙어 있다는 뜻
+//  - 스냅샷 S = committed, S 이하의 가장 최신 버전을 읽는다.
+//  이전 버전은 retention 동안만 남기고 쓰기할 때 잘라낸다. 그보다 오래된 cursor는 410(SnapshotExpiredException)
+//  UserPersistence가 켜져 있으면 쓰기는 WAL(ChangeLog)에 먼저 기록하고 체인에 붙이며, 기록이 디스크에 내려간 다음에 돌아온다.
+//  WAL에 기록하지 못한 쓰기는 메모리에도 남지 않는다. (그래서 다음 스냅샷에도 들어가지 않는다)
+@Component
+public class UserStore implements MetricsSource {
+
+    private static final int STRIPES = 64;
+    private static final CompletableFuture<Void> DONE = CompletableFuture.completedFuture(null);
+
+    private final ConcurrentSkipListMap<Long, Chain> users = new ConcurrentSkipListMap<>();
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+    private final AtomicLong ids = new AtomicLong();
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicLong committed = new AtomicLong();
+    private final Queue<Tombstone> tombstones = new ConcurrentLinkedQueue<>();
+    private final long retentionNanos;
+
+    private volatile ChangeLog changeLog;
+
+    private final LongAdder size = new LongAdder();
+    private final LongAdder reads = new LongAdder();
+    private final LongAdder writes = new LongAdder();
+
+    public UserStore(@Value("${hello.user.store.snapshot-retention-seconds:60}") long retentionSeconds) {
+        this.retentionNanos = TimeUnit.SECONDS.toNanos(retentionSeconds);
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    public User find(long id) {
+        reads.increment();
+        Chain chain = users.get(id);
+        return chain == null ? null : chain.head.user;
+    }
+
+    public User create(String username, int age) {
+        long id = ids.incrementAndGet();
+        User user = new User(id, username, age);
+        CompletableFuture<?> durable = write(id, user);
+        sweepTombstones();
+        durable.join();
+        return user;
+    }
+
+    public User update(long id, String username, Integer age) {
+        ReentrantLock lock = lock(id);
+        User user;
+        CompletableFuture<?> durable;
+        lock.lock();
+        try {
+            User current = find(id);
+            if (current == null) {
+                return null;
+            }
+            user = new User(id, username == null ? current.getUsername() : username,
+                    age == null ? current.getAge() : age);
+            durable = write(id, user);
+        } finally {
+            lock.unlock();
+        }
+        sweepTombstones();
+        durable.join();
+        return user;
+    }
+
+    public boolean delete(long id) {
+        ReentrantLock lock = lock(id);
+        CompletableFuture<?> durable;
+        lock.lock();
+        try {
+            if (find(id) == null) {
+                return false;
+            }
+            durable = write(id, null);
+        } finally {
+            lock.unlock();
+        }
+        sweepTombstones();
+        durable.join();
+        return true;
+    }
+
+//    시작할 때 UserPersistence가 스냅샷과 WAL을 읽으면서 부른다. (요청을 받기 전, 한 스레드에서만)
+//    같은 id는 version이 더 큰 것이 이긴다. 그래서 기록 순서가 version 순서와 달라도 결과는 같다.
+    public void restore(long id, long version, User user) {
+        Chain chain = users.get(id);
+        if (chain != null && chain.head.version >= version) {
+            return;
+        }
+        boolean existed = chain != null && chain.head.user != null;
+        users.put(id, new Chain(new Version(version, System.nanoTime(), user, null)));
+        if (existed && user == null) {
+            size.decrement();
+        } else if (!existed && user != null) {
+            size.increment();
+        }
+        if (user == null) {
+            tombstones.add(new Tombstone(id, System.nanoTime()));
+        }
+        ids.accumulateAndGet(id, Math::max);
+        clock.accumulateAndGet(version, Math::max);
+        committed.set(clock.get());
+    }
+
+//    id마다 가장 최신 버전(삭제된 것 포함)을 넘긴다. 스냅샷 파일을 만들 때 쓴다.
+//    돌고 있는 동안 쓰기가 있어도 되고, 그 경우 id마다 넘긴 버전이 다를 수 있지만 version을 같이 넘기기 때문에 복구할 때 맞춰진다.
+    public void forEachLatest(VersionedUserConsumer consumer) throws IOException {
+        for (Map.Entry<Long, Chain> entry : users.entrySet()) {
+            Version head = entry.getValue().head;
+            consumer.accept(entry.getKey(), head.version, head.user);
+        }
+    }
+
+//    쓰기가 끝나면 changeLog에 기록하고, 기록이 디스크에 내려간 다음에 create/update/delete가 돌아온다.
+    public void setChangeLog(ChangeLog changeLog) {
+        this.changeLog = changeLog;
+    }
+
+    public long getVersion() {
+        return committed.get();
+    }
+
+//    지금까지 나눠준 가장 큰 id (지워져서 맵에 없는 id 포함)
+    public long getLastId() {
+        return ids.get();
+    }
+
+//    시작할 때 스냅샷 헤더로 부른다. 마지막 id의 사용자가 지워지고 맵에서도 빠졌으면 restore()만으로는 알 수 없기 때문
+//    (모르면 id를 다시 쓰게 되고 version이 예전 WAL 기록보다 작아진다)
+    public void restoreCounters(long lastId, long version) {
+        ids.accumulateAndGet(lastId, Math::max);
+        clock.accumulateAndGet(version, Math::max);
+        committed.set(clock.get());
+    }
+
+//    cursor가 null이면 지금 시점의 스냅샷으로 첫 페이지를 준다.
+    public UserPage page(String cursor, int pageSize) {
+        Cursor from = cursor == null ? new Cursor(committed.get(), System.nanoTime(), 0) : Cursor.parse(cursor);
+        long age = System.nanoTime() - from.createdAt;
+        if (from.snapshot > committed.get()) {
+            throw new IllegalArgumentException("invalid cursor: " + cursor);
+        }
+        if (age > retentionNanos) {
+            throw new SnapshotExpiredException(TimeUnit.NANOSECONDS.toMillis(age));
+        }
+        List<User> page = new ArrayList<>(pageSize);
+        long lastId = from.afterId;
+        for (Map.Entry<Long, Chain> entry : users.tailMap(from.afterId, false).entrySet()) {
+            User user = entry.getValue().at(from.snapshot);
+            if (user != null) {
+                page.add(user);
+                lastId = entry.getKey();
+                if (page.size() == pageSize) {
+                    break;
+                }
+            }
+        }
+        reads.add(page.size());
+        String next = page.size() < pageSize ? null : new Cursor(from.snapshot, from.createdAt, lastId).toString();
+        return new UserPage(page, next);
+    }
+
+    public long size() {
+        return size.sum();
+    }
+
+    @Override
+    public void collect(PrometheusWriter writer) {
+        writer.gauge("hello_user_store_users", "Users currently stored", size.sum())
+                .counter("hello_user_store_reads_total", "Users read (lookups and page entries)", reads.sum())
+                .counter("hello_user_store_writes_total", "Creates, updates and deletes", writes.sum());
+    }
+
+//    user == null 이면 삭제(tombstone)
+//    changeLog에 먼저 기록하고 체인에 붙인다. 기록하지 못하면 아무것도 바꾸지 않고 예외를 던진다. (받은 버전은 빈 번호로 commit)
+//    기록은 stripe 락 안에서 해서 같은 id의 기록 순서가 version 순서와 같게 한다. (디스크에 내려가길 기다리는 것은 락 밖에서)
+//    디스크에 내려가지 못하면(future 실패) rollback으로 그 버전을 체인에서 뺀 다음에 호출한 쪽의 join()이 실패한다.
+    private CompletableFuture<?> write(long id, User user) {
+        ChangeLog log = changeLog;
+        byte[] record = log == null ? null : log.encode(id, user);
+        ReentrantLock lock = lock(id);
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            long version = clock.incrementAndGet();
+            CompletableFuture<?> durable;
+            try {
+                durable = log == null ? DONE : log.append(record, version);
+            } catch (RuntimeException e) {
+                commit(version);
+                throw e;
+            }
+            Chain chain = users.get(id);
+            if (chain == null) {
+                users.put(id, new Chain(new Version(version, now, user, null)));
+            } else {
+                chain.head = new Version(version, now, user, chain.head);
+                chain.prune(now - retentionNanos * 2);
+            }
+            commit(version);
+            writes.increment();
+            if (user == null) {
+                size.decrement();
+                tombstones.add(new Tombstone(id, now));
+            } else if (chain == null) {
+                size.increment();
+            }
+            return durable == DONE ? DONE : durable.whenComplete((ignored, e) -> {
+                if (e != null) {
+                    rollback(id, version);
+                }
+            });
+        } finally {
+            lock.unlock();
+        }
+    }
+
+//    디스크에 내려가지 못한 버전을 체인에서 뺀다. 같은 묶음의 뒤 버전이 먼저 붙어 있을 수 있어서 체인 중간에서도 뺀다.
+//    (그 사이에 이 버전을 읽은 페이지 조회가 있을 수 있다)
+    private void rollback(long id, long version) {
+        ReentrantLock lock = lock(id);
+        lock.lock();
+        try {
+            Chain chain = users.get(id);
+            if (chain == null) {
+                return;
+            }
+            boolean existed = chain.head.user != null;
+            if (chain.head.version == version) {
+                if (chain.head.prev == null) {
+                    users.remove(id, chain);
+                } else {
+                    chain.head = chain.head.prev;
+                }
+            } else {
+                for (Version newer = chain.head; newer.prev != null; newer = newer.prev) {
+                    if (newer.prev.version == version) {
+                        newer.prev = newer.prev.prev;
+                        break;
+                    }
+                }
+            }
+            boolean exists = users.get(id) == chain && chain.head.user != null;
+            if (existed && !exists) {
+                size.decrement();
+            } else if (!existed && exists) {
+                size.increment();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+//    앞 번호의 쓰기가 아직 commit 하지 않았으면 잠깐 기다린다. (다른 stripe 락을 잡지 않으므로 서로 기다리는 일은 없다)
+    private void commit(long version) {
+        while (!committed.compareAndSet(version - 1, version)) {
+            Thread.yield();
+        }
+    }
+
+//    삭제된 지 retention * 2 가 지난 사용자는 맵에서 뺀다.
+//    다른 stripe 락을 잡으므로 자기 stripe 락을 놓은 다음에 부른다.
+    private void sweepTombstones() {
+        long horizon = System.nanoTime() - retentionNanos * 2;
+        Tombstone tombstone;
+        while ((tombstone = tombstones.peek()) != null && tombstone.deletedAt - horizon < 0) {
+            if (!tombstones.remove(tombstone)) {
+                continue;
+            }
+            ReentrantLock lock = lock(tombstone.id);
+            lock.lock();
+            try {
+                Chain chain = users.get(tombstone.id);
+                if (chain != null && chain.head.user == null && chain.head.committedAt - horizon < 0) {
+                    users.remove(tombstone.id, chain);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private ReentrantLock lock(long id) {
+        return locks[(int) (id & (STRIPES - 1))];
+    }
+
+    public interface ChangeLog {
+//        버전을 받기 전에 부른다. 기록할 수 없는 값이면 여기서 예외를 던진다.
+        byte[] encode(long id, User user);
+
+//        실패하면 예외를 던지고 아무것도 남기지 않는다. 돌려준 future는 디스크에 내려가면 끝난다.
+        CompletableFuture<?> append(byte[] record, long version);
+    }
+
+    public interface VersionedUserConsumer {
+        void accept(long id, long version, User user) throws IOException;
+    }
+
+    private static final class Chain {
+        private volatile Version head;
+
+        Chain(Version head) {
+            this.head = head;
+        }
+
+        User at(long snapshot) {
+            Version version = head;
+            while (version != null && version.version > snapshot) {
+                version = version.prev;
+            }
+            return version == null ? null : version.user;
+        }
+
+//        horizon 이전에 commit된 버전 중 가장 최신 것 하나만 남기고 그 뒤는 버린다.
+        void prune(long horizon) {
+            for (Version version = head; version != null; version = version.prev) {
+                if (version.committedAt - horizon < 0) {
+                    version.prev = null;
+                    return;
+                }
+            }
+        }
+    }
+
+    private static final class Version {
+        private final long version;
+        private final long committedAt;
+        private final User user;
+        private volatile Version prev;
+
+        Version(long version, long committedAt, User user, Version prev) {
+            this.version = version;
+            this.committedAt = committedAt;
+            this.user = user;
+            this.prev = prev;
+        }
+    }
+
+    private static final class Tombstone {
+        private final long id;
+        private final long deletedAt;
+
+        Tombstone(long id, long deletedAt) {
+            this.id = id;
+            this.deletedAt = deletedAt;
+        }
+    }
+
+//    "스냅샷.생성시각.마지막id" (생성시각은 System.nanoTime 이라 같은 프로세스 안에서만 의미가 있다)
+    private static final class Cursor {
+        private final long snapshot;
+        private final long createdAt;
+        private final long afterId;
+
+        Cursor(long snapshot, long createdAt, long afterId) {
+            this.snapshot = snapshot;
+            this.createdAt = createdAt;
+            this.afterId = afterId;
+        }
+
+        static Cursor parse(String cursor) {
+            String[] parts = cursor.split("\\.");
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("invalid cursor: " + cursor);
+            }
+            return new Cursor(Long.parseLong(parts[0]), Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+        }
+
+        @Override
+        public String toString() {
+            return snapshot + "." + createdAt + "." + afterId;
+        }
+    }
+}
@@ -0,0 +1,306 @@
+package hello.springmvc.user;
+
+import hello.springmvc.web.metrics.MetricsSource;
+import hello.springmvc.web.metrics.PrometheusWriter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+//  UserStore 변경 기록(WAL). wal-00000000000000000001.log 처럼 크기가 정해진 세그먼트 파일을 메모리 매핑해서 뒤에 이어 쓴다.
+//
+//  그룹 커밋
+//  - encode()로 기록을 먼저 만들고, append()는 매핑된 버퍼에 복사만 하고(락 안, memcpy) 지금 묶음(batch)의 future를 돌려준다.
+//  - flusher 스레드가 groupCommitMicros 만큼 기다려서 그동안 들어온 기록을 한 묶음으로 force()(fsync) 한번에 내리고 future를 끝낸다.
+//  - 요청 스레드는 future.join()으로 자기 기록이 디스크에 내려갈 때까지 기다린다.
+//  동시에 쓰는 요청이 많을수록 fsync 한번에 여러 기록이 같이 내려간다.
+//
+//  기록 형식 : [int 길이][int CRC32][long version][long id][byte op][int age][short 이름 길이(-1이면 null)][이름 UTF-8]
+//  길이가 0이면 그 세그먼트는 거기서 끝(다음 세그먼트로), CRC가 맞지 않으면 쓰다가 죽은 기록이므로 거기서 읽기를 멈춘다.
+@Slf4j
+public class UserWriteAheadLog implements UserStore.ChangeLog, MetricsSource, AutoCloseable {
+
+    static final byte PUT = 1;
+    static final byte DELETE = 2;
+    private static final int HEADER = 8;
+    private static final String PREFIX = "wal-";
+    private static final String SUFFIX = ".log";
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final long groupCommitNanos;
+
+    private final Object lock = new Object();
+    private final CRC32 crc = new CRC32();
+    private long segment;
+    private long lastVersion;
+    private MappedByteBuffer active;
+    private final List<MappedByteBuffer> dirty = new ArrayList<>();
+    private CompletableFuture<Void> batch = new CompletableFuture<>();
+    private boolean pending;
+    private RuntimeException failure;
+    private volatile boolean running = true;
+    private final Thread flusher;
+
+    private final LongAdder records = new LongAdder();
+    private final LongAdder syncs = new LongAdder();
+
+//    directory의 마지막 세그먼트 다음 번호로 새 세그먼트를 열어서 쓴다. (복구는 replay()로 먼저 끝내둔다)
+    public UserWriteAheadLog(Path directory, int segmentBytes, long groupCommitMicros) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.segmentBytes = segmentBytes;
+        this.groupCommitNanos = TimeUnit.MICROSECONDS.toNanos(groupCommitMicros);
+        List<Long> segments = segments(directory);
+        openSegment(segments.isEmpty() ? 1 : segments.get(segments.size() - 1) + 1);
+        this.flusher = new Thread(this::flushLoop, "user-wal-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+//    기록할 바이트를 미리 만든다. UserStore가 버전을 받기 전에 불러서 기록할 수 없는 값이면 여기서 실패하게 한다.
+//    앞 8바이트(version)는 비워두고 append()에서 채운다.
+    @Override
+    public byte[] encode(long id, User user) {
+        byte[] name = user == null || user.getUsername() == null ? null : user.getUsername().getBytes(StandardCharsets.UTF_8);
+        if (name != null && name.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("username is too long");
+        }
+        ByteBuffer record = ByteBuffer.allocate(8 + 8 + 1 + 4 + 2 + (name == null ? 0 : name.length));
+        record.putLong(0).putLong(id).put(user == null ? DELETE : PUT).putInt(user == null ? 0 : user.getAge());
+        if (name == null) {
+            record.putShort((short) -1);
+        } else {
+            record.putShort((short) name.length).put(name);
+        }
+        return record.array();
+    }
+
+//    버퍼에 복사하지 못하면(새 세그먼트를 열지 못함, 이전 fsync 실패) 예외를 던진다. 이때 기록은 남지 않는다.
+//    돌려준 future가 실패하면(fsync 실패) 그 뒤로는 모든 append가 실패한다. 디스크에 내려갔는지 알 수 없기 때문
+    @Override
+    public CompletableFuture<?> append(byte[] record, long version) {
+        ByteBuffer.wrap(record).putLong(0, version);
+        synchronized (lock) {
+            if (failure != null) {
+                throw new IllegalStateException("user wal is unavailable after a failed force()", failure);
+            }
+            if (active.remaining() < HEADER + record.length) {
+                try {
+                    openSegment(segment + 1);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            crc.reset();
+            crc.update(record, 0, record.length);
+            active.putInt(record.length).putInt((int) crc.getValue()).put(record);
+            lastVersion = Math.max(lastVersion, version);
+            records.increment();
+            if (!pending) {
+                pending = true;
+                lock.notifyAll();
+            }
+            return batch;
+        }
+    }
+
+//    지금 세그먼트를 닫고 새 세그먼트를 연다. 돌려준 번호보다 작은 세그먼트에는 더 이상 기록이 추가되지 않는다.
+//    그 세그먼트들에 들어간 가장 큰 version도 같이 돌려준다. 기록은 체인에 붙기 전에 쓰므로 UserStore가 그 version까지
+//    commit한 다음에 읽어야 이전 세그먼트의 기록이 모두 보인다.
+    public Rolled roll() throws IOException {
+        synchronized (lock) {
+            openSegment(segment + 1);
+            return new Rolled(segment, lastVersion);
+        }
+    }
+
+//    before 보다 번호가 작은 세그먼트를 지운다. (스냅샷에 다 들어간 뒤에)
+    public void deleteSegmentsBefore(long before) throws IOException {
+        for (long seq : segments(directory)) {
+            if (seq < before) {
+                Files.deleteIfExists(segmentPath(directory, seq));
+            }
+        }
+    }
+
+//    from 번호부터 모든 세그먼트의 기록을 순서대로 consumer에 넘긴다. 읽은 기록 수를 돌려준다.
+    public static long replay(Path directory, long from, UserStore.VersionedUserConsumer consumer) throws IOException {
+        long count = 0;
+        for (long seq : segments(directory)) {
+            if (seq < from) {
+                continue;
+            }
+            try (FileChannel channel = FileChannel.open(segmentPath(directory, seq), StandardOpenOption.READ)) {
+                ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                CRC32 crc = new CRC32();
+                while (buffer.remaining() >= HEADER) {
+                    int length = buffer.getInt();
+                    int checksum = buffer.getInt();
+                    if (length <= 0 || length > buffer.remaining()) {
+                        break;
+                    }
+                    ByteBuffer payload = buffer.slice();
+                    payload.limit(length);
+                    crc.reset();
+                    crc.update(payload.duplicate());
+                    if ((int) crc.getValue() != checksum) {
+                        log.warn("wal segment {} has a torn record at {}, ignoring the rest", seq, buffer.position() - HEADER);
+                        break;
+                    }
+                    long version = payload.getLong();
+                    long id = payload.getLong();
+                    byte op = payload.get();
+                    int age = payload.getInt();
+                    short nameLength = payload.getShort();
+                    String name = null;
+                    if (nameLength >= 0) {
+                        byte[] bytes = new byte[nameLength];
+                        payload.get(bytes);
+                        name = new String(bytes, StandardCharsets.UTF_8);
+                    }
+                    consumer.accept(id, version, op == DELETE ? null : new User(id, name, age));
+                    buffer.position(buffer.position() + length);
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public void collect(PrometheusWriter writer) {
+        writer.counter("hello_user_wal_records_total", "Records appended to the user write-ahead log", records.sum())
+                .counter("hello_user_wal_syncs_total", "force() calls (one per group commit)", syncs.sum());
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        synchronized (lock) {
+            lock.notifyAll();
+        }
+        flusher.join();
+    }
+
+    private void flushLoop() {
+        while (true) {
+            synchronized (lock) {
+                while (!pending && running) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+                if (!pending && !running) {
+                    return;
+                }
+            }
+            if (groupCommitNanos > 0) {
+                LockSupport.parkNanos(groupCommitNanos);
+            }
+            CompletableFuture<Void> done;
+            List<MappedByteBuffer> toForce;
+            synchronized (lock) {
+                done = batch;
+                batch = new CompletableFuture<>();
+                toForce = new ArrayList<>(dirty);
+                dirty.clear();
+                dirty.add(active);
+                pending = false;
+            }
+            try {
+                for (MappedByteBuffer buffer : toForce) {
+                    buffer.force();
+                }
+                syncs.increment();
+                done.complete(null);
+            } catch (RuntimeException e) {
+                log.error("wal force failed", e);
+                synchronized (lock) {
+                    failure = e;
+                }
+                done.completeExceptionally(e);
+            }
+        }
+    }
+
+//    lock 안에서 부른다.
+    private void openSegment(long seq) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentPath(directory, seq),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+            syncDirectory(directory);
+            if (active != null && !dirty.contains(active)) {
+                dirty.add(active);
+            }
+            segment = seq;
+            active = buffer;
+            dirty.add(buffer);
+        }
+    }
+
+//    새로 만든 파일이나 이름을 바꾼 파일이 죽은 뒤에도 디렉터리에 남도록 디렉터리를 fsync 한다.
+//    (윈도우는 디렉터리를 열 수 없어서 건너뛴다)
+    static void syncDirectory(Path directory) throws IOException {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (AccessDeniedException e) {
+            log.debug("cannot fsync directory {}", directory);
+        }
+    }
+
+    private static List<Long> segments(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return new ArrayList<>();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(PREFIX) && name.endsWith(SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length())))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static Path segmentPath(Path directory, long seq) {
+        return directory.resolve(String.format("%s%020d%s", PREFIX, seq, SUFFIX));
+    }
+
+    public static final class Rolled {
+        private final long segment;
+        private final long lastVersion;
+
+        Rolled(long segment, long lastVersion) {
+            this.segment = segment;
+            this.lastVersion = lastVersion;
+        }
+
+        public long getSegment() {
+            return segment;
+        }
+
+//        segment 보다 작은 세그먼트에 기록된 가장 큰 version (기록이 없으면 0)
+        public long getLastVersion() {
+            return lastVersion;
+        }
+    }
+}
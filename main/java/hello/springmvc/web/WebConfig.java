@@ -0,0 +1,52 @@
+package hello.springmvc.web;
+
+import hello.springmvc.web.bind.FastModelAttributeArgumentResolver;
+import hello.springmvc.web.bind.RawRequestParamsArgumentResolver;
+import hello.springmvc.web.cache.CachedResponseInterceptor;
+import hello.springmvc.web.coalesce.CoalescingInterceptor;
+import hello.springmvc.web.http.LazyHeadersArgumentResolver;
+import hello.springmvc.web.io.PooledStringHttpMessageConverter;
+import hello.springmvc.web.io.RequestBodyReader;
+import hello.springmvc.web.metrics.EndpointMetricsInterceptor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+@Configuration
+@RequiredArgsConstructor
+public class WebConfig implements WebMvcConfigurer {
+
+    private final FastModelAttributeArgumentResolver fastModelAttributeArgumentResolver;
+    private final LazyHeadersArgumentResolver lazyHeadersArgumentResolver;
+    private final RawRequestParamsArgumentResolver rawRequestParamsArgumentResolver;
+    private final EndpointMetricsInterceptor endpointMetricsInterceptor;
+    private final CachedResponseInterceptor cachedResponseInterceptor;
+    private final CoalescingInterceptor coalescingInterceptor;
+
+//    스프링 부트의 기본 StringHttpMessageConverter를 대신한다. (같은 타입의 빈이 있으면 부트는 자기 것을 만들지 않는다)
+    @Bean
+    public PooledStringHttpMessageConverter pooledStringHttpMessageConverter(RequestBodyReader requestBodyReader) {
+        return new PooledStringHttpMessageConverter(requestBodyReader);
+    }
+
+    @Override
+    public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+        resolvers.add(fastModelAttributeArgumentResolver);
+        resolvers.add(lazyHeadersArgumentResolver);
+        resolvers.add(rawRequestParamsArgumentResolver);
+    }
+
+//    RoutingConfig의 IndexedRequestMappingHandlerMapping도 부트가 만들기 때문에 이 인터셉터가 같이 붙는다.
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(endpointMetricsInterceptor).order(Ordered.HIGHEST_PRECEDENCE);
+        registry.addInterceptor(cachedResponseInterceptor);
+        registry.addInterceptor(coalescingInterceptor);
+    }
+}
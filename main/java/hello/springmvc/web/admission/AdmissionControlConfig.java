@@ -0,0 +1,43 @@
+package hello.springmvc.web.admission;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+//  요청 수용 제어(속도 제한 + 동시 처리 한도) 설정
+@Configuration
+@ConditionalOnProperty(name = "hello.admission.enabled", havingValue = "true")
+public class AdmissionControlConfig {
+
+    @Bean
+    public AdmissionControlFilter admissionControlFilter(@Value("${hello.admission.client-header:}") String clientHeader,
+                                                         @Value("${hello.admission.rate-per-second:1000}") double ratePerSecond,
+                                                         @Value("${hello.admission.burst:2000}") int burst,
+                                                         @Value("${hello.admission.client-idle-seconds:60}") long clientIdleSeconds,
+                                                         @Value("${hello.admission.max-clients:100000}") int maxClients,
+                                                         @Value("${hello.admission.initial-limit:64}") int initialLimit,
+                                                         @Value("${hello.admission.min-limit:8}") int minLimit,
+                                                         @Value("${hello.admission.max-limit:512}") int maxLimit,
+                                                         @Value("${hello.admission.latency-target-millis:250}") long latencyTargetMillis,
+                                                         @Value("${hello.admission.exclude-paths:/metrics}") String[] excludePaths,
+                                                         @Value("${hello.admission.latency-exclude-paths:/request-body-json-batch,/mapping/orders/bulk,/request-body-string-async}") String[] latencyExcludePaths) {
+        ClientRateLimiter rateLimiter = new ClientRateLimiter(ratePerSecond, burst, TimeUnit.SECONDS.toNanos(clientIdleSeconds), maxClients);
+        ConcurrencyLimit concurrencyLimit = new ConcurrencyLimit(initialLimit, minLimit, maxLimit, TimeUnit.MILLISECONDS.toNanos(latencyTargetMillis));
+        return new AdmissionControlFilter(rateLimiter, concurrencyLimit, clientHeader,
+                Arrays.asList(excludePaths), Arrays.asList(latencyExcludePaths));
+    }
+
+//    CompressionFilter(HIGHEST_PRECEDENCE + 10)를 포함한 모든 필터보다 앞
+    @Bean
+    public FilterRegistrationBean<AdmissionControlFilter> admissionControlFilterRegistration(AdmissionControlFilter admissionControlFilter) {
+        FilterRegistrationBean<AdmissionControlFilter> registration = new FilterRegistrationBean<>(admissionControlFilter);
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+}
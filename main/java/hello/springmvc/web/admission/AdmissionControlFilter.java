@@ -0,0 +1,172 @@
+package hello.springmvc.web.admission;
+
+import hello.springmvc.web.metrics.MetricsSource;
+import hello.springmvc.web.metrics.PrometheusWriter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+//  요청을 받을지 가장 먼저 정한다. (다른 필터, 바디 읽기, DispatcherServlet 보다 앞)
+//  1. 클라이언트별 속도 제한(ClientRateLimiter)을 넘으면 429 + Retry-After
+//  2. 동시 처리 한도(ConcurrencyLimit)가 다 찼으면 503 + Retry-After
+//  과부하일 때 모든 요청이 같이 느려지는 대신 일부를 바로 거절해서 받은 요청의 응답 시간을 지킨다.
+//  거절 응답은 /error 로 보내지 않고(sendError x) 여기서 짧게 쓰고 끝낸다.
+//
+//  클라이언트는 clientHeader(ex: X-Client-Id) 값, 없으면 IP로 구분한다. (헤더는 앞단 프록시가 넣어주는 경우에만 설정한다)
+//  비동기 요청은 AsyncListener로 요청이 완전히 끝났을 때 한도를 돌려준다.
+//  동시 처리 한도를 줄이는 응답 시간에는 요청 스레드에서 끝난 요청만 넣는다.
+//  비동기 요청과 unsampledPaths(NDJSON 업로드, 스트리밍 응답처럼 클라이언트 속도에 따라 오래 걸리는 경로)는 자리만 차지하고 응답 시간은 보지 않는다.
+public class AdmissionControlFilter extends OncePerRequestFilter implements MetricsSource {
+
+    private static final int MAX_CLIENT_KEY_LENGTH = 64;
+
+    private final ClientRateLimiter rateLimiter;
+    private final ConcurrencyLimit concurrencyLimit;
+    private final String clientHeader;
+    private final List<String> excludePaths;
+    private final List<String> unsampledPaths;
+
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder rateLimited = new LongAdder();
+    private final LongAdder overloaded = new LongAdder();
+
+    public AdmissionControlFilter(ClientRateLimiter rateLimiter, ConcurrencyLimit concurrencyLimit,
+                                  String clientHeader, List<String> excludePaths, List<String> unsampledPaths) {
+        this.rateLimiter = rateLimiter;
+        this.concurrencyLimit = concurrencyLimit;
+        this.clientHeader = StringUtils.hasText(clientHeader) ? clientHeader : null;
+        this.excludePaths = excludePaths;
+        this.unsampledPaths = unsampledPaths;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return matches(request, excludePaths);
+    }
+
+    private static boolean matches(HttpServletRequest request, List<String> paths) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (String prefix : paths) {
+            if (path.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long wait = rateLimiter.tryAcquire(clientKey(request));
+        if (wait > 0) {
+            rateLimited.increment();
+            reject(response, HttpStatus.TOO_MANY_REQUESTS, TimeUnit.NANOSECONDS.toSeconds(wait) + 1);
+            return;
+        }
+        if (!concurrencyLimit.tryAcquire()) {
+            overloaded.increment();
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, 1);
+            return;
+        }
+        admitted.increment();
+        Release release = new Release(System.nanoTime(), !matches(request, unsampledPaths));
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                release.sampled = false;
+                request.getAsyncContext().addListener(release);
+            } else {
+                release.run();
+            }
+        }
+    }
+
+    private String clientKey(HttpServletRequest request) {
+        if (clientHeader != null) {
+            String value = request.getHeader(clientHeader);
+            if (StringUtils.hasText(value)) {
+                return value.length() > MAX_CLIENT_KEY_LENGTH ? value.substring(0, MAX_CLIENT_KEY_LENGTH) : value;
+            }
+        }
+        return request.getRemoteAddr();
+    }
+
+    private static void reject(HttpServletResponse response, HttpStatus status, long retryAfterSeconds) throws IOException {
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        response.setContentType("text/plain;charset=utf-8");
+        response.getWriter().write(status.getReasonPhrase());
+    }
+
+    @Override
+    public void collect(PrometheusWriter writer) {
+        writer.counter("hello_admission_admitted_total", "Requests admitted by the admission filter", admitted.sum())
+                .family("hello_admission_rejected_total", "counter", "Requests rejected before processing")
+                .sample("hello_admission_rejected_total", PrometheusWriter.labels("reason", "rate_limited"), rateLimited.sum())
+                .sample("hello_admission_rejected_total", PrometheusWriter.labels("reason", "overloaded"), overloaded.sum())
+                .gauge("hello_admission_concurrency_limit", "Current adaptive concurrency limit", concurrencyLimit.getLimit())
+                .gauge("hello_admission_in_flight", "Requests currently being processed", concurrencyLimit.getInFlight())
+                .counter("hello_admission_limit_decreases_total", "Times the concurrency limit was lowered for slow responses",
+                        concurrencyLimit.getDecreases())
+                .gauge("hello_admission_clients", "Clients with a tracked rate limit bucket", rateLimiter.getClients());
+    }
+
+//    complete, error, timeout 이 같이 올 수 있어서 한번만 돌려준다.
+    private class Release implements AsyncListener, Runnable {
+
+        private final long start;
+        private final AtomicBoolean released = new AtomicBoolean();
+        private volatile boolean sampled;
+
+        Release(long start, boolean sampled) {
+            this.start = start;
+            this.sampled = sampled;
+        }
+
+        @Override
+        public void run() {
+            if (!released.compareAndSet(false, true)) {
+                return;
+            }
+            if (sampled) {
+                concurrencyLimit.release(System.nanoTime() - start);
+            } else {
+                concurrencyLimit.release();
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            run();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            run();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            run();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package hello.springmvc.web.admission;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+//  클라이언트별 요청 속도 제한 (GCRA : 토큰 버킷과 같은 결과를 값 하나로 계산하는 방식)
+//  클라이언트마다 "다음 요청이 도착해야 할 이론상 시각(TAT)" 하나만 AtomicLong으로 가지고 CAS로 갱신한다. (락 없음)
+//  - 요청 하나마다 TAT를 interval(1초 / ratePerSecond) 만큼 뒤로 민다.
+//  - 민 TAT가 지금보다 burst * interval 이상 앞서면 거절한다. (버킷이 비었다)
+//  TAT가 지금보다 idle 이상 지난 클라이언트는 버킷이 가득 찬 것과 같으므로 지워도 결과가 같다. (가끔 한번씩 훑어서 지운다)
+//  maxClients 보다 많아지면 새 클라이언트들은 하나의 버킷을 같이 쓴다.
+public class ClientRateLimiter {
+
+    static final String OVERFLOW = "";
+
+    private final ConcurrentMap<String, AtomicLong> clients = new ConcurrentHashMap<>();
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final long idleNanos;
+    private final int maxClients;
+    private final AtomicLong nextSweep;
+
+    public ClientRateLimiter(double ratePerSecond, int burst, long idleNanos, int maxClients) {
+        this.intervalNanos = (long) (1_000_000_000L / ratePerSecond);
+        this.burstNanos = intervalNanos * Math.max(1, burst);
+        this.idleNanos = idleNanos;
+        this.maxClients = maxClients;
+        this.nextSweep = new AtomicLong(System.nanoTime() + idleNanos);
+    }
+
+//    받으면 0, 거절이면 다음 요청을 받을 수 있을 때까지 남은 나노초
+    public long tryAcquire(String client) {
+        long now = System.nanoTime();
+        sweepIfDue(now);
+        AtomicLong tat = clients.get(client);
+        if (tat == null) {
+            tat = clients.computeIfAbsent(clients.size() < maxClients ? client : OVERFLOW, key -> new AtomicLong(now));
+        }
+        while (true) {
+            long current = tat.get();
+            long next = (current - now < 0 ? now : current) + intervalNanos;
+            long wait = next - now - burstNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (tat.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    public int getClients() {
+        return clients.size();
+    }
+
+//    지우는 순간 다른 스레드가 같은 버킷을 갱신하면 그 요청 하나가 빠질 뿐이다.
+    private void sweepIfDue(long now) {
+        long due = nextSweep.get();
+        if (now - due < 0 || !nextSweep.compareAndSet(due, now + idleNanos)) {
+            return;
+        }
+        clients.values().removeIf(tat -> now - tat.get() > idleNanos);
+    }
+}
@@ -0,0 +1,78 @@
+package hello.springmvc.web.admission;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+//  동시에 처리하는 요청 수 제한. 한도는 응답 시간을 보고 스스로 조절한다. (AIMD)
+//  - 응답 시간이 target 보다 길면 한도를 BACKOFF 배로 줄인다. (target 동안 한번만)
+//  - target 안에 끝나고 한도의 절반 이상을 쓰고 있으면 한도만큼 성공할 때마다 1씩 늘린다.
+//  한도가 다 차면 tryAcquire()가 false. 전부 Atomic 변수라 락이 없다.
+//  응답 시간이 클라이언트 속도에 달린 요청은 release()로 응답 시간 없이 돌려준다. (느린 클라이언트 때문에 한도가 줄지 않게)
+public class ConcurrencyLimit {
+
+    private static final double BACKOFF = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long targetNanos;
+
+    private final AtomicInteger limit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger successes = new AtomicInteger();
+    private final AtomicLong lastDecrease = new AtomicLong(System.nanoTime());
+    private final LongAdder decreases = new LongAdder();
+
+    public ConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, long targetNanos) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.targetNanos = targetNanos;
+        this.limit = new AtomicInteger(Math.max(minLimit, Math.min(maxLimit, initialLimit)));
+    }
+
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit.get()) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+//    응답 시간을 보지 않고 자리만 돌려준다. (스트리밍, 업로드처럼 오래 걸리는 것이 정상인 요청)
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    public void release(long elapsedNanos) {
+        int used = inFlight.getAndDecrement();
+        int current = limit.get();
+        if (elapsedNanos > targetNanos) {
+            long now = System.nanoTime();
+            long last = lastDecrease.get();
+            if (now - last >= targetNanos && lastDecrease.compareAndSet(last, now)) {
+                limit.updateAndGet(l -> Math.max(minLimit, (int) (l * BACKOFF)));
+                successes.set(0);
+                decreases.increment();
+            }
+        } else if (used * 2 >= current && successes.incrementAndGet() >= current) {
+            successes.set(0);
+            limit.updateAndGet(l -> Math.min(maxLimit, l + 1));
+        }
+    }
+
+    public int getLimit() {
+        return limit.get();
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getDecreases() {
+        return decreases.sum();
+    }
+}
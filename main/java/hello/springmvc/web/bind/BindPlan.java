@@ -0,0 +1,161 @@
+package hello.springmvc.web.bind;
+
+import org.springframework.beans.BeanUtils;
+
+import javax.servlet.http.HttpServletRequest;
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+
+//  DTO 클래스 하나에 대한 바인딩 계획
+//  "요청 파라미터 이름 -> setter MethodHandle" 목록을 클래스마다 한번만 만들어두고,
+//  요청마다 PropertyDescriptor 조회, TypeConverter, BindingResult 생성 없이 setter를 바로 호출한다.
+final class BindPlan {
+
+    private enum Kind {STRING, INT, INTEGER, LONG, LONG_OBJECT, BOOLEAN, BOOLEAN_OBJECT}
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.publicLookup();
+
+    private final MethodHandle constructor;
+    private final Property[] properties;
+
+    private BindPlan(MethodHandle constructor, Property[] properties) {
+        this.constructor = constructor;
+        this.properties = properties;
+    }
+
+//    지원하지 않는 타입이면 null을 반환한다. (-> 표준 바인더 사용)
+    static BindPlan compile(Class<?> type) {
+        if (type.isInterface() || Modifier.isAbstract(type.getModifiers()) || !Modifier.isPublic(type.getModifiers())) {
+            return null;
+        }
+        try {
+            Constructor<?> ctor = type.getConstructor();
+            MethodHandle constructor = LOOKUP.unreflectConstructor(ctor).asType(MethodType.methodType(Object.class));
+
+            List<Property> properties = new ArrayList<>();
+            for (PropertyDescriptor pd : BeanUtils.getPropertyDescriptors(type)) {
+                Method setter = pd.getWriteMethod();
+                if (setter == null) {
+                    continue;
+                }
+                Kind kind = kindOf(pd.getPropertyType());
+                if (kind == null) {
+                    return null;
+                }
+                properties.add(new Property(pd.getName(), kind, setterHandle(setter, kind)));
+            }
+            return new BindPlan(constructor, properties.toArray(new Property[0]));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+    }
+
+//    변환에 실패하면 null을 반환한다. (-> 표준 바인더가 BindException으로 400 응답을 만든다)
+    Object bind(HttpServletRequest request) {
+        try {
+            Object target = constructor.invokeExact();
+            for (Property property : properties) {
+                String value = request.getParameter(property.name);
+                if (value != null && !property.set(target, value)) {
+                    return null;
+                }
+            }
+            return target;
+        } catch (Throwable e) {
+            return null;
+        }
+    }
+
+    private static Kind kindOf(Class<?> type) {
+        if (type == String.class) return Kind.STRING;
+        if (type == int.class) return Kind.INT;
+        if (type == Integer.class) return Kind.INTEGER;
+        if (type == long.class) return Kind.LONG;
+        if (type == Long.class) return Kind.LONG_OBJECT;
+        if (type == boolean.class) return Kind.BOOLEAN;
+        if (type == Boolean.class) return Kind.BOOLEAN_OBJECT;
+        return null;
+    }
+
+    private static MethodHandle setterHandle(Method setter, Kind kind) throws IllegalAccessException {
+        MethodHandle handle = LOOKUP.unreflect(setter);
+        switch (kind) {
+            case INT:
+                return handle.asType(MethodType.methodType(void.class, Object.class, int.class));
+            case LONG:
+                return handle.asType(MethodType.methodType(void.class, Object.class, long.class));
+            case BOOLEAN:
+                return handle.asType(MethodType.methodType(void.class, Object.class, boolean.class));
+            default:
+                return handle.asType(MethodType.methodType(void.class, Object.class, Object.class));
+        }
+    }
+
+    private static final class Property {
+        private final String name;
+        private final Kind kind;
+        private final MethodHandle setter;
+
+        Property(String name, Kind kind, MethodHandle setter) {
+            this.name = name;
+            this.kind = kind;
+            this.setter = setter;
+        }
+
+        boolean set(Object target, String value) throws Throwable {
+            String text = value.trim();
+            switch (kind) {
+                case STRING:
+                    setter.invokeExact(target, (Object) value);
+                    return true;
+                case INT:
+                    if (text.isEmpty()) return false;
+                    setter.invokeExact(target, Integer.parseInt(text));
+                    return true;
+                case LONG:
+                    if (text.isEmpty()) return false;
+                    setter.invokeExact(target, Long.parseLong(text));
+                    return true;
+                case BOOLEAN: {
+                    Boolean b = parseBoolean(text);
+                    if (b == null) return false;
+                    setter.invokeExact(target, b.booleanValue());
+                    return true;
+                }
+                case INTEGER:
+                    setter.invokeExact(target, (Object) (text.isEmpty() ? null : Integer.valueOf(text)));
+                    return true;
+                case LONG_OBJECT:
+                    setter.invokeExact(target, (Object) (text.isEmpty() ? null : Long.valueOf(text)));
+                    return true;
+                case BOOLEAN_OBJECT: {
+                    Boolean b = parseBoolean(text);
+                    if (b == null && !text.isEmpty()) return false;
+                    setter.invokeExact(target, (Object) b);
+                    return true;
+                }
+                default:
+                    return false;
+            }
+        }
+
+//        CustomBooleanEditor와 같은 값들을 허용한다.
+        private static Boolean parseBoolean(String text) {
+            switch (text.toLowerCase()) {
+                case "true": case "on": case "yes": case "1":
+                    return Boolean.TRUE;
+                case "false": case "off": case "no": case "0":
+                    return Boolean.FALSE;
+                default:
+                    return null;
+            }
+        }
+    }
+}
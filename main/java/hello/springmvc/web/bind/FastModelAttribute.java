@@ -0,0 +1,12 @@
+package hello.springmvc.web.bind;
+
+import java.lang.annotation.*;
+
+//  @ModelAttribute 대신 붙이면 FastModelAttributeArgumentResolver가 미리 만들어둔 바인딩 계획(BindPlan)으로 객체를 만든다.
+//  String, int, long, boolean(과 래퍼) 프로퍼티만 있는 단순한 DTO에서만 동작하고,
+//  그 외의 타입이나 변환에 실패하면 원래의 @ModelAttribute 처리(WebDataBinder)로 넘어간다.
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface FastModelAttribute {
+}
@@ -0,0 +1,83 @@
+package hello.springmvc.web.bind;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.MethodParameter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.method.annotation.ModelFactory;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.servlet.mvc.method.annotation.ServletModelAttributeMethodProcessor;
+
+import javax.servlet.http.HttpServletRequest;
+import java.lang.annotation.Annotation;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+//  @FastModelAttribute 파라미터를 처리한다.
+//  애플리케이션이 뜰 때 등록된 핸들러 메서드를 훑어서 @FastModelAttribute가 붙은 DTO 클래스의 BindPlan을 미리 만든다.
+//  BindPlan을 만들 수 없는 타입, @Valid 검증이 필요한 경우, 값 변환에 실패한 경우에는
+//  @ModelAttribute와 똑같이 ServletModelAttributeMethodProcessor(WebDataBinder)로 처리한다.
+@Slf4j
+@Component
+public class FastModelAttributeArgumentResolver implements HandlerMethodArgumentResolver {
+
+    private final ConcurrentMap<Class<?>, Optional<BindPlan>> plans = new ConcurrentHashMap<>();
+    private final ServletModelAttributeMethodProcessor fallback = new ServletModelAttributeMethodProcessor(false);
+
+    @EventListener
+    public void precompile(ContextRefreshedEvent event) {
+        event.getApplicationContext().getBeansOfType(RequestMappingHandlerMapping.class).values().forEach(mapping -> {
+            for (HandlerMethod handlerMethod : mapping.getHandlerMethods().values()) {
+                for (MethodParameter parameter : handlerMethod.getMethodParameters()) {
+                    if (supportsParameter(parameter)) {
+                        Class<?> type = parameter.getParameterType();
+                        log.info("bind plan type={}, compiled={}", type.getName(), plan(type) != null);
+                    }
+                }
+            }
+        });
+    }
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return parameter.hasParameterAnnotation(FastModelAttribute.class);
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                  NativeWebRequest webRequest, WebDataBinderFactory binderFactory) throws Exception {
+        String name = ModelFactory.getNameForParameter(parameter);
+        BindPlan plan = plan(parameter.getParameterType());
+        HttpServletRequest request = webRequest.getNativeRequest(HttpServletRequest.class);
+
+        if (plan != null && request != null && !needsValidation(parameter) && !mavContainer.containsAttribute(name)) {
+            Object target = plan.bind(request);
+            if (target != null) {
+                mavContainer.addAttribute(name, target);
+                return target;
+            }
+        }
+        return fallback.resolveArgument(parameter, mavContainer, webRequest, binderFactory);
+    }
+
+    BindPlan plan(Class<?> type) {
+        return plans.computeIfAbsent(type, t -> Optional.ofNullable(BindPlan.compile(t))).orElse(null);
+    }
+
+//    ModelAttributeMethodProcessor와 같은 기준 (@Validated 또는 이름이 Valid로 시작하는 애노테이션)
+    private boolean needsValidation(MethodParameter parameter) {
+        for (Annotation ann : parameter.getParameterAnnotations()) {
+            if (ann.annotationType().getSimpleName().startsWith("Valid")) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,208 @@
+package hello.springmvc.web.bind;
+
+import org.springframework.web.bind.ServletRequestBindingException;
+
+import java.util.Arrays;
+
+//  @RequestParam Map<String, Object> 대신 쓰는 파라미터 맵 (RawRequestParamsArgumentResolver)
+//  RawRequestParams의 바이트 위에 이름 -> (이름 위치, 값 위치) 인덱스만 만든다.
+//  - LinkedHashMap, Entry, 값 String을 만들지 않는다. 값은 꺼낼 때 바꾼다. (getInt / getLong 은 박싱 없이)
+//  - 인덱스는 int[] 하나에 들어가는 open addressing 해시 테이블 (한 칸 = hash, 이름 시작, 이름 끝, 값 시작, 값 끝)
+//  - int[] 는 스레드마다 하나를 재사용한다. 쓰는 동안은 스레드에서 빼두기 때문에 같은 스레드에서 두개를 써도 섞이지 않는다.
+//  같은 이름이 여러번 오면 처음 것 (request.getParameter와 같다)
+//  다 쓰면 release()로 버퍼와 int[]를 돌려준다. 요청 하나 안에서만 쓴다.
+public class ParamMap {
+
+    private static final int SLOT = 5;
+    private static final ThreadLocal<int[]> TABLES = new ThreadLocal<>();
+
+    private final RawRequestParams raw;
+    private int[] table;
+    private int mask;
+    private int size;
+
+    private ParamMap(RawRequestParams raw) {
+        this.raw = raw;
+    }
+
+    public static ParamMap index(RawRequestParams raw) {
+        ParamMap map = new ParamMap(raw);
+        map.build();
+        return map;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(String name) {
+        return slot(name) >= 0 || raw.fallback(name) != null;
+    }
+
+//    없으면 null
+    public String getString(String name) {
+        int slot = slot(name);
+        return slot >= 0 ? raw.string(table[slot + 3], table[slot + 4]) : raw.fallback(name);
+    }
+
+    public String getString(String name, String defaultValue) {
+        String value = getString(name);
+        return value != null ? value : defaultValue;
+    }
+
+    public int getInt(String name) throws ServletRequestBindingException {
+        return (int) getNumber(name, "int", Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    public int getInt(String name, int defaultValue) throws ServletRequestBindingException {
+        return contains(name) ? getInt(name) : defaultValue;
+    }
+
+    public long getLong(String name) throws ServletRequestBindingException {
+        return getNumber(name, "long", Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    public long getLong(String name, long defaultValue) throws ServletRequestBindingException {
+        return contains(name) ? getLong(name) : defaultValue;
+    }
+
+    public void release() {
+        if (table != null) {
+            TABLES.set(table);
+            table = null;
+        }
+        raw.release();
+    }
+
+    private long getNumber(String name, String type, long min, long max) throws ServletRequestBindingException {
+        int slot = slot(name);
+        if (slot >= 0) {
+            return raw.number(table[slot + 3], table[slot + 4], min, max, name, type);
+        }
+        return raw.fallbackNumber(name, type, min, max);
+    }
+
+    private int slot(String name) {
+        if (table == null) {
+            throw new IllegalStateException("ParamMap already released");
+        }
+        int hash = hash(name);
+        for (int i = (hash & mask) * SLOT; ; i = next(i)) {
+            if (table[i + 1] < 0) {
+                return -1;
+            }
+            if (table[i] == hash && raw.nameMatches(table[i + 1], table[i + 2], name)) {
+                return i;
+            }
+        }
+    }
+
+    private int next(int slot) {
+        slot += SLOT;
+        return slot == (mask + 1) * SLOT ? 0 : slot;
+    }
+
+    private void build() {
+        byte[] bytes = raw.bytes();
+        int length = raw.length();
+        int count = 0;
+        for (int i = 0; i < length; i++) {
+            if (bytes[i] == '&') {
+                count++;
+            }
+        }
+        int capacity = Integer.highestOneBit(Math.max(2, count + 1) * 2 - 1) << 1;
+        mask = capacity - 1;
+        int needed = capacity * SLOT;
+        table = TABLES.get();
+        if (table == null || table.length < needed) {
+            table = new int[needed];
+        } else {
+            TABLES.remove();
+        }
+        Arrays.fill(table, 0, needed, -1);
+
+        int i = 0;
+        while (i < length) {
+            int end = raw.indexOf('&', i, length);
+            int eq = raw.indexOf('=', i, end);
+            int nameEnd = eq < 0 ? end : eq;
+            if (nameEnd > i) {
+                put(bytes, i, nameEnd, eq < 0 ? end : eq + 1, end);
+            }
+            i = end + 1;
+        }
+    }
+
+    private void put(byte[] bytes, int nameStart, int nameEnd, int valueStart, int valueEnd) {
+        int hash = hash(bytes, nameStart, nameEnd);
+        for (int i = (hash & mask) * SLOT; ; i = next(i)) {
+            if (table[i + 1] < 0) {
+                table[i] = hash;
+                table[i + 1] = nameStart;
+                table[i + 2] = nameEnd;
+                table[i + 3] = valueStart;
+                table[i + 4] = valueEnd;
+                size++;
+                return;
+            }
+            if (table[i] == hash && sameName(bytes, table[i + 1], table[i + 2], nameStart, nameEnd)) {
+                return;
+            }
+        }
+    }
+
+//    String.hashCode와 같은 식. 바이트 쪽은 %XX, + 를 풀면서 계산한다. (이름은 ASCII)
+    private static int hash(String name) {
+        int hash = 0;
+        for (int i = 0; i < name.length(); i++) {
+            hash = 31 * hash + name.charAt(i);
+        }
+        return spread(hash);
+    }
+
+    private static int hash(byte[] bytes, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            int b = bytes[i] & 0xFF;
+            if (b == '+') {
+                b = ' ';
+            } else if (b == '%' && i + 2 < end && RawRequestParams.hex(bytes[i + 1]) >= 0 && RawRequestParams.hex(bytes[i + 2]) >= 0) {
+                b = RawRequestParams.hex(bytes[i + 1]) << 4 | RawRequestParams.hex(bytes[i + 2]);
+                i += 2;
+            }
+            hash = 31 * hash + b;
+        }
+        return spread(hash);
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+//    a=1&%61=2 처럼 인코딩만 다른 이름도 같은 이름이다. (hash가 같을 때만 부르므로 대부분 바이트가 그대로 같다)
+    private static boolean sameName(byte[] bytes, int aStart, int aEnd, int bStart, int bEnd) {
+        int i = aStart;
+        int j = bStart;
+        while (i < aEnd && j < bEnd) {
+            if (decodedAt(bytes, i, aEnd) != decodedAt(bytes, j, bEnd)) {
+                return false;
+            }
+            i += encodedLength(bytes, i, aEnd);
+            j += encodedLength(bytes, j, bEnd);
+        }
+        return i == aEnd && j == bEnd;
+    }
+
+    private static int decodedAt(byte[] bytes, int i, int end) {
+        int b = bytes[i] & 0xFF;
+        if (b == '+') {
+            return ' ';
+        }
+        return encodedLength(bytes, i, end) == 3 ? RawRequestParams.hex(bytes[i + 1]) << 4 | RawRequestParams.hex(bytes[i + 2]) : b;
+    }
+
+    private static int encodedLength(byte[] bytes, int i, int end) {
+        return bytes[i] == '%' && i + 2 < end && RawRequestParams.hex(bytes[i + 1]) >= 0 && RawRequestParams.hex(bytes[i + 2]) >= 0 ? 3 : 1;
+    }
+}
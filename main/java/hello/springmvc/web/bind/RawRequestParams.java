@@ -0,0 +1,319 @@
+package hello.springmvc.web.bind;
+
+import hello.springmvc.web.io.BufferPool;
+import hello.springmvc.web.io.RequestBodyReader;
+import org.springframework.web.bind.MissingServletRequestParameterException;
+import org.springframework.web.bind.ServletRequestBindingException;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+//  쿼리 스트링과 폼 바디(application/x-www-form-urlencoded)를 바이트 그대로 두고 필요한 파라미터만 찾아서 꺼낸다. (RawRequestParamsArgumentResolver)
+//  request.getParameter()는 처음 부를 때 모든 파라미터를 디코딩해서 String[] 맵을 만든다.
+//  여기서는 값을 꺼낼 때마다 그 이름만 찾고
+//  - getInt / getLong : 바이트에서 바로 숫자로 바꾼다. (String을 만들지 않는다)
+//  - getString        : %XX, + 가 있을 때만 버퍼의 남는 뒤쪽에 디코딩하고 String 하나만 만든다.
+//  이름은 ASCII로 비교하고 값은 UTF-8로 디코딩한다.
+//
+//  바이트는 BufferPool에서 빌린 버퍼에 담고 요청이 끝나면 release()로 돌려준다. 요청 하나 안에서만 쓴다. (비동기 핸들러에서 쓰지 않는다)
+//  폼 바디를 여기서 읽으면 이후 request.getParameter()에는 바디 파라미터가 보이지 않는다.
+//  반대로 누가 이미 바디를 읽었으면(getParameter 등) 바디에 있던 값은 request.getParameter()로 찾는다.
+public class RawRequestParams {
+
+    private static final String FORM = "application/x-www-form-urlencoded";
+
+    private final HttpServletRequest request;
+    private final BufferPool pool;
+    private ByteBuffer pooled;
+    private byte[] bytes;
+    private int length;
+    private boolean bodyConsumed;
+
+//    find()가 찾은 값의 위치 [valueStart, valueEnd)
+    private int valueStart;
+    private int valueEnd;
+
+    private RawRequestParams(HttpServletRequest request, BufferPool pool) {
+        this.request = request;
+        this.pool = pool;
+    }
+
+//    pool이 null이면 버퍼를 빌리지 않고 새로 만든다.
+    public static RawRequestParams read(HttpServletRequest request, RequestBodyReader bodyReader, BufferPool pool) throws IOException {
+        RawRequestParams params = new RawRequestParams(request, pool);
+        try {
+            params.load(bodyReader);
+        } catch (IOException | RuntimeException e) {
+            params.release();
+            throw e;
+        }
+        return params;
+    }
+
+    public boolean contains(String name) {
+        return find(name) || (bodyConsumed && request.getParameter(name) != null);
+    }
+
+//    없으면 null (request.getParameter와 같다)
+    public String getString(String name) {
+        return find(name) ? string(valueStart, valueEnd) : fallback(name);
+    }
+
+    public int getInt(String name) throws ServletRequestBindingException {
+        return (int) getNumber(name, "int", Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    public int getInt(String name, int defaultValue) throws ServletRequestBindingException {
+        return contains(name) ? getInt(name) : defaultValue;
+    }
+
+    public long getLong(String name) throws ServletRequestBindingException {
+        return getNumber(name, "long", Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    public long getLong(String name, long defaultValue) throws ServletRequestBindingException {
+        return contains(name) ? getLong(name) : defaultValue;
+    }
+
+    public void release() {
+        if (pooled != null) {
+            pool.release(pooled);
+            pooled = null;
+        }
+        bytes = null;
+        length = 0;
+    }
+
+    private long getNumber(String name, String type, long min, long max) throws ServletRequestBindingException {
+        if (find(name)) {
+            return number(valueStart, valueEnd, min, max, name, type);
+        }
+        return fallbackNumber(name, type, min, max);
+    }
+
+//    [start, end) 범위의 값을 String으로
+    String string(int start, int end) {
+        if (!needsDecoding(start, end)) {
+            return new String(bytes, start, end - start, StandardCharsets.UTF_8);
+        }
+        byte[] target = scratch(end - start);
+        int offset = target == bytes ? length : 0;
+        int decoded = decode(start, end, target, offset);
+        return new String(target, offset, decoded - offset, StandardCharsets.UTF_8);
+    }
+
+//    [start, end) 범위의 값을 숫자로
+    long number(int start, int end, long min, long max, String name, String type) throws ServletRequestBindingException {
+        if (!needsDecoding(start, end)) {
+            return parse(bytes, start, end, min, max, name, type);
+        }
+        byte[] target = scratch(end - start);
+        int offset = target == bytes ? length : 0;
+        int decoded = decode(start, end, target, offset);
+        return parse(target, offset, decoded, min, max, name, type);
+    }
+
+//    바이트에 없는 이름: 바디를 다른 곳에서 이미 읽었으면 request.getParameter()로 찾는다.
+    String fallback(String name) {
+        return bodyConsumed ? request.getParameter(name) : null;
+    }
+
+    long fallbackNumber(String name, String type, long min, long max) throws ServletRequestBindingException {
+        String value = fallback(name);
+        if (value == null) {
+            throw new MissingServletRequestParameterException(name, type);
+        }
+        byte[] raw = value.getBytes(StandardCharsets.UTF_8);
+        return parse(raw, 0, raw.length, min, max, name, type);
+    }
+
+    byte[] bytes() {
+        if (bytes == null) {
+            throw new IllegalStateException("RawRequestParams already released");
+        }
+        return bytes;
+    }
+
+    int length() {
+        return length;
+    }
+
+//    Long.parseLong과 같이 음수 쪽으로 더해가면서 넘침을 확인한다.
+    private static long parse(byte[] source, int start, int end, long min, long max, String name, String type)
+            throws ServletRequestBindingException {
+        boolean negative = start < end && source[start] == '-';
+        int i = negative ? start + 1 : start;
+        if (i == end) {
+            throw conversionFailed(name, type);
+        }
+        long limit = negative ? min : -max;
+        long result = 0;
+        for (; i < end; i++) {
+            int digit = source[i] - '0';
+            if (digit < 0 || digit > 9 || result < (limit + digit) / 10) {
+                throw conversionFailed(name, type);
+            }
+            result = result * 10 - digit;
+        }
+        return negative ? result : -result;
+    }
+
+    private static ServletRequestBindingException conversionFailed(String name, String type) {
+        return new ServletRequestBindingException("Failed to convert request parameter '" + name + "' to " + type);
+    }
+
+    private void load(RequestBodyReader bodyReader) throws IOException {
+        if (pool != null) {
+            pooled = pool.acquire();
+            bytes = pooled.array();
+        } else {
+            bytes = new byte[256];
+        }
+        String query = request.getQueryString();
+        if (query != null) {
+            appendQuery(query);
+        }
+        if ("POST".equals(request.getMethod()) && isForm(request.getContentType())) {
+            appendBody(bodyReader);
+        }
+    }
+
+//    톰캣이 돌려주는 쿼리 스트링은 인코딩 전 그대로라서 대부분 ASCII다. 아닌 문자는 UTF-8 바이트로 넣는다.
+    private void appendQuery(String query) {
+        ensure(query.length());
+        for (int i = 0; i < query.length(); i++) {
+            char c = query.charAt(i);
+            if (c < 0x80) {
+                bytes[length++] = (byte) c;
+            } else {
+                int end = Character.isHighSurrogate(c) && i + 1 < query.length() ? i + 2 : i + 1;
+                byte[] encoded = query.substring(i, end).getBytes(StandardCharsets.UTF_8);
+                ensure(encoded.length + query.length() - end);
+                System.arraycopy(encoded, 0, bytes, length, encoded.length);
+                length += encoded.length;
+                i = end - 1;
+            }
+        }
+    }
+
+    private void appendBody(RequestBodyReader bodyReader) throws IOException {
+        long contentLength = request.getContentLengthLong();
+        bodyReader.checkContentLength(contentLength);
+        if (length > 0) {
+            ensure(1);
+            bytes[length++] = '&';
+        }
+        int start = length;
+        InputStream in = request.getInputStream();
+        while (true) {
+            ensure(1);
+            int n = in.read(bytes, length, bytes.length - length);
+            if (n < 0) {
+                break;
+            }
+            length += n;
+            bodyReader.checkSize(length - start);
+        }
+        bodyConsumed = length == start && contentLength > 0;
+    }
+
+    private boolean find(String name) {
+        bytes();
+        int i = 0;
+        while (i < length) {
+            int end = indexOf('&', i, length);
+            int eq = indexOf('=', i, end);
+            int nameEnd = eq < 0 ? end : eq;
+            if (nameEnd > i && nameMatches(i, nameEnd, name)) {
+                valueStart = eq < 0 ? end : eq + 1;
+                valueEnd = end;
+                return true;
+            }
+            i = end + 1;
+        }
+        return false;
+    }
+
+    boolean nameMatches(int start, int end, String name) {
+        int j = 0;
+        for (int i = start; i < end; i++, j++) {
+            int b = bytes[i] & 0xFF;
+            if (b == '+') {
+                b = ' ';
+            } else if (b == '%' && i + 2 < end && hex(bytes[i + 1]) >= 0 && hex(bytes[i + 2]) >= 0) {
+                b = hex(bytes[i + 1]) << 4 | hex(bytes[i + 2]);
+                i += 2;
+            }
+            if (j >= name.length() || name.charAt(j) != b) {
+                return false;
+            }
+        }
+        return j == name.length();
+    }
+
+    private boolean needsDecoding(int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (bytes[i] == '%' || bytes[i] == '+') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+//    디코딩한 결과는 원래보다 길어지지 않는다. 버퍼 뒤쪽에 자리가 있으면 거기에 쓴다.
+    private byte[] scratch(int size) {
+        return length + size <= bytes.length ? bytes : new byte[size];
+    }
+
+//    잘못된 %XX 는 그대로 둔다. 디코딩한 끝 위치를 돌려준다.
+    private int decode(int start, int end, byte[] target, int offset) {
+        int out = offset;
+        for (int i = start; i < end; i++) {
+            byte b = bytes[i];
+            if (b == '+') {
+                b = ' ';
+            } else if (b == '%' && i + 2 < end && hex(bytes[i + 1]) >= 0 && hex(bytes[i + 2]) >= 0) {
+                b = (byte) (hex(bytes[i + 1]) << 4 | hex(bytes[i + 2]));
+                i += 2;
+            }
+            target[out++] = b;
+        }
+        return out;
+    }
+
+    int indexOf(char c, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (bytes[i] == c) {
+                return i;
+            }
+        }
+        return c == '&' ? to : -1;
+    }
+
+    private void ensure(int size) {
+        if (length + size > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + size));
+        }
+    }
+
+    static int hex(byte b) {
+        if (b >= '0' && b <= '9') {
+            return b - '0';
+        }
+        if (b >= 'a' && b <= 'f') {
+            return b - 'a' + 10;
+        }
+        if (b >= 'A' && b <= 'F') {
+            return b - 'A' + 10;
+        }
+        return -1;
+    }
+
+    private static boolean isForm(String contentType) {
+        return contentType != null && contentType.regionMatches(true, 0, FORM, 0, FORM.length());
+    }
+}
@@ -0,0 +1,51 @@
+package hello.springmvc.web.bind;
+
+import hello.springmvc.web.io.RequestBodyReader;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.MethodParameter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+import javax.servlet.http.HttpServletRequest;
+
+//  RawRequestParams, ParamMap 타입의 파라미터를 처리한다.
+//  DispatcherServlet이 요청을 마칠 때 부르는 request scope 소멸 콜백으로 빌린 버퍼를 돌려준다.
+//  (요청 scope가 없으면 버퍼를 빌리지 않는다)
+@Component
+@RequiredArgsConstructor
+public class RawRequestParamsArgumentResolver implements HandlerMethodArgumentResolver {
+
+    private static final String CALLBACK = RawRequestParams.class.getName() + ".release.";
+
+    private final RequestBodyReader requestBodyReader;
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        Class<?> type = parameter.getParameterType();
+        return type == RawRequestParams.class || type == ParamMap.class;
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                  NativeWebRequest webRequest, WebDataBinderFactory binderFactory) throws Exception {
+        HttpServletRequest request = webRequest.getNativeRequest(HttpServletRequest.class);
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        RawRequestParams params = RawRequestParams.read(request, requestBodyReader, attributes == null ? null : requestBodyReader.getBufferPool());
+        if (parameter.getParameterType() == RawRequestParams.class) {
+            if (attributes != null) {
+                attributes.registerDestructionCallback(CALLBACK + parameter.getParameterIndex(), params::release, RequestAttributes.SCOPE_REQUEST);
+            }
+            return params;
+        }
+        ParamMap map = ParamMap.index(params);
+        if (attributes != null) {
+            attributes.registerDestructionCallback(CALLBACK + parameter.getParameterIndex(), map::release, RequestAttributes.SCOPE_REQUEST);
+        }
+        return map;
+    }
+}
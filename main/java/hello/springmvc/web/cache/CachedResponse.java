@@ -0,0 +1,19 @@
+package hello.springmvc.web.cache;
+
+import java.lang.annotation.*;
+
+//  @ResponseBody(또는 ResponseEntity)로 JSON을 돌려주는 핸들러에 붙이면 결과를 한번만 직렬화해서 바이트(원본, gzip, ETag)로 보관한다.
+//  ttlSeconds 동안은 핸들러를 부르지 않고 보관한 바이트를 바로 쓰고, If-None-Match가 같으면 304
+//  요청 값(파라미터, 경로 변수 등)에 따라 결과가 달라지는 핸들러에는 붙이면 안 된다.
+//
+//  key : ResponseCache.evict(key)로 직접 지울 때 쓰는 이름 (기본값은 "클래스명#메서드명")
+//  ttlSeconds : 0 이하면 evict() 하기 전까지 계속 쓴다.
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface CachedResponse {
+
+    String key() default "";
+
+    long ttlSeconds() default 60;
+}
@@ -0,0 +1,55 @@
+package hello.springmvc.web.cache;
+
+import hello.springmvc.web.json.JsonMappers;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+//  @CachedResponse 핸들러가 돌려준 값을 JSON으로 한번 직렬화해서 ResponseCache에 넣고, 그 바이트를 직접 응답한다.
+//  null을 돌려주면 MappingJackson2HttpMessageConverter가 다시 직렬화하지 않는다.
+//  상태 코드와 Content-Type만 보관하고 ResponseEntity에 넣은 다른 헤더는 보관하지 않는다.
+@ControllerAdvice
+@RequiredArgsConstructor
+public class CachedResponseAdvice implements ResponseBodyAdvice<Object> {
+
+    private final ResponseCache responseCache;
+    private final JsonMappers jsonMappers;
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return returnType.hasMethodAnnotation(CachedResponse.class)
+                && MappingJackson2HttpMessageConverter.class.isAssignableFrom(converterType);
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (body == null || !(request instanceof ServletServerHttpRequest) || !(response instanceof ServletServerHttpResponse)) {
+            return body;
+        }
+        CachedResponse cachedResponse = returnType.getMethodAnnotation(CachedResponse.class);
+        HttpServletResponse servletResponse = ((ServletServerHttpResponse) response).getServletResponse();
+        try {
+            byte[] bytes = jsonMappers.writer(body.getClass()).writeValueAsBytes(body);
+            ResponseCache.Entry entry = responseCache.put(responseCache.key(returnType.getMethod(), cachedResponse),
+                    cachedResponse.ttlSeconds(), servletResponse.getStatus(), selectedContentType.toString(), bytes);
+            responseCache.write(entry, ((ServletServerHttpRequest) request).getServletRequest(), servletResponse);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,70 @@
+package hello.springmvc.web.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.List;
+
+//  @CachedResponse 핸들러를 부르기 전에 ResponseCache를 본다.
+//  보관한 응답이 있으면 바로 쓰고(또는 304) false를 돌려줘서 핸들러를 부르지 않는다.
+//  GET, HEAD만 보고, Accept가 보관한 Content-Type(JSON)을 가장 먼저 원하지 않으면 핸들러로 넘겨서 원래대로 컨버터를 고르게 한다.
+@Component
+@RequiredArgsConstructor
+public class CachedResponseInterceptor implements HandlerInterceptor {
+
+    private static final MediaType[] BINARY = {
+            MediaType.parseMediaType("application/x-jackson-smile"), MediaType.parseMediaType("application/cbor")};
+
+    private final ResponseCache responseCache;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws IOException {
+        if (!(handler instanceof HandlerMethod)) {
+            return true;
+        }
+        String method = request.getMethod();
+        if (!"GET".equals(method) && !"HEAD".equals(method)) {
+            return true;
+        }
+        HandlerMethod handlerMethod = (HandlerMethod) handler;
+        CachedResponse cachedResponse = handlerMethod.getMethodAnnotation(CachedResponse.class);
+        if (cachedResponse == null) {
+            return true;
+        }
+        ResponseCache.Entry entry = responseCache.get(responseCache.key(handlerMethod.getMethod(), cachedResponse));
+        if (entry == null || !accepts(request.getHeader(HttpHeaders.ACCEPT), entry.getContentType())) {
+            return true;
+        }
+        responseCache.write(entry, request, response);
+        return false;
+    }
+
+//    Accept를 우선순위대로 보면서 처음 만나는 것이 보관한 타입(JSON)이면 캐시로, 바이너리(Smile, CBOR)면 핸들러로 넘긴다.
+//    text/html 처럼 둘 다 아닌 것은 건너뛴다. (브라우저의 Accept는 */* 에서 JSON이 된다)
+    private static boolean accepts(String accept, String contentType) {
+        if (accept == null || accept.isEmpty() || accept.equals("*/*")) {
+            return true;
+        }
+        MediaType cached = MediaType.parseMediaType(contentType);
+        List<MediaType> acceptable = MediaType.parseMediaTypes(accept);
+        MediaType.sortBySpecificityAndQuality(acceptable);
+        for (MediaType type : acceptable) {
+            if (type.isCompatibleWith(cached)) {
+                return true;
+            }
+            for (MediaType binary : BINARY) {
+                if (type.includes(binary)) {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+}
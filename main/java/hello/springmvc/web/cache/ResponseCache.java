@@ -0,0 +1,141 @@
+package hello.springmvc.web.cache;
+
+import hello.springmvc.web.http.AcceptEncoding;
+import hello.springmvc.web.metrics.MetricsSource;
+import hello.springmvc.web.metrics.PrometheusWriter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPOutputStream;
+
+//  @CachedResponse 핸들러의 응답 바이트 보관소
+//  - CachedResponseAdvice : 핸들러가 처음 돌려준 값을 직렬화해서 put
+//  - CachedResponseInterceptor : 보관한 값이 있으면 핸들러 호출 전에 바로 응답
+//  만료(ttl)된 항목은 get()에서 지우고, 다른 곳에서 값이 바뀌었으면 evict(key)로 지운다.
+@Component
+public class ResponseCache implements MetricsSource {
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<Method, String> keys = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder notModified = new LongAdder();
+
+    public Entry get(String key) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.isExpired()) {
+            entries.remove(key, entry);
+            entry = null;
+        }
+        if (entry == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return entry;
+    }
+
+    public Entry put(String key, long ttlSeconds, int status, String contentType, byte[] body) throws IOException {
+        long expiresAt = ttlSeconds > 0 ? System.nanoTime() + TimeUnit.SECONDS.toNanos(ttlSeconds) : Long.MAX_VALUE;
+        Entry entry = new Entry(status, contentType, body, gzip(body), expiresAt);
+        entries.put(key, entry);
+        return entry;
+    }
+
+    public void evict(String key) {
+        entries.remove(key);
+    }
+
+    public void evictAll() {
+        entries.clear();
+    }
+
+    String key(Method method, CachedResponse cachedResponse) {
+        if (!cachedResponse.key().isEmpty()) {
+            return cachedResponse.key();
+        }
+        return keys.computeIfAbsent(method, m -> m.getDeclaringClass().getName() + "#" + m.getName());
+    }
+
+//    응답을 쓴다. If-None-Match가 ETag와 맞으면 바디 없이 304
+//    If-None-Match 비교는 스프링(checkNotModified)에 맡긴다. 목록("a", "b"), *, 약한 비교(W/"a" == "a")를 처리한다.
+//    (CompressionFilter가 압축한 응답의 ETag를 W/"..." 로 바꾸기 때문에 약한 비교가 필요하다)
+    void write(Entry entry, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        boolean gzip = entry.gzip != null && AcceptEncoding.accepts(request.getHeader(HttpHeaders.ACCEPT_ENCODING), "gzip");
+        String etag = gzip ? entry.gzipEtag : entry.etag;
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (new ServletWebRequest(request, response).checkNotModified(etag)) {
+            notModified.increment();
+            return;
+        }
+
+        byte[] body = gzip ? entry.gzip : entry.body;
+        response.setStatus(entry.status);
+        response.setContentType(entry.contentType);
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        response.setContentLength(body.length);
+        if (!"HEAD".equals(request.getMethod())) {
+            response.getOutputStream().write(body);
+        }
+    }
+
+    @Override
+    public void collect(PrometheusWriter writer) {
+        writer.counter("hello_response_cache_hits_total", "@CachedResponse lookups served from the cache", hits.sum())
+                .counter("hello_response_cache_misses_total", "@CachedResponse lookups that invoked the handler", misses.sum())
+                .counter("hello_response_cache_not_modified_total", "@CachedResponse responses answered with 304", notModified.sum())
+                .gauge("hello_response_cache_entries", "Entries currently held", entries.size());
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        byte[] compressed = out.toByteArray();
+        return compressed.length < bytes.length ? compressed : null;
+    }
+
+    public static final class Entry {
+        private final int status;
+        private final String contentType;
+        private final byte[] body;
+        private final byte[] gzip;
+        private final String etag;
+        private final String gzipEtag;
+        private final long expiresAt;
+
+        private Entry(int status, String contentType, byte[] body, byte[] gzip, long expiresAt) {
+            this.status = status;
+            this.contentType = contentType;
+            this.body = body;
+            this.gzip = gzip;
+            this.etag = "\"" + DigestUtils.md5DigestAsHex(body) + "\"";
+            this.gzipEtag = gzip == null ? null : "\"" + DigestUtils.md5DigestAsHex(body) + "-gzip\"";
+            this.expiresAt = expiresAt;
+        }
+
+        String getContentType() {
+            return contentType;
+        }
+
+        private boolean isExpired() {
+            return expiresAt != Long.MAX_VALUE && System.nanoTime() - expiresAt > 0;
+        }
+    }
+}
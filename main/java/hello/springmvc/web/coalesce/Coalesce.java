@@ -0,0 +1,19 @@
+package hello.springmvc.web.coalesce;
+
+import java.lang.annotation.*;
+
+//  GET(HEAD) 핸들러에 붙이면 같은 요청(메서드 + 경로 + 쿼리 + headers 값)이 동시에 여러개 들어왔을 때
+//  먼저 온 요청(leader) 하나만 핸들러를 실행하고 나머지(follower)는 leader가 쓴 응답 바이트를 그대로 받는다.
+//  leader가 끝난 뒤에 온 요청은 다시 핸들러를 실행한다. (캐시가 아니다)
+//  쿠키, 인증 정보처럼 headers에 없는 값에 따라 결과가 달라지는 핸들러에는 붙이면 안 된다.
+//
+//  headers : 키에 포함할 요청 헤더 (기본값 Accept : JSON, Smile, CBOR 응답을 섞지 않는다)
+//            Accept-Encoding은 적지 않아도 항상 키에 들어간다. (gzip 응답을 섞지 않는다)
+//  CoalescingFilter가 켜져 있을 때만(hello.coalesce.enabled) 동작한다.
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Coalesce {
+
+    String[] headers() default {"Accept"};
+}
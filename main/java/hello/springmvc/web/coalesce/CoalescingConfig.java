@@ -0,0 +1,22 @@
+package hello.springmvc.web.coalesce;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+//  @Coalesce 요청 합치기 설정
+//  필터가 없으면 CoalescingInterceptor는 아무것도 하지 않는다.
+@Configuration
+@ConditionalOnProperty(name = "hello.coalesce.enabled", havingValue = "true")
+public class CoalescingConfig {
+
+//    CompressionFilter(HIGHEST_PRECEDENCE + 10) 안쪽 : 압축하기 전 바디를 복사해서 follower마다 각자 Accept-Encoding에 맞게 압축되도록
+    @Bean
+    public FilterRegistrationBean<CoalescingFilter> coalescingFilterRegistration() {
+        FilterRegistrationBean<CoalescingFilter> registration = new FilterRegistrationBean<>(new CoalescingFilter());
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 20);
+        return registration;
+    }
+}
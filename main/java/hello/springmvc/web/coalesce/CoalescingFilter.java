@@ -0,0 +1,26 @@
+package hello.springmvc.web.coalesce;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+//  GET, HEAD 응답을 CoalescingResponseWrapper로 감싼다.
+//  핸들러가 @Coalesce인지는 핸들러를 찾은 뒤에야 알 수 있어서 감싸기만 하고 복사는 CoalescingInterceptor가 leader일 때만 시작한다.
+public class CoalescingFilter extends OncePerRequestFilter {
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String method = request.getMethod();
+        return !"GET".equals(method) && !"HEAD".equals(method);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        filterChain.doFilter(request, new CoalescingResponseWrapper(response));
+    }
+}
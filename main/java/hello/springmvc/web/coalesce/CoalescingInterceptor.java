@@ -0,0 +1,194 @@
+package hello.springmvc.web.coalesce;
+
+import hello.springmvc.web.metrics.MetricsSource;
+import hello.springmvc.web.metrics.PrometheusWriter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.util.WebUtils;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+//  @Coalesce 핸들러의 같은 요청을 SingleFlight로 합친다.
+//  - leader   : 핸들러를 실행하고, 응답 바디를 CoalescingResponseWrapper로 복사해서 afterCompletion에서 follower들에게 넘긴다.
+//  - follower : leader의 결과를 maxWaitMillis 까지 기다렸다가 그대로 쓰고 핸들러를 부르지 않는다.
+//  leader가 200이 아니거나, 예외, 비동기, maxBytes 초과, 기다리다 시간이 지나면 follower는 각자 핸들러를 실행한다.
+//  leader가 압축된 바이트를 쓸 수 있으므로(ResponseCache의 gzip) 키에 Accept-Encoding을 항상 넣고
+//  leader의 핸들러가 설정한 Content-Encoding과 Vary를 같이 넘긴다.
+@Component
+public class CoalescingInterceptor implements AsyncHandlerInterceptor, MetricsSource {
+
+    private static final String CALL_ATTRIBUTE = CoalescingInterceptor.class.getName() + ".call";
+    private static final String KEY_ATTRIBUTE = CoalescingInterceptor.class.getName() + ".key";
+    private static final String[] SHARED_HEADERS = {
+            HttpHeaders.VARY, HttpHeaders.CONTENT_LANGUAGE, HttpHeaders.CACHE_CONTROL, HttpHeaders.ETAG, HttpHeaders.LAST_MODIFIED};
+
+    private final SingleFlight<String, Shared> flights = new SingleFlight<>();
+    private final long maxWaitMillis;
+    private final int maxBytes;
+
+    private final LongAdder leaders = new LongAdder();
+    private final LongAdder followers = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+
+    public CoalescingInterceptor(@Value("${hello.coalesce.max-wait-millis:1000}") long maxWaitMillis,
+                                 @Value("${hello.coalesce.max-bytes:1048576}") int maxBytes) {
+        this.maxWaitMillis = maxWaitMillis;
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws IOException {
+        if (!(handler instanceof HandlerMethod)) {
+            return true;
+        }
+        Coalesce coalesce = ((HandlerMethod) handler).getMethodAnnotation(Coalesce.class);
+        CoalescingResponseWrapper wrapper = WebUtils.getNativeResponse(response, CoalescingResponseWrapper.class);
+        if (coalesce == null || wrapper == null) {
+            return true;
+        }
+        String key = key(request, coalesce);
+        SingleFlight.Call<Shared> call = flights.begin(key);
+        if (call.isLeader()) {
+            leaders.increment();
+            wrapper.startCapture(maxBytes);
+            request.setAttribute(CALL_ATTRIBUTE, call);
+            request.setAttribute(KEY_ATTRIBUTE, key);
+            return true;
+        }
+        Shared shared = await(call);
+        if (shared == null) {
+            fallbacks.increment();
+            return true;
+        }
+        followers.increment();
+        shared.write(request, response);
+        return false;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        complete(request, response, false);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        complete(request, response, ex == null);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void complete(HttpServletRequest request, HttpServletResponse response, boolean share) {
+        SingleFlight.Call<Shared> call = (SingleFlight.Call<Shared>) request.getAttribute(CALL_ATTRIBUTE);
+        if (call == null) {
+            return;
+        }
+        request.removeAttribute(CALL_ATTRIBUTE);
+        CoalescingResponseWrapper wrapper = WebUtils.getNativeResponse(response, CoalescingResponseWrapper.class);
+        byte[] body = wrapper == null ? null : wrapper.finishCapture();
+        Shared shared = share && body != null && response.getStatus() == HttpServletResponse.SC_OK
+                ? new Shared(response, wrapper.getContentEncoding(), body) : null;
+        flights.complete((String) request.getAttribute(KEY_ATTRIBUTE), call, shared);
+    }
+
+    private Shared await(SingleFlight.Call<Shared> call) {
+        try {
+            return call.getResult().get(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException | TimeoutException e) {
+            return null;
+        }
+    }
+
+//    GET /mapping/users/1?x=1
+//    Accept:application/json
+//    Accept-Encoding:gzip
+    static String key(HttpServletRequest request, Coalesce coalesce) {
+        StringBuilder key = new StringBuilder(64).append(request.getMethod()).append(' ').append(request.getRequestURI());
+        String query = request.getQueryString();
+        if (query != null) {
+            key.append('?').append(query);
+        }
+        boolean encoding = false;
+        for (String header : coalesce.headers()) {
+            appendHeader(key, request, header);
+            encoding |= HttpHeaders.ACCEPT_ENCODING.equalsIgnoreCase(header);
+        }
+        if (!encoding) {
+            appendHeader(key, request, HttpHeaders.ACCEPT_ENCODING);
+        }
+        return key.toString();
+    }
+
+    private static void appendHeader(StringBuilder key, HttpServletRequest request, String header) {
+        String value = request.getHeader(header);
+        key.append('\n').append(header).append(':');
+        if (value != null) {
+            key.append(value);
+        }
+    }
+
+    @Override
+    public void collect(PrometheusWriter writer) {
+        long leaderCount = leaders.sum();
+        long followerCount = followers.sum();
+        long total = leaderCount + followerCount + fallbacks.sum();
+        writer.counter("hello_coalesce_leaders_total", "@Coalesce requests that ran the handler", leaderCount)
+                .counter("hello_coalesce_followers_total", "@Coalesce requests served from a concurrent leader's response", followerCount)
+                .counter("hello_coalesce_fallbacks_total", "@Coalesce followers that ran the handler because the leader could not share", fallbacks.sum())
+                .gauge("hello_coalesce_ratio", "Share of @Coalesce requests served without running the handler",
+                        total == 0 ? 0 : (double) followerCount / total)
+                .gauge("hello_coalesce_in_flight", "Keys with a leader currently running", flights.getInFlight());
+    }
+
+//    follower에게 넘기는 leader의 응답
+    private static final class Shared {
+
+        private final String contentType;
+        private final String contentEncoding;
+        private final List<List<String>> headers;
+        private final byte[] body;
+
+//        Vary는 여러 줄로 올 수 있어서 값을 모두 넘긴다.
+        Shared(HttpServletResponse response, String contentEncoding, byte[] body) {
+            this.contentType = response.getContentType();
+            this.contentEncoding = contentEncoding;
+            this.headers = new ArrayList<>(SHARED_HEADERS.length);
+            for (String header : SHARED_HEADERS) {
+                headers.add(new ArrayList<>(response.getHeaders(header)));
+            }
+            this.body = body;
+        }
+
+        void write(HttpServletRequest request, HttpServletResponse response) throws IOException {
+            response.setStatus(HttpServletResponse.SC_OK);
+            if (contentType != null) {
+                response.setContentType(contentType);
+            }
+            if (contentEncoding != null) {
+                response.setHeader(HttpHeaders.CONTENT_ENCODING, contentEncoding);
+            }
+            for (int i = 0; i < SHARED_HEADERS.length; i++) {
+                for (String value : headers.get(i)) {
+                    response.addHeader(SHARED_HEADERS[i], value);
+                }
+            }
+            if ("HEAD".equals(request.getMethod())) {
+                return;
+            }
+            response.setContentLength(body.length);
+            response.getOutputStream().write(body);
+        }
+    }
+}
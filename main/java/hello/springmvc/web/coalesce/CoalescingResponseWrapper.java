@@ -0,0 +1,193 @@
+package hello.springmvc.web.coalesce;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.FastByteArrayOutputStream;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+
+//  leader 요청의 응답을 클라이언트에 그대로 쓰면서 바디를 복사해둔다. (CoalescingFilter가 GET, HEAD에만 씌운다)
+//  CoalescingInterceptor가 startCapture()를 부르기 전까지는 아무것도 하지 않는다.
+//  maxBytes를 넘으면 복사를 멈추고 공유하지 않는다. (leader 응답은 그대로 나간다)
+//  Content-Encoding은 이 wrapper를 거쳐 설정된 것만 따로 들고 있는다. 바깥의 압축 필터가 실제 응답에 붙인 것은
+//  복사한 바디(압축 전)의 인코딩이 아니기 때문
+public class CoalescingResponseWrapper extends HttpServletResponseWrapper {
+
+    private FastByteArrayOutputStream captured;
+    private int maxBytes;
+    private boolean overflow;
+    private TeeOutputStream outputStream;
+    private PrintWriter writer;
+    private String contentEncoding;
+
+    public CoalescingResponseWrapper(HttpServletResponse response) {
+        super(response);
+    }
+
+    public void startCapture(int maxBytes) {
+        this.captured = new FastByteArrayOutputStream(1024);
+        this.maxBytes = maxBytes;
+    }
+
+    public void stopCapture() {
+        captured = null;
+    }
+
+//    writer에 남은 문자를 바디로 내리되 아래 스트림은 flush하지 않는다. (압축 필터가 중간에 SYNC_FLUSH 하지 않도록)
+//    다 복사했으면 바디, 복사하지 않았거나 넘쳤으면 null
+    public byte[] finishCapture() {
+        if (captured == null) {
+            return null;
+        }
+        if (writer != null) {
+            outputStream.passFlush = false;
+            writer.flush();
+            outputStream.passFlush = true;
+        }
+        byte[] body = overflow ? null : captured.toByteArrayUnsafe();
+        captured = null;
+        return body;
+    }
+
+//    핸들러(안쪽)가 설정한 Content-Encoding. 복사한 바디가 이미 그 인코딩으로 되어 있다.
+    public String getContentEncoding() {
+        return contentEncoding;
+    }
+
+    @Override
+    public void setHeader(String name, String value) {
+        super.setHeader(name, value);
+        if (HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(name)) {
+            contentEncoding = value;
+        }
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+        super.addHeader(name, value);
+        if (HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(name) && contentEncoding == null) {
+            contentEncoding = value;
+        }
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        if (captured == null && outputStream == null) {
+            return super.getOutputStream();
+        }
+        if (outputStream == null) {
+            outputStream = new TeeOutputStream(super.getOutputStream());
+        }
+        return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (captured == null && writer == null) {
+            return super.getWriter();
+        }
+        if (writer == null) {
+            writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), getCharacterEncoding()));
+        }
+        return writer;
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+        super.flushBuffer();
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        contentEncoding = null;
+        clearCapture();
+    }
+
+    @Override
+    public void resetBuffer() {
+        super.resetBuffer();
+        clearCapture();
+    }
+
+    private void clearCapture() {
+        if (captured != null) {
+            captured.reset();
+            overflow = false;
+        }
+    }
+
+    private void copy(byte[] b, int off, int len) {
+        if (captured == null || overflow) {
+            return;
+        }
+        if (captured.size() + len > maxBytes) {
+            overflow = true;
+            return;
+        }
+        captured.write(b, off, len);
+    }
+
+    private void copy(int b) {
+        if (captured == null || overflow) {
+            return;
+        }
+        if (captured.size() + 1 > maxBytes) {
+            overflow = true;
+            return;
+        }
+        captured.write(b);
+    }
+
+    private class TeeOutputStream extends ServletOutputStream {
+
+        private final ServletOutputStream delegate;
+        private boolean passFlush = true;
+
+        TeeOutputStream(ServletOutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+            copy(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            delegate.write(b, off, len);
+            copy(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (passFlush) {
+                delegate.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            delegate.setWriteListener(writeListener);
+        }
+    }
+}
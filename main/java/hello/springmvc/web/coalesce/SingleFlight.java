@@ -0,0 +1,67 @@
+package hello.springmvc.web.coalesce;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+//  같은 키로 동시에 들어온 작업을 하나로 합친다.
+//  begin()을 처음 부른 쪽이 leader가 되어 작업을 하고 complete()로 결과를 알린다.
+//  그 사이에 같은 키로 begin()을 부른 쪽(follower)은 같은 결과를 기다린다.
+//  complete()는 키를 먼저 지우고 결과를 알리기 때문에 그 뒤에 온 요청은 새 leader가 된다.
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> flights = new ConcurrentHashMap<>();
+
+    public Call<V> begin(K key) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> existing = flights.putIfAbsent(key, mine);
+        return existing == null ? new Call<>(mine, true) : new Call<>(existing, false);
+    }
+
+//    leader만 부른다. value가 null이면 follower들이 각자 실행한다.
+    public void complete(K key, Call<V> call, V value) {
+        flights.remove(key, call.result);
+        call.result.complete(value);
+    }
+
+//    begin + complete 를 한번에 (follower는 leader의 결과, leader가 실패하면 follower도 같은 예외)
+    public V execute(K key, Supplier<V> supplier) {
+        Call<V> call = begin(key);
+        if (!call.isLeader()) {
+            return call.result.join();
+        }
+        try {
+            V value = supplier.get();
+            complete(key, call, value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            flights.remove(key, call.result);
+            call.result.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    public int getInFlight() {
+        return flights.size();
+    }
+
+    public static final class Call<V> {
+
+        private final CompletableFuture<V> result;
+        private final boolean leader;
+
+        private Call(CompletableFuture<V> result, boolean leader) {
+            this.result = result;
+            this.leader = leader;
+        }
+
+        public boolean isLeader() {
+            return leader;
+        }
+
+        public CompletableFuture<V> getResult() {
+            return result;
+        }
+    }
+}
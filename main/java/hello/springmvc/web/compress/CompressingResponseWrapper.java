@@ -0,0 +1,410 @@
+package hello.springmvc.web.compress;
+
+import org.springframework.http.HttpHeaders;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+//  응답 바디를 threshold 바이트까지 모아두었다가
+//  - threshold 전에 응답이 끝나면 : 압축하지 않고 Content-Length와 함께 그대로 쓴다.
+//  - threshold를 넘으면         : Content-Type이 압축 대상이고 아직 Content-Encoding이 없으면 gzip/deflate로 압축하면서 쓴다.
+//  압축할지 정하기 전까지는 핸들러가 설정한 Content-Length를 실제 응답에 넘기지 않고 들고 있는다.
+//
+//  gzip은 GZIPOutputStream 대신 헤더(10바이트) + 헤더 없는 deflate 데이터 + 트레일러(CRC32, 길이)를 직접 써서
+//  풀에서 꺼낸 Deflater를 그대로 쓸 수 있게 한다.
+class CompressingResponseWrapper extends HttpServletResponseWrapper {
+
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
+
+    private enum Mode { BUFFERING, RAW, COMPRESSING }
+
+    private final CompressionFilter filter;
+    private final String coding;
+    private final CompressingOutputStream outputStream = new CompressingOutputStream();
+    private PrintWriter writer;
+    private long contentLength = -1;
+
+    CompressingResponseWrapper(HttpServletResponse response, CompressionFilter filter, String coding) {
+        super(response);
+        this.filter = filter;
+        this.coding = coding;
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() {
+        return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (writer == null) {
+            writer = new PrintWriter(new OutputStreamWriter(outputStream, getCharacterEncoding()));
+        }
+        return writer;
+    }
+
+    @Override
+    public void setContentLength(int len) {
+        setContentLengthLong(len);
+    }
+
+    @Override
+    public void setContentLengthLong(long len) {
+        if (outputStream.mode == Mode.RAW) {
+            super.setContentLengthLong(len);
+        } else {
+            contentLength = len;
+        }
+    }
+
+//    들고 있는 Content-Length도 헤더로 보이게 한다. (필터가 끝나기 전에 afterCompletion에서 응답 크기를 읽는 쪽이 있다)
+    @Override
+    public boolean containsHeader(String name) {
+        return heldContentLength(name) != null || super.containsHeader(name);
+    }
+
+    @Override
+    public String getHeader(String name) {
+        String held = heldContentLength(name);
+        return held != null ? held : super.getHeader(name);
+    }
+
+    @Override
+    public Collection<String> getHeaders(String name) {
+        String held = heldContentLength(name);
+        return held != null ? Collections.singletonList(held) : super.getHeaders(name);
+    }
+
+    @Override
+    public void setHeader(String name, String value) {
+        if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+            setContentLengthLong(value == null ? -1 : Long.parseLong(value));
+        } else {
+            super.setHeader(name, value);
+        }
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+        if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+            setContentLengthLong(Long.parseLong(value));
+        } else {
+            super.addHeader(name, value);
+        }
+    }
+
+    @Override
+    public void setIntHeader(String name, int value) {
+        if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+            setContentLengthLong(value);
+        } else {
+            super.setIntHeader(name, value);
+        }
+    }
+
+    @Override
+    public void addIntHeader(String name, int value) {
+        if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+            setContentLengthLong(value);
+        } else {
+            super.addIntHeader(name, value);
+        }
+    }
+
+//    아직 압축할지 정하지 않았으면(모은 바이트가 없거나 Content-Length를 아는 경우) 실제 응답을 커밋하지 않는다.
+//    여기서 커밋하면 나중에 압축하기로 했을 때 Content-Encoding을 붙일 수 없다.
+    @Override
+    public void flushBuffer() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+        outputStream.flush();
+        if (outputStream.mode != Mode.BUFFERING) {
+            super.flushBuffer();
+        }
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        outputStream.discard();
+        contentLength = -1;
+    }
+
+    @Override
+    public void resetBuffer() {
+        super.resetBuffer();
+        outputStream.discard();
+    }
+
+    @Override
+    public void sendError(int sc) throws IOException {
+        outputStream.abandon();
+        super.sendError(sc);
+    }
+
+    @Override
+    public void sendError(int sc, String msg) throws IOException {
+        outputStream.abandon();
+        super.sendError(sc, msg);
+    }
+
+    @Override
+    public void sendRedirect(String location) throws IOException {
+        outputStream.abandon();
+        super.sendRedirect(location);
+    }
+
+//    필터 체인이 끝난 뒤에 부른다. 모아둔 바이트를 쓰거나 압축을 마무리한다.
+    void finish() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+        outputStream.finish();
+    }
+
+//    필터가 응답이 끝날 때 항상 부른다. (finish() 없이 예외로 끝났을 때도) 빌린 것이 남아 있으면 돌려준다.
+    void release() {
+        outputStream.releaseDeflater();
+        outputStream.releaseStaging();
+    }
+
+    private String heldContentLength(String name) {
+        if (outputStream.mode == Mode.BUFFERING && contentLength >= 0 && HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+            return Long.toString(contentLength);
+        }
+        return null;
+    }
+
+    private boolean compressible() {
+        int status = getStatus();
+        return coding != null
+                && status >= 200 && status != HttpServletResponse.SC_NO_CONTENT && status != HttpServletResponse.SC_NOT_MODIFIED
+                && !containsHeader(HttpHeaders.CONTENT_ENCODING)
+                && filter.isCompressible(getContentType());
+    }
+
+    private class CompressingOutputStream extends ServletOutputStream {
+
+        private Mode mode = Mode.BUFFERING;
+        private ByteBuffer staging;
+        private int count;
+
+        private ServletOutputStream out;
+        private Deflater deflater;
+        private CRC32 crc;
+        private ByteBuffer deflated;
+        private long bytesIn;
+        private long bytesOut;
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (mode == Mode.BUFFERING) {
+                if (count + len < filter.getThreshold()) {
+                    if (staging == null) {
+                        staging = filter.getBufferPool().acquire();
+                    }
+                    System.arraycopy(b, off, staging.array(), count, len);
+                    count += len;
+                    return;
+                }
+                decide();
+            }
+            if (mode == Mode.RAW) {
+                out.write(b, off, len);
+            } else {
+                deflate(b, off, len);
+            }
+        }
+
+//        바디 전체를 모으기 전에 내보내야 하는 경우(스트리밍 응답)는 크기와 상관없이 지금 정한다.
+//        Content-Length를 알고 있으면 finish()에서 정하면 되므로 기다린다.
+        @Override
+        public void flush() throws IOException {
+            if (mode == Mode.BUFFERING) {
+                if (count == 0 || contentLength >= 0) {
+                    return;
+                }
+                decide();
+            }
+            if (mode == Mode.COMPRESSING) {
+                drain(Deflater.SYNC_FLUSH);
+            }
+            out.flush();
+        }
+
+        @Override
+        public boolean isReady() {
+            return mode != Mode.RAW || out.isReady();
+        }
+
+//        논블로킹 쓰기(WriteListener)는 압축하지 않고 실제 응답 스트림에 그대로 맡긴다.
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            try {
+                if (mode == Mode.BUFFERING) {
+                    raw();
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            out.setWriteListener(writeListener);
+        }
+
+        private void decide() throws IOException {
+            if (filter.isCompressible(getContentType()) && !containsHeader(HttpHeaders.VARY)) {
+                CompressingResponseWrapper.super.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            }
+            if (compressible()) {
+                compress();
+            } else {
+                raw();
+            }
+        }
+
+        private void raw() throws IOException {
+            mode = Mode.RAW;
+            if (contentLength >= 0) {
+                CompressingResponseWrapper.super.setContentLengthLong(contentLength);
+            }
+            out = CompressingResponseWrapper.super.getOutputStream();
+            if (count > 0) {
+                out.write(staging.array(), 0, count);
+            }
+            releaseStaging();
+        }
+
+        private void compress() throws IOException {
+            mode = Mode.COMPRESSING;
+            CompressingResponseWrapper.super.setHeader(HttpHeaders.CONTENT_ENCODING, coding);
+            String etag = CompressingResponseWrapper.this.getHeader(HttpHeaders.ETAG);
+            if (etag != null && etag.startsWith("\"")) {
+                CompressingResponseWrapper.super.setHeader(HttpHeaders.ETAG, "W/" + etag);
+            }
+            out = CompressingResponseWrapper.super.getOutputStream();
+            boolean gzip = CompressionFilter.GZIP.equals(coding);
+            deflater = filter.deflaterPool(gzip).acquire();
+            deflated = filter.getBufferPool().acquire();
+            if (gzip) {
+                crc = new CRC32();
+                out.write(GZIP_HEADER);
+                bytesOut += GZIP_HEADER.length;
+            }
+            if (count > 0) {
+                deflate(staging.array(), 0, count);
+            }
+            releaseStaging();
+        }
+
+        private void deflate(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return;
+            }
+            bytesIn += len;
+            if (crc != null) {
+                crc.update(b, off, len);
+            }
+            deflater.setInput(b, off, len);
+            while (!deflater.needsInput()) {
+                int n = deflater.deflate(deflated.array(), 0, deflated.capacity(), Deflater.NO_FLUSH);
+                out.write(deflated.array(), 0, n);
+                bytesOut += n;
+            }
+        }
+
+        private void drain(int flush) throws IOException {
+            int n;
+            do {
+                n = deflater.deflate(deflated.array(), 0, deflated.capacity(), flush);
+                out.write(deflated.array(), 0, n);
+                bytesOut += n;
+            } while (n == deflated.capacity());
+        }
+
+        void finish() throws IOException {
+            if (mode == Mode.BUFFERING) {
+                if (count > 0) {
+                    contentLength = count;
+                }
+                raw();
+                return;
+            }
+            if (mode == Mode.COMPRESSING) {
+                try {
+                    deflater.finish();
+                    while (!deflater.finished()) {
+                        int n = deflater.deflate(deflated.array(), 0, deflated.capacity());
+                        out.write(deflated.array(), 0, n);
+                        bytesOut += n;
+                    }
+                    if (crc != null) {
+                        writeIntLE((int) crc.getValue());
+                        writeIntLE((int) bytesIn);
+                        bytesOut += 8;
+                    }
+                } finally {
+                    filter.recordCompressed(bytesIn, bytesOut);
+                    releaseDeflater();
+                    mode = Mode.RAW;
+                }
+            }
+        }
+
+//        reset()이 성공했다면 아직 아무것도 커밋되지 않은 것이므로 처음부터 다시 모은다.
+        void discard() {
+            releaseDeflater();
+            count = 0;
+            mode = Mode.BUFFERING;
+        }
+
+//        sendError(), sendRedirect() 뒤에는 컨테이너가 응답을 쓰므로 모아둔 것을 버리고 그대로 넘긴다.
+        void abandon() throws IOException {
+            releaseDeflater();
+            count = 0;
+            releaseStaging();
+            contentLength = -1;
+            mode = Mode.RAW;
+            out = CompressingResponseWrapper.super.getOutputStream();
+        }
+
+        private void releaseDeflater() {
+            if (deflater != null) {
+                filter.deflaterPool(crc != null).release(deflater);
+                filter.getBufferPool().release(deflated);
+                deflater = null;
+                crc = null;
+                bytesIn = 0;
+                bytesOut = 0;
+            }
+        }
+
+        private void releaseStaging() {
+            if (staging != null) {
+                filter.getBufferPool().release(staging);
+                staging = null;
+            }
+        }
+
+        private void writeIntLE(int value) throws IOException {
+            out.write(value & 0xff);
+            out.write((value >>> 8) & 0xff);
+            out.write((value >>> 16) & 0xff);
+            out.write((value >>> 24) & 0xff);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package hello.springmvc.web.compress;
+
+import hello.springmvc.web.io.BufferPool;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.http.MediaType;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+//  응답 압축 설정
+//  톰캣의 server.compression은 응답마다 GZIPOutputStream(= new Deflater)을 만들고 deflate는 지원하지 않아서 쓰지 않는다.
+//  (server.compression.enabled는 꺼둔 상태로 두어야 두번 압축하지 않는다)
+@Configuration
+@ConditionalOnProperty(name = "hello.compression.enabled", havingValue = "true")
+public class CompressionConfig {
+
+    @Bean
+    public CompressionFilter compressionFilter(BufferPool bufferPool,
+                                               @Value("${hello.compression.min-response-size:1024}") int threshold,
+                                               @Value("${hello.compression.level:6}") int level,
+                                               @Value("${hello.compression.max-pooled-deflaters:64}") int maxPooledDeflaters,
+                                               @Value("${hello.compression.mime-types:application/json,text/html}") String[] mimeTypes) {
+        return new CompressionFilter(bufferPool, threshold, level, maxPooledDeflaters,
+                Arrays.stream(mimeTypes).map(MediaType::parseMediaType).collect(Collectors.toList()));
+    }
+
+//    인코딩 필터(CharacterEncodingFilter)보다는 뒤, 나머지 필터보다는 앞
+    @Bean
+    public FilterRegistrationBean<CompressionFilter> compressionFilterRegistration(CompressionFilter compressionFilter) {
+        FilterRegistrationBean<CompressionFilter> registration = new FilterRegistrationBean<>(compressionFilter);
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+}
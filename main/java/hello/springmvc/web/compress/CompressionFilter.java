@@ -0,0 +1,134 @@
+package hello.springmvc.web.compress;
+
+import hello.springmvc.web.http.AcceptEncoding;
+import hello.springmvc.web.io.BufferPool;
+import hello.springmvc.web.metrics.MetricsSource;
+import hello.springmvc.web.metrics.PrometheusWriter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.WebUtils;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+//  JSON, HTML 같은 응답을 Accept-Encoding에 따라 gzip(우선) 또는 deflate로 압축한다.
+//  threshold 바이트보다 작은 응답, HEAD, 이미 Content-Encoding이 있는 응답(정적 리소스의 .gz/.br 등)은 압축하지 않는다.
+//  Deflater와 버퍼는 풀(DeflaterPool, BufferPool)에서 빌려 쓰고 응답이 끝나면 돌려준다.
+//
+//  비동기 요청은 ShallowEtagHeaderFilter처럼 마지막 ASYNC 디스패치가 끝났을 때 마무리한다.
+public class CompressionFilter extends OncePerRequestFilter implements MetricsSource {
+
+    static final String GZIP = "gzip";
+    static final String DEFLATE = "deflate";
+
+    private final BufferPool bufferPool;
+    private final DeflaterPool gzipDeflaters;
+    private final DeflaterPool zlibDeflaters;
+    private final int threshold;
+    private final List<MediaType> mimeTypes;
+
+    private final LongAdder compressedResponses = new LongAdder();
+    private final LongAdder bytesIn = new LongAdder();
+    private final LongAdder bytesOut = new LongAdder();
+
+    public CompressionFilter(BufferPool bufferPool, int threshold, int level, int maxPooledDeflaters, List<MediaType> mimeTypes) {
+        this.bufferPool = bufferPool;
+        this.threshold = Math.min(threshold, bufferPool.getBufferSize());
+        this.gzipDeflaters = new DeflaterPool(level, true, maxPooledDeflaters);
+        this.zlibDeflaters = new DeflaterPool(level, false, maxPooledDeflaters);
+        this.mimeTypes = mimeTypes;
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        CompressingResponseWrapper wrapper = WebUtils.getNativeResponse(response, CompressingResponseWrapper.class);
+        if (wrapper == null) {
+            String coding = "HEAD".equals(request.getMethod()) ? null : coding(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+            if (coding == null) {
+                filterChain.doFilter(request, response);
+                return;
+            }
+            wrapper = new CompressingResponseWrapper(response, this, coding);
+        }
+//        핸들러나 finish()에서 예외가 나도 빌린 Deflater와 버퍼는 돌려준다. (비동기면 마지막 디스패치에서)
+        try {
+            filterChain.doFilter(request, wrapper);
+            if (!request.isAsyncStarted()) {
+                wrapper.finish();
+            }
+        } finally {
+            if (!request.isAsyncStarted()) {
+                wrapper.release();
+            }
+        }
+    }
+
+    private static String coding(String acceptEncoding) {
+        if (AcceptEncoding.accepts(acceptEncoding, GZIP)) {
+            return GZIP;
+        }
+        if (AcceptEncoding.accepts(acceptEncoding, DEFLATE)) {
+            return DEFLATE;
+        }
+        return null;
+    }
+
+    boolean isCompressible(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        MediaType mediaType;
+        try {
+            mediaType = MediaType.parseMediaType(contentType);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        for (MediaType mimeType : mimeTypes) {
+            if (mimeType.includes(mediaType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    DeflaterPool deflaterPool(boolean gzip) {
+        return gzip ? gzipDeflaters : zlibDeflaters;
+    }
+
+    BufferPool getBufferPool() {
+        return bufferPool;
+    }
+
+    int getThreshold() {
+        return threshold;
+    }
+
+    void recordCompressed(long in, long out) {
+        compressedResponses.increment();
+        bytesIn.add(in);
+        bytesOut.add(out);
+    }
+
+    @Override
+    public void collect(PrometheusWriter writer) {
+        writer.counter("hello_compression_responses_total", "Responses sent with gzip or deflate", compressedResponses.sum())
+                .counter("hello_compression_bytes_in_total", "Body bytes before compression", bytesIn.sum())
+                .counter("hello_compression_bytes_out_total", "Body bytes after compression", bytesOut.sum())
+                .counter("hello_compression_deflaters_created_total", "Deflaters created because the pool was empty",
+                        gzipDeflaters.getCreated() + zlibDeflaters.getCreated())
+                .counter("hello_compression_deflaters_reused_total", "Deflaters taken from the pool",
+                        gzipDeflaters.getReused() + zlibDeflaters.getReused());
+    }
+}
@@ -0,0 +1,69 @@
+package hello.springmvc.web.compress;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.Deflater;
+
+//  Deflater 재사용
+//  Deflater는 만들 때 네이티브 zlib 메모리(수백 KB)를 잡고 end()를 부르거나 GC가 돌 때까지 놓지 않는다.
+//  응답마다 new Deflater()를 하면 그 비용이 매번 들기 때문에 다 쓴 것은 reset()해서 다음 응답에 다시 쓴다.
+//  BufferPool과 같은 방식으로 CPU 코어 수만큼 구역을 나누고 칸은 CAS로 비우고 채운다.
+//
+//  nowrap=true  : 헤더 없는 deflate 데이터 (gzip 헤더/트레일러는 CompressingResponseWrapper가 직접 쓴다)
+//  nowrap=false : zlib 형식 (HTTP의 Content-Encoding: deflate)
+public class DeflaterPool {
+
+    private final int level;
+    private final boolean nowrap;
+    private final int stripes;
+    private final int slotsPerStripe;
+    private final AtomicReferenceArray<Deflater> slots;
+
+    private final LongAdder created = new LongAdder();
+    private final LongAdder reused = new LongAdder();
+
+    public DeflaterPool(int level, boolean nowrap, int maxPooled) {
+        this.level = level;
+        this.nowrap = nowrap;
+        this.stripes = Runtime.getRuntime().availableProcessors();
+        this.slotsPerStripe = Math.max(1, maxPooled / stripes);
+        this.slots = new AtomicReferenceArray<>(stripes * slotsPerStripe);
+    }
+
+    public Deflater acquire() {
+        int base = stripe() * slotsPerStripe;
+        for (int i = 0; i < slotsPerStripe; i++) {
+            Deflater deflater = slots.get(base + i);
+            if (deflater != null && slots.compareAndSet(base + i, deflater, null)) {
+                reused.increment();
+                return deflater;
+            }
+        }
+        created.increment();
+        return new Deflater(level, nowrap);
+    }
+
+//    구역이 꽉 차 있으면 네이티브 메모리를 바로 돌려준다.
+    public void release(Deflater deflater) {
+        deflater.reset();
+        int base = stripe() * slotsPerStripe;
+        for (int i = 0; i < slotsPerStripe; i++) {
+            if (slots.get(base + i) == null && slots.compareAndSet(base + i, null, deflater)) {
+                return;
+            }
+        }
+        deflater.end();
+    }
+
+    public long getCreated() {
+        return created.sum();
+    }
+
+    public long getReused() {
+        return reused.sum();
+    }
+
+    private int stripe() {
+        return (int) (Thread.currentThread().getId() % stripes);
+    }
+}
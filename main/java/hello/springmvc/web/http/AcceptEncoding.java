@@ -0,0 +1,41 @@
+package hello.springmvc.web.http;
+
+//  Accept-Encoding 요청 헤더 해석
+//  ex) Accept-Encoding: gzip, deflate;q=0.5, br;q=0
+//      -> gzip O, deflate O, br X (q=0 은 받지 않겠다는 뜻)
+public final class AcceptEncoding {
+
+    private AcceptEncoding() {
+    }
+
+    public static boolean accepts(String header, String coding) {
+        if (header == null || header.isEmpty()) {
+            return false;
+        }
+        boolean wildcard = false;
+        int start = 0;
+        while (start < header.length()) {
+            int end = header.indexOf(',', start);
+            if (end < 0) {
+                end = header.length();
+            }
+            int semicolon = header.indexOf(';', start);
+            int nameEnd = semicolon >= 0 && semicolon < end ? semicolon : end;
+            String name = header.substring(start, nameEnd).trim();
+            boolean zero = nameEnd < end && isZeroQuality(header.substring(nameEnd + 1, end));
+            if (name.equalsIgnoreCase(coding)) {
+                return !zero;
+            }
+            if (name.equals("*")) {
+                wildcard = !zero;
+            }
+            start = end + 1;
+        }
+        return wildcard;
+    }
+
+    private static boolean isZeroQuality(String params) {
+        String p = params.replace(" ", "");
+        return p.startsWith("q=0") && p.substring(3).replace(".", "").replace("0", "").isEmpty();
+    }
+}
@@ -0,0 +1,144 @@
+package hello.springmvc.web.http;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Locale;
+
+//  요청 헤더를 필요한 것만 그때그때 읽는 핸들러 파라미터 타입 (LazyHeadersArgumentResolver)
+//  @RequestHeader MultiValueMap 처럼 모든 헤더를 새 맵에 복사하거나 @CookieValue 처럼 쿠키를 전부 Cookie[]로 만들지 않는다.
+//  - get(name)          : request.getHeader(name) 그대로
+//  - getLocale()        : 처음 한번 Accept-Language를 해석하고 저장
+//  - getCookie(name)    : Cookie 헤더에서 그 이름만 찾아서 저장 (다른 쿠키는 만들지 않는다)
+//  - toMultiValueMap()  : 정말 전부 필요할 때만 (처음 한번 만들고 저장)
+//  요청 하나 안에서만 쓴다. (스레드 안전하지 않음)
+public class LazyHeaders {
+
+    private static final String NONE = new String("");
+
+    private final HttpServletRequest request;
+    private HttpMethod method;
+    private Locale locale;
+    private List<Locale.LanguageRange> languageRanges;
+    private String[] cookieNames;
+    private String[] cookieValues;
+    private int cookieCount;
+    private MultiValueMap<String, String> all;
+
+    public LazyHeaders(HttpServletRequest request) {
+        this.request = request;
+    }
+
+    public String get(String name) {
+        return request.getHeader(name);
+    }
+
+    public List<String> getAll(String name) {
+        Enumeration<String> values = request.getHeaders(name);
+        return values == null ? Collections.emptyList() : Collections.list(values);
+    }
+
+    public HttpMethod getMethod() {
+        if (method == null) {
+            method = HttpMethod.resolve(request.getMethod());
+        }
+        return method;
+    }
+
+    public String getHost() {
+        return request.getHeader(HttpHeaders.HOST);
+    }
+
+//    Locale 파라미터와 같은 값 (Accept-Language가 없으면 서버 기본 Locale)
+    public Locale getLocale() {
+        if (locale == null) {
+            locale = request.getLocale();
+        }
+        return locale;
+    }
+
+//    Accept-Language 전체 (q 값 순서). 없으면 빈 리스트
+    public List<Locale.LanguageRange> getLanguageRanges() {
+        if (languageRanges == null) {
+            String header = request.getHeader(HttpHeaders.ACCEPT_LANGUAGE);
+            languageRanges = header == null || header.isEmpty() ? Collections.emptyList() : Locale.LanguageRange.parse(header);
+        }
+        return languageRanges;
+    }
+
+    public String getCookie(String name) {
+        for (int i = 0; i < cookieCount; i++) {
+            if (cookieNames[i].equals(name)) {
+                return cookieValues[i] == NONE ? null : cookieValues[i];
+            }
+        }
+        String value = findCookie(name);
+        if (cookieNames == null) {
+            cookieNames = new String[4];
+            cookieValues = new String[4];
+        } else if (cookieCount == cookieNames.length) {
+            cookieNames = Arrays.copyOf(cookieNames, cookieCount * 2);
+            cookieValues = Arrays.copyOf(cookieValues, cookieCount * 2);
+        }
+        cookieNames[cookieCount] = name;
+        cookieValues[cookieCount++] = value == null ? NONE : value;
+        return value;
+    }
+
+    public MultiValueMap<String, String> toMultiValueMap() {
+        if (all == null) {
+            all = new LinkedMultiValueMap<>();
+            Enumeration<String> names = request.getHeaderNames();
+            while (names.hasMoreElements()) {
+                String name = names.nextElement();
+                all.put(name, getAll(name));
+            }
+        }
+        return all;
+    }
+
+//    Cookie: a=1; myCookie=hello; b="2"
+    private String findCookie(String name) {
+        Enumeration<String> headers = request.getHeaders(HttpHeaders.COOKIE);
+        while (headers != null && headers.hasMoreElements()) {
+            String header = headers.nextElement();
+            int start = 0;
+            while (start < header.length()) {
+                int end = header.indexOf(';', start);
+                if (end < 0) {
+                    end = header.length();
+                }
+                int eq = header.indexOf('=', start);
+                if (eq > 0 && eq < end && matches(header, start, eq, name)) {
+                    return unquote(header.substring(eq + 1, end).trim());
+                }
+                start = end + 1;
+            }
+        }
+        return null;
+    }
+
+    private static boolean matches(String header, int start, int end, String name) {
+        while (start < end && header.charAt(start) == ' ') {
+            start++;
+        }
+        while (end > start && header.charAt(end - 1) == ' ') {
+            end--;
+        }
+        return end - start == name.length() && header.regionMatches(start, name, 0, name.length());
+    }
+
+    private static String unquote(String value) {
+        if (value.length() >= 2 && value.charAt(0) == '"' && value.charAt(value.length() - 1) == '"') {
+            return value.substring(1, value.length() - 1);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,81 @@
+package hello.springmvc.web.io;
+
+import hello.springmvc.web.metrics.MetricsSource;
+import hello.springmvc.web.metrics.PrometheusWriter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+//  요청 바디를 읽을 때 쓰는 ByteBuffer를 재사용한다.
+//  요청마다 새 버퍼를 만들지 않고 다 쓴 버퍼는 release()로 돌려받아서 다음 요청에 다시 준다.
+//
+//  여러 스레드가 한 곳에서 버퍼를 꺼내고 넣으면 서로 경합하기 때문에 CPU 코어 수만큼 구역(stripe)을 나누고
+//  스레드마다 자기 구역을 먼저 쓴다. 구역 안의 칸은 CAS로 비우고 채우기 때문에 락이 없다.
+//  서블릿 InputStream은 byte[]로만 읽을 수 있어서 direct 버퍼를 쓰면 한번 더 복사해야 하므로 heap 버퍼를 쓴다.
+@Component
+public class BufferPool implements MetricsSource {
+
+    private final int bufferSize;
+    private final int stripes;
+    private final int slotsPerStripe;
+    private final AtomicReferenceArray<ByteBuffer> slots;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder bytesInFlight = new LongAdder();
+
+    public BufferPool(@Value("${hello.io.buffer-size:8192}") int bufferSize,
+                      @Value("${hello.io.max-pooled-buffers:1024}") int maxPooled) {
+        this.bufferSize = bufferSize;
+        this.stripes = Runtime.getRuntime().availableProcessors();
+        this.slotsPerStripe = Math.max(1, maxPooled / stripes);
+        this.slots = new AtomicReferenceArray<>(stripes * slotsPerStripe);
+    }
+
+    public ByteBuffer acquire() {
+        bytesInFlight.add(bufferSize);
+        int base = stripe() * slotsPerStripe;
+        for (int i = 0; i < slotsPerStripe; i++) {
+            ByteBuffer buffer = slots.get(base + i);
+            if (buffer != null && slots.compareAndSet(base + i, buffer, null)) {
+                hits.increment();
+                buffer.clear();
+                return buffer;
+            }
+        }
+        misses.increment();
+        return ByteBuffer.allocate(bufferSize);
+    }
+
+//    구역이 꽉 차 있으면 버퍼를 버린다.(GC가 회수)
+    public void release(ByteBuffer buffer) {
+        if (buffer.capacity() != bufferSize) {
+            return;
+        }
+        bytesInFlight.add(-bufferSize);
+        int base = stripe() * slotsPerStripe;
+        for (int i = 0; i < slotsPerStripe; i++) {
+            if (slots.get(base + i) == null && slots.compareAndSet(base + i, null, buffer)) {
+                return;
+            }
+        }
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    @Override
+    public void collect(PrometheusWriter writer) {
+        writer.counter("hello_buffer_pool_hits_total", "Buffers served from the pool", hits.sum())
+                .counter("hello_buffer_pool_misses_total", "Buffers allocated because the pool stripe was empty", misses.sum())
+                .gauge("hello_buffer_pool_bytes_in_flight", "Bytes of pooled buffers currently borrowed", bytesInFlight.sum());
+    }
+
+    private int stripe() {
+        return (int) (Thread.currentThread().getId() % stripes);
+    }
+}
@@ -0,0 +1,55 @@
+package hello.springmvc.web.io;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+//  maxBytes 보다 많이 읽히면 PayloadTooLargeException(413)을 던진다. (Content-Length가 없는 chunked 바디)
+//  JSON 파서처럼 스트림을 직접 읽는 쪽에 넘긴다. 파서가 예외를 감싸도 원인(cause)의 @ResponseStatus로 413이 된다.
+class LimitedInputStream extends FilterInputStream {
+
+    private final long maxBytes;
+    private long read;
+
+    LimitedInputStream(InputStream in, long maxBytes) {
+        super(in);
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b >= 0) {
+            count(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+        if (n > 0) {
+            count(n);
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        count(skipped);
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    private void count(long n) {
+        read += n;
+        if (read > maxBytes) {
+            throw new PayloadTooLargeException(maxBytes);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package hello.springmvc.web.io;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.PAYLOAD_TOO_LARGE)
+public class PayloadTooLargeException extends RuntimeException {
+
+    public PayloadTooLargeException(long maxBodySize) {
+        super("request body is larger than " + maxBodySize + " bytes");
+    }
+}
@@ -0,0 +1,88 @@
+package hello.springmvc.web.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+//  BufferPool에서 빌린 버퍼 여러개에 나눠 담긴 요청 바디
+//  다 쓰면 반드시 release()로 버퍼를 돌려줘야 한다.
+public class PooledBody {
+
+//    버퍼 경계에서 잘린 UTF-8 문자(최대 3바이트)를 다음 버퍼 앞쪽에 붙이기 위해 비워두는 공간
+    static final int HEADROOM = 4;
+
+    private final BufferPool pool;
+    private final List<ByteBuffer> buffers = new ArrayList<>(4);
+    private long size;
+
+    public PooledBody(BufferPool pool) {
+        this.pool = pool;
+    }
+
+//    InputStream에서 한번 읽어서 버퍼에 담는다. 읽은 바이트 수, 끝이면 -1
+    public int readFrom(InputStream in) throws IOException {
+        ByteBuffer buffer = writable();
+        int n = in.read(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        if (n > 0) {
+            buffer.position(buffer.position() + n);
+            size += n;
+        }
+        return n;
+    }
+
+    public long size() {
+        return size;
+    }
+
+//    버퍼들을 하나의 byte[]로 합치지 않고 버퍼에서 바로 문자로 바꾼다. (버퍼 위치가 바뀌기 때문에 한번만 호출한다)
+    public String decodeUtf8() {
+        if (size == 0) {
+            return "";
+        }
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        CharBuffer chars = CharBuffer.allocate((int) size);
+        ByteBuffer previous = null;
+        for (int i = 0; i < buffers.size(); i++) {
+            ByteBuffer buffer = buffers.get(i);
+            int end = buffer.position();
+            int start = HEADROOM;
+            if (previous != null && previous.hasRemaining()) {
+                int carry = previous.remaining();
+                start -= carry;
+                for (int j = 0; j < carry; j++) {
+                    buffer.put(start + j, previous.get(previous.position() + j));
+                }
+            }
+            buffer.limit(end).position(start);
+            decoder.decode(buffer, chars, i == buffers.size() - 1);
+            previous = buffer;
+        }
+        decoder.flush(chars);
+        chars.flip();
+        return chars.toString();
+    }
+
+    public void release() {
+        buffers.forEach(pool::release);
+        buffers.clear();
+        size = 0;
+    }
+
+    private ByteBuffer writable() {
+        ByteBuffer last = buffers.isEmpty() ? null : buffers.get(buffers.size() - 1);
+        if (last == null || !last.hasRemaining()) {
+            last = pool.acquire();
+            last.position(HEADROOM);
+            buffers.add(last);
+        }
+        return last;
+    }
+}
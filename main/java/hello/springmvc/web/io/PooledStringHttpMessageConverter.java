@@ -0,0 +1,33 @@
+package hello.springmvc.web.io;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.StringHttpMessageConverter;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+//  @RequestBody String, HttpEntity<String> 도 RequestBodyReader로 읽게 하는 StringHttpMessageConverter
+//  UTF-8이 아닌 charset으로 온 바디는 크기만 확인하고 원래 방식으로 읽는다.
+public class PooledStringHttpMessageConverter extends StringHttpMessageConverter {
+
+    private final RequestBodyReader requestBodyReader;
+
+    public PooledStringHttpMessageConverter(RequestBodyReader requestBodyReader) {
+        super(StandardCharsets.UTF_8);
+        this.requestBodyReader = requestBodyReader;
+        setWriteAcceptCharset(false);
+    }
+
+    @Override
+    protected String readInternal(Class<? extends String> clazz, HttpInputMessage inputMessage) throws IOException {
+        requestBodyReader.checkContentLength(inputMessage.getHeaders().getContentLength());
+        MediaType contentType = inputMessage.getHeaders().getContentType();
+        Charset charset = contentType != null && contentType.getCharset() != null ? contentType.getCharset() : getDefaultCharset();
+        if (!StandardCharsets.UTF_8.equals(charset)) {
+            return super.readInternal(clazz, inputMessage);
+        }
+        return requestBodyReader.readUtf8(inputMessage.getBody());
+    }
+}
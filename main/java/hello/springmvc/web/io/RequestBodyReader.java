@@ -0,0 +1,61 @@
+package hello.springmvc.web.io;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.InputStream;
+
+//  StreamUtils.copyToString(inputStream, UTF_8) 대신 쓰는 바디 읽기
+//  - BufferPool의 버퍼에 읽고 버퍼에서 바로 UTF-8 문자열로 바꾼다.
+//  - hello.io.max-body-size 보다 크면 413(Payload Too Large)
+//    Content-Length 헤더가 있으면 읽기 전에 바로 거절하고, 없으면(chunked) 읽다가 넘는 순간 거절한다.
+@Component
+public class RequestBodyReader {
+
+    private final BufferPool bufferPool;
+    private final long maxBodySize;
+
+    public RequestBodyReader(BufferPool bufferPool, @Value("${hello.io.max-body-size:1048576}") long maxBodySize) {
+        this.bufferPool = bufferPool;
+        this.maxBodySize = maxBodySize;
+    }
+
+    public String readUtf8(HttpServletRequest request) throws IOException {
+        checkContentLength(request.getContentLengthLong());
+        return readUtf8(request.getInputStream());
+    }
+
+    public String readUtf8(InputStream inputStream) throws IOException {
+        PooledBody body = new PooledBody(bufferPool);
+        try {
+            while (body.readFrom(inputStream) >= 0) {
+                checkSize(body.size());
+            }
+            return body.decodeUtf8();
+        } finally {
+            body.release();
+        }
+    }
+
+//    바디를 직접 읽는 핸들러(JSON 스트림 파싱 등)가 쓴다. Content-Length가 크면 바로 413, 없으면 읽다가 넘는 순간 413
+    public InputStream limit(HttpServletRequest request) throws IOException {
+        checkContentLength(request.getContentLengthLong());
+        return new LimitedInputStream(request.getInputStream(), maxBodySize);
+    }
+
+    public void checkContentLength(long contentLength) {
+        checkSize(contentLength);
+    }
+
+    public void checkSize(long size) {
+        if (size > maxBodySize) {
+            throw new PayloadTooLargeException(maxBodySize);
+        }
+    }
+
+    public BufferPool getBufferPool() {
+        return bufferPool;
+    }
+}
@@ -0,0 +1,43 @@
+package hello.springmvc.web.json;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+//  JSON과 같은 데이터를 바이너리로 주고받는 컨버터 (서비스 간 호출용)
+//  Content-Type / Accept 가
+//  - application/x-jackson-smile : Smile (jackson-dataformat-smile)
+//  - application/cbor             : CBOR  (jackson-dataformat-cbor)
+//  이면 이 컨버터가 선택되고 Accept가 없거나 application/json이면 지금처럼 JSON이다.
+//
+//  스프링 MVC도 라이브러리가 있으면 이 컨버터들을 기본으로 넣지만 그때는 부트 설정(spring.jackson.*, JsonConfig의 모듈)이
+//  적용되지 않은 ObjectMapper를 쓴다. 부트의 Jackson2ObjectMapperBuilder(프로토타입 빈이라 주입마다 새것)로 만든 빈을 등록하면 기본 것 대신 이것을 쓴다.
+//  builder.smile() / builder.cbor() 는 static 메서드라 주입받은 설정을 버린 새 빌더를 돌려준다. factory()로 바꿔 끼운다.
+@Configuration
+public class BinaryJsonConfig {
+
+    @Configuration
+    @ConditionalOnClass(name = "com.fasterxml.jackson.dataformat.smile.SmileFactory")
+    static class SmileConfig {
+
+        @Bean
+        public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+            return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+        }
+    }
+
+    @Configuration
+    @ConditionalOnClass(name = "com.fasterxml.jackson.dataformat.cbor.CBORFactory")
+    static class CborConfig {
+
+        @Bean
+        public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+            return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+        }
+    }
+}
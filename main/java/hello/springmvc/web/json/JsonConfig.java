@@ -0,0 +1,38 @@
+package hello.springmvc.web.json;
+
+import com.fasterxml.jackson.databind.Module;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.ClassUtils;
+
+//  스프링 부트가 만드는 ObjectMapper(= HTTP 메시지 컨버터, JsonMappers가 같이 쓰는 것)에 설정을 추가한다.
+@Slf4j
+@Configuration
+public class JsonConfig {
+
+    private static final String[] BYTECODE_MODULES = {
+            "com.fasterxml.jackson.module.blackbird.BlackbirdModule",
+            "com.fasterxml.jackson.module.afterburner.AfterburnerModule"
+    };
+
+//    hello.json.blackbird.enabled=true 이고 jackson-module-blackbird(또는 afterburner)가 클래스패스에 있으면
+//    getter/setter 리플렉션 호출을 생성된 코드로 바꿔주는 모듈을 등록한다.
+    @Bean
+    @ConditionalOnProperty(name = "hello.json.blackbird.enabled", havingValue = "true")
+    public Jackson2ObjectMapperBuilderCustomizer bytecodeModuleCustomizer() {
+        return builder -> {
+            for (String className : BYTECODE_MODULES) {
+                if (ClassUtils.isPresent(className, getClass().getClassLoader())) {
+                    log.info("jackson module={}", className);
+                    builder.modulesToInstall((Module) BeanUtils.instantiateClass(ClassUtils.resolveClassName(className, getClass().getClassLoader())));
+                    return;
+                }
+            }
+            log.warn("hello.json.blackbird.enabled=true but no blackbird/afterburner module on classpath");
+        };
+    }
+}
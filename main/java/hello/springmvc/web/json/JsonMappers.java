@@ -0,0 +1,39 @@
+package hello.springmvc.web.json;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import hello.springmvc.basic.HelloData;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+//  스프링이 MappingJackson2HttpMessageConverter에 넣어주는 ObjectMapper를 그대로 같이 쓴다.
+//  컨트롤러마다 new ObjectMapper()를 하면 serializer/deserializer 캐시가 따로 만들어지고 설정(JsonConfig)도 적용되지 않는다.
+//  ObjectReader, ObjectWriter는 불변이라 여러 스레드가 같이 써도 되기 때문에 타입별로 한번만 만들어서 재사용한다.
+@Component
+public class JsonMappers {
+
+    private final ObjectMapper objectMapper;
+    private final ConcurrentMap<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+    public JsonMappers(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        reader(HelloData.class);
+        writer(HelloData.class);
+    }
+
+    public ObjectMapper objectMapper() {
+        return objectMapper;
+    }
+
+    public ObjectReader reader(Class<?> type) {
+        return readers.computeIfAbsent(type, objectMapper::readerFor);
+    }
+
+    public ObjectWriter writer(Class<?> type) {
+        return writers.computeIfAbsent(type, objectMapper::writerFor);
+    }
+}
@@ -0,0 +1,52 @@
+package hello.springmvc.web.json;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Consumer;
+
+//  요청 메시지 바디를 String으로 통째로 복사하지 않고 InputStream에서 바로 JsonParser로 읽어서 객체로 변환한다.
+//  StreamUtils.copyToString() -> objectMapper.readValue(String) 처럼 바디 크기만큼의 byte[], char[], String을
+//  한번 더 만들지 않기 때문에 바디가 클수록 요청당 힙 사용량이 줄어든다.
+@Component
+public class JsonStreamReader {
+
+    private final JsonMappers jsonMappers;
+    private final JsonFactory jsonFactory;
+
+    public JsonStreamReader(JsonMappers jsonMappers) {
+        this.jsonMappers = jsonMappers;
+        this.jsonFactory = jsonMappers.objectMapper().getFactory();
+    }
+
+    public <T> T read(InputStream inputStream, Class<T> type) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(inputStream)) {
+            return jsonMappers.reader(type).readValue(parser);
+        }
+    }
+
+//    [{...}, {...}] 처럼 배열로 오거나 {...}\n{...} 처럼 줄바꿈으로 구분된 JSON(NDJSON)이 오면
+//    원소를 하나씩 읽는 즉시 action에 넘긴다. 배열 전체를 List로 만들지 않기 때문에 원소 수와 상관없이 메모리가 일정하다.
+    public <T> long readEach(InputStream inputStream, Class<T> type, Consumer<? super T> action) throws IOException {
+        ObjectReader reader = jsonMappers.reader(type);
+        long count = 0;
+        try (JsonParser parser = jsonFactory.createParser(inputStream)) {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.START_ARRAY) {
+                token = parser.nextToken();
+            }
+            while (token != null && token != JsonToken.END_ARRAY) {
+                T value = reader.readValue(parser);
+                action.accept(value);
+                count++;
+                token = parser.nextToken();
+            }
+        }
+        return count;
+    }
+}
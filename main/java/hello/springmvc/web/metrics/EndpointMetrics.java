@@ -0,0 +1,96 @@
+package hello.springmvc.web.metrics;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+//  핸들러(URL 패턴 + HTTP 메서드)별 응답 시간, 요청 수, 바이트 수
+//  키를 "GET /mapping/{userId}" 처럼 문자열로 이어 붙이면 요청마다 String이 생기므로
+//  패턴 -> 메서드별 배열 두 단계로 찾는다. 패턴 수는 @RequestMapping 수만큼이라 맵이 계속 커지지 않는다.
+@Component
+public class EndpointMetrics implements MetricsSource {
+
+    private static final HttpMethod[] METHODS = HttpMethod.values();
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+    private static final String[] QUANTILE_LABELS = {"0.5", "0.9", "0.99", "0.999"};
+
+    private final Map<String, AtomicReferenceArray<Stats>> patterns = new ConcurrentHashMap<>();
+
+    public void record(String method, String pattern, int status, boolean failed,
+                       long elapsedNanos, long bytesIn, long bytesOut) {
+        HttpMethod httpMethod = HttpMethod.resolve(method);
+        if (httpMethod == null || pattern == null) {
+            return;
+        }
+        Stats stats = stats(pattern, httpMethod);
+        stats.latency.recordNanos(elapsedNanos);
+        if (bytesIn > 0) {
+            stats.bytesIn.add(bytesIn);
+        }
+        if (bytesOut > 0) {
+            stats.bytesOut.add(bytesOut);
+        }
+        if (failed || status >= 500) {
+            stats.errors.increment();
+        }
+    }
+
+    private Stats stats(String pattern, HttpMethod method) {
+        AtomicReferenceArray<Stats> byMethod = patterns.get(pattern);
+        if (byMethod == null) {
+            byMethod = patterns.computeIfAbsent(pattern, p -> new AtomicReferenceArray<>(METHODS.length));
+        }
+        Stats stats = byMethod.get(method.ordinal());
+        if (stats == null) {
+            byMethod.compareAndSet(method.ordinal(), null, new Stats());
+            stats = byMethod.get(method.ordinal());
+        }
+        return stats;
+    }
+
+    @Override
+    public void collect(PrometheusWriter writer) {
+        writer.family("hello_http_server_requests_seconds", "summary", "Handler latency by method and URL pattern (since start)");
+        forEach((labels, stats) -> {
+            double[] values = stats.latency.quantileSeconds(QUANTILES);
+            for (int i = 0; i < QUANTILES.length; i++) {
+                writer.sample("hello_http_server_requests_seconds",
+                        labels + ",quantile=\"" + QUANTILE_LABELS[i] + "\"", values[i]);
+            }
+            writer.sample("hello_http_server_requests_seconds_sum", labels, stats.latency.getSumSeconds());
+            writer.sample("hello_http_server_requests_seconds_count", labels, stats.latency.getCount());
+        });
+        writer.family("hello_http_server_errors_total", "counter", "Requests that ended with an exception or a 5xx status");
+        forEach((labels, stats) -> writer.sample("hello_http_server_errors_total", labels, stats.errors.sum()));
+        writer.family("hello_http_server_request_bytes_total", "counter", "Request body bytes (from Content-Length)");
+        forEach((labels, stats) -> writer.sample("hello_http_server_request_bytes_total", labels, stats.bytesIn.sum()));
+        writer.family("hello_http_server_response_bytes_total", "counter", "Response body bytes (from Content-Length; chunked responses are not counted)");
+        forEach((labels, stats) -> writer.sample("hello_http_server_response_bytes_total", labels, stats.bytesOut.sum()));
+    }
+
+    private void forEach(StatsConsumer consumer) {
+        patterns.forEach((pattern, byMethod) -> {
+            for (int i = 0; i < METHODS.length; i++) {
+                Stats stats = byMethod.get(i);
+                if (stats != null) {
+                    consumer.accept(PrometheusWriter.labels("method", METHODS[i].name(), "pattern", pattern), stats);
+                }
+            }
+        });
+    }
+
+    private interface StatsConsumer {
+        void accept(String labels, Stats stats);
+    }
+
+    private static class Stats {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder bytesIn = new LongAdder();
+        private final LongAdder bytesOut = new LongAdder();
+    }
+}
@@ -0,0 +1,103 @@
+package hello.springmvc.web.metrics;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+//  모든 핸들러의 처리 시간을 EndpointMetrics에 기록한다. (WebConfig.addInterceptors 에서 등록)
+//  - 키는 요청 URL이 아니라 매핑된 패턴(/mapping/{userId})이라서 값이 달라도 같은 줄에 쌓인다.
+//  - 비동기 요청은 AsyncListener.onComplete 에서 한번만 기록한다.
+//    Callable, DeferredResult 등은 afterConcurrentHandlingStarted가 불리고, 핸들러가 request.startAsync()를 직접 부르면
+//    afterConcurrentHandlingStarted 대신 핸들러가 돌아올 때 afterCompletion이 불리므로 거기서 isAsyncStarted()를 보고 리스너를 단다.
+//  - 오류 페이지(/error)로 다시 디스패치된 요청은 원래 요청에서 이미 기록했으므로 건너뛴다.
+@Component
+@RequiredArgsConstructor
+public class EndpointMetricsInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String START = EndpointMetricsInterceptor.class.getName() + ".start";
+    private static final String LISTENING = EndpointMetricsInterceptor.class.getName() + ".listening";
+
+    private final EndpointMetrics endpointMetrics;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getDispatcherType() == DispatcherType.REQUEST) {
+            request.setAttribute(START, System.nanoTime());
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (request.getDispatcherType() != DispatcherType.REQUEST) {
+            return;
+        }
+        if (request.isAsyncStarted()) {
+            recordOnComplete(request, response);
+        } else {
+            record(request, response, ex != null);
+        }
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getDispatcherType() == DispatcherType.REQUEST) {
+            recordOnComplete(request, response);
+        }
+    }
+
+    private void recordOnComplete(HttpServletRequest request, HttpServletResponse response) {
+        if (request.getAttribute(LISTENING) != null) {
+            return;
+        }
+        request.setAttribute(LISTENING, Boolean.TRUE);
+        request.getAsyncContext().addListener(new AsyncListener() {
+            @Override
+            public void onComplete(AsyncEvent event) {
+                record(request, response, false);
+            }
+
+            @Override
+            public void onTimeout(AsyncEvent event) {
+            }
+
+            @Override
+            public void onError(AsyncEvent event) {
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+            }
+        });
+    }
+
+    private void record(HttpServletRequest request, HttpServletResponse response, boolean failed) {
+        Object start = request.getAttribute(START);
+        if (start == null) {
+            return;
+        }
+        long elapsed = System.nanoTime() - (Long) start;
+        String pattern = (String) request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        endpointMetrics.record(request.getMethod(), pattern, response.getStatus(), failed,
+                elapsed, request.getContentLengthLong(), contentLength(response));
+    }
+
+    private static long contentLength(HttpServletResponse response) {
+        String header = response.getHeader("Content-Length");
+        if (header == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(header);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
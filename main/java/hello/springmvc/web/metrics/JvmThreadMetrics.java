@@ -0,0 +1,20 @@
+package hello.springmvc.web.metrics;
+
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+//  살아있는 플랫폼 스레드 수 (가상 스레드는 세지 않는다)
+//  느린 업로드가 몰릴 때 블로킹 핸들러는 톰캣 스레드 풀을 키우고, 비동기 핸들러는 그대로 두는지 본다.
+@Component
+public class JvmThreadMetrics implements MetricsSource {
+
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    @Override
+    public void collect(PrometheusWriter writer) {
+        writer.gauge("hello_jvm_threads", "Live platform threads", threads.getThreadCount())
+                .gauge("hello_jvm_threads_peak", "Most live platform threads since the JVM started", threads.getPeakThreadCount());
+    }
+}
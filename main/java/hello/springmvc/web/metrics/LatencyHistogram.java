@@ -0,0 +1,84 @@
+package hello.springmvc.web.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+//  HdrHistogram 처럼 2의 거듭제곱 구간을 다시 16칸으로 나눈 로그-선형 히스토그램 (단위: 마이크로초)
+//  값이 어느 칸에 들어가든 오차는 칸 너비(값의 1/16 = 6.25%) 이하다.
+//  record()는 AtomicLongArray 한 칸 증가 + LongAdder 두개라서 락이 없다.
+//
+//  0 ~ 15us        : 1us 단위로 한 칸씩
+//  16 ~ 31us       : 1us 단위 16칸
+//  32 ~ 63us       : 2us 단위 16칸
+//  ...
+//  2^39us(약 6일) 이상은 마지막 칸에 넣는다.
+public class LatencyHistogram {
+
+    private static final int SUB_BITS = 4;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int MAX_EXPONENT = 39;
+    private static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+    static final int BUCKETS = (MAX_EXPONENT - SUB_BITS + 2) * SUB_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sumMicros = new LongAdder();
+
+    public void recordNanos(long nanos) {
+        long micros = Math.min(Math.max(nanos / 1000, 0), MAX_VALUE);
+        counts.incrementAndGet(index(micros));
+        count.increment();
+        sumMicros.add(micros);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public double getSumSeconds() {
+        return sumMicros.sum() / 1_000_000.0;
+    }
+
+//    quantiles는 오름차순이어야 한다. 칸 하나를 읽는 동안 다른 스레드가 기록할 수 있어서 근사값이다.
+    public double[] quantileSeconds(double... quantiles) {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        double[] values = new double[quantiles.length];
+        if (total == 0) {
+            return values;
+        }
+        int q = 0;
+        long seen = 0;
+        for (int i = 0; i < BUCKETS && q < quantiles.length; i++) {
+            seen += snapshot[i];
+            while (q < quantiles.length && seen >= Math.ceil(quantiles[q] * total) && seen > 0) {
+                values[q++] = upperBound(i) / 1_000_000.0;
+            }
+        }
+        return values;
+    }
+
+    static int index(long micros) {
+        if (micros < SUB_COUNT) {
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int sub = (int) (micros >>> (exponent - SUB_BITS)) & (SUB_COUNT - 1);
+        return (exponent - SUB_BITS + 1) * SUB_COUNT + sub;
+    }
+
+//    index 칸에 들어가는 가장 큰 값
+    static long upperBound(int index) {
+        if (index < SUB_COUNT) {
+            return index;
+        }
+        int exponent = index / SUB_COUNT + SUB_BITS - 1;
+        int sub = index % SUB_COUNT;
+        long width = 1L << (exponent - SUB_BITS);
+        return ((long) (SUB_COUNT + sub) << (exponent - SUB_BITS)) + width - 1;
+    }
+}
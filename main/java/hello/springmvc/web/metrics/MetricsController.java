@@ -0,0 +1,32 @@
+package hello.springmvc.web.metrics;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.servlet.http.HttpServletRequest;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+//  GET /metrics
+//  MetricsSource 빈들의 값을 Prometheus text format 으로 응답한다.
+//  같은 서버(localhost)에서 온 요청에만 응답하고 외부에서 오면 404
+@RestController
+@RequiredArgsConstructor
+public class MetricsController {
+
+    private final ObjectProvider<MetricsSource> sources;
+
+    @GetMapping(value = "/metrics", produces = "text/plain;version=0.0.4;charset=utf-8")
+    public String metrics(HttpServletRequest request) throws UnknownHostException {
+        if (!InetAddress.getByName(request.getRemoteAddr()).isLoopbackAddress()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        }
+        PrometheusWriter writer = new PrometheusWriter();
+        sources.orderedStream().forEach(source -> source.collect(writer));
+        return writer.toString();
+    }
+}
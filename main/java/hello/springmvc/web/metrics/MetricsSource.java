@@ -0,0 +1,7 @@
+package hello.springmvc.web.metrics;
+
+//  /metrics 에 노출할 값을 가진 빈이 구현한다. 요청이 올 때마다 현재 값을 PrometheusWriter에 쓴다.
+public interface MetricsSource {
+
+    void collect(PrometheusWriter writer);
+}
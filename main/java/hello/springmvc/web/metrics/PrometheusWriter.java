@@ -0,0 +1,69 @@
+package hello.springmvc.web.metrics;
+
+//  Prometheus text format(0.0.4)
+//  # HELP hello_view_cache_hits_total ...
+//  # TYPE hello_view_cache_hits_total counter
+//  hello_view_cache_hits_total 42
+public class PrometheusWriter {
+
+    private final StringBuilder sb = new StringBuilder(4096);
+
+    public PrometheusWriter counter(String name, String help, double value) {
+        return family(name, "counter", help).sample(name, null, value);
+    }
+
+    public PrometheusWriter gauge(String name, String help, double value) {
+        return family(name, "gauge", help).sample(name, null, value);
+    }
+
+//    라벨이 다른 여러 값을 쓸 때는 family()를 한번 쓰고 sample()을 여러번 쓴다.
+    public PrometheusWriter family(String name, String type, String help) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        return this;
+    }
+
+//    labels 는 labels("method", "GET", "pattern", "/mapping/{userId}") 로 만든다.
+    public PrometheusWriter sample(String name, String labels, double value) {
+        sb.append(name);
+        if (labels != null && !labels.isEmpty()) {
+            sb.append('{').append(labels).append('}');
+        }
+        sb.append(' ');
+        if (value == (long) value) {
+            sb.append((long) value);
+        } else {
+            sb.append(value);
+        }
+        sb.append('\n');
+        return this;
+    }
+
+    public static String labels(String... namesAndValues) {
+        StringBuilder labels = new StringBuilder();
+        for (int i = 0; i + 1 < namesAndValues.length; i += 2) {
+            if (labels.length() > 0) {
+                labels.append(',');
+            }
+            labels.append(namesAndValues[i]).append("=\"");
+            String value = namesAndValues[i + 1];
+            for (int j = 0; j < value.length(); j++) {
+                char c = value.charAt(j);
+                if (c == '\\' || c == '"') {
+                    labels.append('\\').append(c);
+                } else if (c == '\n') {
+                    labels.append("\\n");
+                } else {
+                    labels.append(c);
+                }
+            }
+            labels.append('"');
+        }
+        return labels.toString();
+    }
+
+    @Override
+    public String toString() {
+        return sb.toString();
+    }
+}
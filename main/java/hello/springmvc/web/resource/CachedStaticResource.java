@@ -0,0 +1,96 @@
+package hello.springmvc.web.resource;
+
+import hello.springmvc.web.http.AcceptEncoding;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.HttpRequestHandler;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.file.Path;
+
+//  정적 리소스 파일 하나를 응답한다. 파일 내용, 압축본(gzip, br), ETag는 애플리케이션 시작 시 한번만 만든다.
+//  - Accept-Encoding에 따라 br -> gzip -> 원본 순으로 고른다.
+//  - If-None-Match가 ETag와 맞으면 바디 없이 304 (비교는 스프링 checkNotModified : 목록, *, W/"..." 약한 비교)
+//  - 톰캣이 sendfile을 지원하면 메모리에서 쓰지 않고 임시 디렉토리의 파일을 커널이 바로 소켓으로 보내게 한다.
+public class CachedStaticResource implements HttpRequestHandler {
+
+    static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final String contentType;
+    private final Variant identity;
+    private final Variant gzip;
+    private final Variant brotli;
+    private final int sendfileThreshold;
+
+    CachedStaticResource(String contentType, Variant identity, Variant gzip, Variant brotli, int sendfileThreshold) {
+        this.contentType = contentType;
+        this.identity = identity;
+        this.gzip = gzip;
+        this.brotli = brotli;
+        this.sendfileThreshold = sendfileThreshold;
+    }
+
+    @Override
+    public void handleRequest(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        boolean head = "HEAD".equals(request.getMethod());
+        if (!head && !"GET".equals(request.getMethod())) {
+            response.setHeader(HttpHeaders.ALLOW, "GET, HEAD");
+            response.sendError(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+            return;
+        }
+
+        Variant variant = select(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        response.setHeader(HttpHeaders.ETAG, variant.etag);
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        if (new ServletWebRequest(request, response).checkNotModified(variant.etag)) {
+            return;
+        }
+
+        response.setContentType(contentType);
+        if (variant.encoding != null) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, variant.encoding);
+        }
+        response.setContentLength(variant.bytes.length);
+        if (head) {
+            return;
+        }
+        if (variant.file != null && variant.bytes.length >= sendfileThreshold
+                && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, variant.file.toString());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, (long) variant.bytes.length);
+            return;
+        }
+        response.getOutputStream().write(variant.bytes);
+    }
+
+    private Variant select(String acceptEncoding) {
+        if (brotli != null && AcceptEncoding.accepts(acceptEncoding, "br")) {
+            return brotli;
+        }
+        if (gzip != null && AcceptEncoding.accepts(acceptEncoding, "gzip")) {
+            return gzip;
+        }
+        return identity;
+    }
+
+    static final class Variant {
+        private final String encoding;
+        private final byte[] bytes;
+        private final String etag;
+        private final Path file;
+
+        Variant(String encoding, byte[] bytes, String etag, Path file) {
+            this.encoding = encoding;
+            this.bytes = bytes;
+            this.etag = etag;
+            this.file = file;
+        }
+    }
+}
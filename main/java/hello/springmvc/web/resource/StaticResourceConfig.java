@@ -0,0 +1,129 @@
+package hello.springmvc.web.resource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.servlet.handler.SimpleUrlHandlerMapping;
+
+import javax.annotation.PreDestroy;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+//  classpath:/static/ 아래의 파일들을 애플리케이션 시작 시 한번 읽어서 CachedStaticResource로 등록한다.
+//  기본 정적 리소스 핸들러(ResourceHttpRequestHandler, /**)보다 먼저 정확한 URL로 매핑되기 때문에
+//  등록된 파일은 요청마다 클래스패스에서 다시 읽지 않는다.
+//  index.html.br, index.html.gz 처럼 미리 압축한 파일이 옆에 있으면 그것을 쓰고, gz가 없으면 시작 시 gzip으로 만든다.
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "hello.static.cache.enabled", havingValue = "true")
+public class StaticResourceConfig {
+
+    private static final String LOCATION = "classpath*:static/";
+
+    private final Path directory;
+    private final int sendfileThreshold;
+
+    public StaticResourceConfig(@Value("${hello.static.cache.sendfile-threshold:49152}") int sendfileThreshold) throws IOException {
+        this.directory = Files.createTempDirectory("hello-static");
+        this.sendfileThreshold = sendfileThreshold;
+    }
+
+    @Bean
+    public SimpleUrlHandlerMapping cachedStaticResourceMapping() throws IOException {
+        PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+        Map<String, Object> urlMap = new LinkedHashMap<>();
+
+        for (Resource root : resolver.getResources(LOCATION)) {
+            String rootUrl = root.getURL().toString();
+            for (Resource resource : resolver.getResources(rootUrl + "**")) {
+                String url = resource.getURL().toString();
+                if (!resource.isReadable() || url.endsWith("/") || url.endsWith(".gz") || url.endsWith(".br")) {
+                    continue;
+                }
+                String path = "/" + url.substring(rootUrl.length());
+                if (!urlMap.containsKey(path)) {
+                    urlMap.put(path, load(resource, path));
+                }
+            }
+        }
+        log.info("cached static resources={}", urlMap.keySet());
+        return new SimpleUrlHandlerMapping(urlMap, Ordered.LOWEST_PRECEDENCE - 10);
+    }
+
+    @PreDestroy
+    public void deleteFiles() throws IOException {
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    private CachedStaticResource load(Resource resource, String path) throws IOException {
+        MediaType mediaType = MediaTypeFactory.getMediaType(path).orElse(MediaType.APPLICATION_OCTET_STREAM);
+        boolean text = "text".equals(mediaType.getType());
+        String contentType = text && mediaType.getCharset() == null ? mediaType + ";charset=UTF-8" : mediaType.toString();
+
+        byte[] bytes = read(resource);
+        byte[] gzip = readIfExists(resource.createRelative(resource.getFilename() + ".gz"));
+        if (gzip == null && isCompressible(mediaType)) {
+            gzip = gzip(bytes);
+            if (gzip.length >= bytes.length) {
+                gzip = null;
+            }
+        }
+        byte[] brotli = readIfExists(resource.createRelative(resource.getFilename() + ".br"));
+
+        return new CachedStaticResource(contentType,
+                variant(path, null, bytes),
+                gzip == null ? null : variant(path, "gzip", gzip),
+                brotli == null ? null : variant(path, "br", brotli),
+                sendfileThreshold);
+    }
+
+//    ETag는 내용의 해시로 만들기 때문에 내용이 같으면 항상 같은 값이 나온다.(strong ETag)
+//    인코딩마다 바이트가 다르므로 ETag도 달라야 한다.
+    private CachedStaticResource.Variant variant(String path, String encoding, byte[] bytes) throws IOException {
+        String etag = "\"" + DigestUtils.md5DigestAsHex(bytes) + (encoding == null ? "" : "-" + encoding) + "\"";
+        Path file = directory.resolve(DigestUtils.md5DigestAsHex(path.getBytes()) + (encoding == null ? "" : "." + encoding));
+        Files.write(file, bytes);
+        return new CachedStaticResource.Variant(encoding, bytes, etag, file);
+    }
+
+    private static boolean isCompressible(MediaType mediaType) {
+        return "text".equals(mediaType.getType())
+                || mediaType.getSubtype().endsWith("json")
+                || mediaType.getSubtype().endsWith("javascript")
+                || mediaType.getSubtype().endsWith("xml");
+    }
+
+    private static byte[] read(Resource resource) throws IOException {
+        try (InputStream in = resource.getInputStream()) {
+            return StreamUtils.copyToByteArray(in);
+        }
+    }
+
+    private static byte[] readIfExists(Resource resource) throws IOException {
+        return resource.exists() && resource.isReadable() ? read(resource) : null;
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,161 @@
+package hello.springmvc.web.routing;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import java.lang.reflect.Method;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+//  @RequestMapping 핸들러를 찾을 때 RouteTrie를 먼저 본다.
+//  RequestMappingHandlerMapping은 요청마다 URL에 맞는 후보 패턴을 모두 찾아서 정렬한 다음 가장 구체적인 것을 고르는데,
+//  패턴과 HTTP 메서드 조건만 있는 매핑(대부분의 매핑)은 인덱스에서 바로 찾고 나머지 경우만 원래 방식으로 찾는다.
+//  인덱스로 고른 매핑도 스프링과 같이 handleMatch()를 거치므로 핸들러를 찾은 다음의 처리(URI/매트릭스 변수, 인터셉터, CORS 등)는 그대로이다.
+@Slf4j
+public class IndexedRequestMappingHandlerMapping extends RequestMappingHandlerMapping {
+
+//    매핑이 추가/삭제되면 null로 바꿔두고 다음 조회 때 다시 만든다.
+    private volatile RouteTrie<Endpoint> index;
+
+    @Override
+    public void afterPropertiesSet() {
+        super.afterPropertiesSet();
+        rebuildIndex();
+    }
+
+    @Override
+    public void registerMapping(RequestMappingInfo mapping, Object handler, Method method) {
+        super.registerMapping(mapping, handler, method);
+        invalidateIndex();
+    }
+
+    @Override
+    public void unregisterMapping(RequestMappingInfo mapping) {
+        super.unregisterMapping(mapping);
+        invalidateIndex();
+    }
+
+    private synchronized void invalidateIndex() {
+        index = null;
+    }
+
+//    인덱스는 후보 매핑 하나를 고르는 데만 쓰고, 그 매핑이 정말 맞는지와 요청 속성(URI 변수, 매트릭스 변수, produces 등)은
+//    스프링과 같이 getMatchingCondition() + handleMatch()로 처리한다.
+//    ;(매트릭스 변수, jsessionid)나 %XX 가 있는 경로는 스프링이 풀어서 비교하므로 원래 방식으로 찾는다.
+    @Override
+    protected HandlerMethod lookupHandlerMethod(String lookupPath, HttpServletRequest request) throws Exception {
+        RequestMethod method = requestMethod(request);
+        if (method == null || method == RequestMethod.OPTIONS || lookupPath.indexOf(';') >= 0 || lookupPath.indexOf('%') >= 0) {
+            return super.lookupHandlerMethod(lookupPath, request);
+        }
+        RouteTrie<Endpoint> trie = index;
+        if (trie == null) {
+            trie = rebuildIndex();
+        }
+        RouteTrie.Match<Endpoint> match = trie.find(lookupPath, endpoint -> endpoint.find(method) != null);
+        if (match == null || match.isDeferred()) {
+            return super.lookupHandlerMethod(lookupPath, request);
+        }
+
+        Mapping mapping = match.getValue().find(method);
+        RequestMappingInfo matched = mapping.info.getMatchingCondition(request);
+        if (matched == null) {
+            return super.lookupHandlerMethod(lookupPath, request);
+        }
+        request.setAttribute(BEST_MATCHING_HANDLER_ATTRIBUTE, mapping.handlerMethod);
+        handleMatch(matched, lookupPath, request);
+        return mapping.handlerMethod;
+    }
+
+    private synchronized RouteTrie<Endpoint> rebuildIndex() {
+        if (index != null) {
+            return index;
+        }
+        Map<String, Endpoint> endpoints = new LinkedHashMap<>();
+        RouteTrie<Endpoint> trie = new RouteTrie<>();
+
+        for (Map.Entry<RequestMappingInfo, HandlerMethod> entry : getHandlerMethods().entrySet()) {
+            RequestMappingInfo info = entry.getKey();
+            if (!isIndexable(info)) {
+                info.getPatternValues().forEach(trie::defer);
+                continue;
+            }
+            for (String pattern : info.getPatternValues()) {
+                endpoints.computeIfAbsent(pattern, p -> new Endpoint()).add(info, entry.getValue());
+            }
+        }
+        int indexed = 0;
+        for (Map.Entry<String, Endpoint> entry : endpoints.entrySet()) {
+            if (entry.getValue().ambiguous) {
+                trie.defer(entry.getKey());
+            } else if (trie.add(entry.getKey(), entry.getValue())) {
+                indexed++;
+            }
+        }
+        index = trie;
+        log.debug("route index patterns={}, indexed={}", endpoints.size(), indexed);
+        return trie;
+    }
+
+//    params, headers, consumes, produces, 커스텀 조건이 있으면 인덱스로는 판단할 수 없다.
+    private boolean isIndexable(RequestMappingInfo info) {
+        return info.getParamsCondition().isEmpty()
+                && info.getHeadersCondition().isEmpty()
+                && info.getConsumesCondition().isEmpty()
+                && info.getProducesCondition().isEmpty()
+                && info.getCustomCondition() == null;
+    }
+
+    private static RequestMethod requestMethod(HttpServletRequest request) {
+        try {
+            return RequestMethod.valueOf(request.getMethod());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+//    패턴 하나에 HTTP 메서드별 매핑
+    private static final class Endpoint {
+        private final Map<RequestMethod, Mapping> byMethod = new EnumMap<>(RequestMethod.class);
+        private Mapping anyMethod;
+        private boolean ambiguous;
+
+        void add(RequestMappingInfo info, HandlerMethod handlerMethod) {
+            Mapping mapping = new Mapping(info, handlerMethod);
+            Set<RequestMethod> methods = info.getMethodsCondition().getMethods();
+            if (methods.isEmpty()) {
+                ambiguous |= anyMethod != null;
+                anyMethod = mapping;
+                return;
+            }
+            for (RequestMethod method : methods) {
+                ambiguous |= byMethod.put(method, mapping) != null;
+            }
+        }
+
+//        스프링과 같이 HEAD는 GET 매핑으로도 처리한다. 메서드 조건이 없는 매핑보다 메서드를 지정한 매핑이 우선이다.
+        Mapping find(RequestMethod method) {
+            Mapping mapping = byMethod.get(method);
+            if (mapping == null && method == RequestMethod.HEAD) {
+                mapping = byMethod.get(RequestMethod.GET);
+            }
+            return mapping != null ? mapping : anyMethod;
+        }
+    }
+
+    private static final class Mapping {
+        private final RequestMappingInfo info;
+        private final HandlerMethod handlerMethod;
+
+        Mapping(RequestMappingInfo info, HandlerMethod handlerMethod) {
+            this.info = info;
+            this.handlerMethod = handlerMethod;
+        }
+    }
+}
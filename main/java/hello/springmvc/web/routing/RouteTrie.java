@@ -0,0 +1,252 @@
+package hello.springmvc.web.routing;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+//  URL 패턴 인덱스
+//  - /hello-basic, /mapping-get-v1 처럼 변수가 없는 패턴은 HashMap 한번 조회로 찾는다.
+//  - /mapping/users/{userId}/orders/{orderId} 처럼 변수가 있는 패턴은 세그먼트(/ 사이의 문자열) 단위의 트리로 찾는다.
+//    각 노드에는 리터럴 자식(HashMap)과 변수 자식({xxx}) 하나가 있고, 둘 다 내려가서 맞는 패턴이 하나뿐일 때만 돌려준다.
+//    (둘 이상이면 스프링의 우선순위로 골라야 하므로 defer)
+//  조회 비용은 등록된 패턴 개수가 아니라 요청 URL의 세그먼트 수에만 비례한다.
+//
+//  인덱스가 판단할 수 없는 패턴(/**, *, {id:\d+} 같은 와일드카드/정규식)이나 params, headers 조건이 있는 매핑은
+//  defer 표시를 해두고, 그 경로로 들어온 요청은 Match.isDeferred()로 알려서 원래 방식(스프링)으로 찾게 한다.
+public class RouteTrie<T> {
+
+    private final Map<String, Route<T>> exact = new HashMap<>();
+    private final Node<T> root = new Node<>();
+    private int maxVariables;
+
+//    지원하지 않는 패턴이거나 같은 모양의 패턴이 이미 있으면 false (해당 경로는 defer 된다)
+    public boolean add(String pattern, T value) {
+        return insert(pattern, value, false);
+    }
+
+    public void defer(String pattern) {
+        insert(pattern, null, true);
+    }
+
+    public Match<T> find(String path, Predicate<? super T> accept) {
+        Match<T> match = doFind(path, accept);
+        if (match == null && path.length() > 1 && path.endsWith("/")) {
+            match = doFind(path.substring(0, path.length() - 1), accept);
+        }
+        return match;
+    }
+
+    private Match<T> doFind(String path, Predicate<? super T> accept) {
+        Route<T> route = exact.get(path);
+        if (route != null && (route.deferred || accept.test(route.value))) {
+            return new Match<>(route, NO_VALUES);
+        }
+        if (!path.startsWith("/")) {
+            return null;
+        }
+        Search<T> search = new Search<>(path, accept, maxVariables);
+        search.visit(root, 0, 0);
+        return search.result();
+    }
+
+    private boolean insert(String pattern, T value, boolean deferred) {
+        if (!pattern.startsWith("/")) {
+            pattern = "/" + pattern;
+        }
+        String[] segments = pattern.substring(1).split("/", -1);
+        String[] names = new String[segments.length];
+        int variables = 0;
+        boolean literal = true;
+        Node<T> node = root;
+
+        for (String segment : segments) {
+            if (segment.isEmpty() && segments.length > 1) {
+                node.deferBelow = true;
+                return false;
+            }
+            if (isVariable(segment)) {
+                names[variables++] = segment.substring(1, segment.length() - 1);
+                literal = false;
+                if (node.variable == null) {
+                    node.variable = new Node<>();
+                }
+                node = node.variable;
+            } else if (isLiteral(segment)) {
+                node = node.literals.computeIfAbsent(segment, s -> new Node<>());
+            } else {
+                node.deferBelow = true;
+                return false;
+            }
+        }
+
+        String[] variableNames = new String[variables];
+        System.arraycopy(names, 0, variableNames, 0, variables);
+        Route<T> route = new Route<>(pattern, variableNames, value, deferred);
+
+        if (literal) {
+            Route<T> existing = exact.get(pattern);
+            if (existing != null) {
+                exact.put(pattern, new Route<>(pattern, variableNames, existing.value, true));
+                return false;
+            }
+            exact.put(pattern, route);
+            return !deferred;
+        }
+        if (node.route != null) {
+            node.route = new Route<>(node.route.pattern, node.route.variableNames, node.route.value, true);
+            return false;
+        }
+        node.route = route;
+        maxVariables = Math.max(maxVariables, variables);
+        return !deferred;
+    }
+
+    private static boolean isVariable(String segment) {
+        if (segment.length() < 3 || segment.charAt(0) != '{' || segment.charAt(segment.length() - 1) != '}') {
+            return false;
+        }
+        String name = segment.substring(1, segment.length() - 1);
+        return isLiteral(name) && name.indexOf(':') < 0 && name.charAt(0) != '*';
+    }
+
+    private static boolean isLiteral(String segment) {
+        for (int i = 0; i < segment.length(); i++) {
+            char c = segment.charAt(i);
+            if (c == '*' || c == '?' || c == '{' || c == '}' || c == ';') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final String[] NO_VALUES = new String[0];
+
+    @SuppressWarnings("rawtypes")
+    private static final Route DEFERRED = new Route<>(null, NO_VALUES, null, true);
+
+    @SuppressWarnings("unchecked")
+    private static <T> Route<T> deferredRoute() {
+        return (Route<T>) DEFERRED;
+    }
+
+//    리터럴 자식과 변수 자식을 둘 다 내려가 본다.
+//    맞는 패턴이 둘 이상이면(ex: /a/{x}/{y} 와 /{p}/b/c 에 /a/b/c) 스프링은 변수가 적은 것, 긴 것 순으로 고르므로
+//    인덱스에서 고르지 않고 defer 한다. 하나만 맞을 때만 그 패턴을 돌려준다.
+    private static final class Search<T> {
+        private final String path;
+        private final Predicate<? super T> accept;
+        private final String[] values;
+        private Route<T> found;
+        private String[] foundValues;
+        private boolean deferred;
+
+        Search(String path, Predicate<? super T> accept, int maxVariables) {
+            this.path = path;
+            this.accept = accept;
+            this.values = maxVariables == 0 ? NO_VALUES : new String[maxVariables];
+        }
+
+        void visit(Node<T> node, int pos, int depth) {
+            if (deferred) {
+                return;
+            }
+            if (node.deferBelow) {
+                deferred = true;
+                return;
+            }
+            if (pos >= path.length()) {
+                Route<T> route = node.route;
+                if (route != null && (route.deferred || accept.test(route.value))) {
+                    if (route.deferred || found != null) {
+                        deferred = true;
+                    } else {
+                        found = route;
+                        foundValues = Arrays.copyOf(values, depth);
+                    }
+                }
+                return;
+            }
+            int start = pos + 1;
+            int end = path.indexOf('/', start);
+            if (end < 0) {
+                end = path.length();
+            }
+            if (end == start) {
+                return;
+            }
+            if (!node.literals.isEmpty()) {
+                Node<T> child = node.literals.get(path.substring(start, end));
+                if (child != null) {
+                    visit(child, end, depth);
+                }
+            }
+            if (node.variable != null) {
+                values[depth] = path.substring(start, end);
+                visit(node.variable, end, depth + 1);
+            }
+        }
+
+        Match<T> result() {
+            if (deferred) {
+                return new Match<>(deferredRoute(), NO_VALUES);
+            }
+            return found == null ? null : new Match<>(found, foundValues);
+        }
+    }
+
+    private static final class Node<T> {
+        private final Map<String, Node<T>> literals = new HashMap<>();
+        private Node<T> variable;
+        private Route<T> route;
+        private boolean deferBelow;
+    }
+
+    private static final class Route<T> {
+        private final String pattern;
+        private final String[] variableNames;
+        private final T value;
+        private final boolean deferred;
+
+        Route(String pattern, String[] variableNames, T value, boolean deferred) {
+            this.pattern = pattern;
+            this.variableNames = variableNames;
+            this.value = value;
+            this.deferred = deferred;
+        }
+    }
+
+    public static final class Match<T> {
+        private final Route<T> route;
+        private final String[] values;
+
+        private Match(Route<T> route, String[] values) {
+            this.route = route;
+            this.values = values;
+        }
+
+        public boolean isDeferred() {
+            return route.deferred;
+        }
+
+        public String getPattern() {
+            return route.pattern;
+        }
+
+        public T getValue() {
+            return route.value;
+        }
+
+        public int getVariableCount() {
+            return route.variableNames.length;
+        }
+
+        public String getVariableName(int index) {
+            return route.variableNames[index];
+        }
+
+        public String getVariableValue(int index) {
+            return values[index];
+        }
+    }
+}
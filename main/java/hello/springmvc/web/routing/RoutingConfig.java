@@ -0,0 +1,24 @@
+package hello.springmvc.web.routing;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcRegistrations;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+//  스프링 부트가 만드는 RequestMappingHandlerMapping 대신 IndexedRequestMappingHandlerMapping을 쓰게 한다.
+//  (인터셉터, 경로 매칭 설정 등은 부트가 똑같이 적용해준다)
+@Configuration
+@ConditionalOnProperty(name = "hello.routing.index.enabled", havingValue = "true", matchIfMissing = true)
+public class RoutingConfig {
+
+    @Bean
+    public WebMvcRegistrations indexedMappingRegistrations() {
+        return new WebMvcRegistrations() {
+            @Override
+            public RequestMappingHandlerMapping getRequestMappingHandlerMapping() {
+                return new IndexedRequestMappingHandlerMapping();
+            }
+        };
+    }
+}
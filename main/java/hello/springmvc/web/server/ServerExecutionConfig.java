@@ -0,0 +1,59 @@
+package hello.springmvc.web.server;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+//  hello.server.execution-mode
+//   - platform (기본) : 톰캣 기본 스레드 풀(server.tomcat.threads.max)에서 요청을 처리한다.
+//   - virtual         : 요청마다 가상 스레드(JDK 21+)를 만들어서 처리한다.
+//                       느린 클라이언트의 바디를 읽느라 블로킹되어도 플랫폼 스레드를 붙잡고 있지 않는다.
+//  JDK 21 미만에서 virtual 을 설정하면 경고 로그를 남기고 기본 스레드 풀을 그대로 쓴다.
+@Configuration
+@ConditionalOnProperty(name = "hello.server.execution-mode", havingValue = "virtual")
+public class ServerExecutionConfig {
+
+    @Bean
+    public VirtualThreadCustomizer virtualThreadCustomizer() {
+        return new VirtualThreadCustomizer();
+    }
+
+    @Slf4j
+    static class VirtualThreadCustomizer implements TomcatProtocolHandlerCustomizer<ProtocolHandler>, DisposableBean {
+
+        private final ExecutorService executor = newVirtualThreadPerTaskExecutor();
+
+        @Override
+        public void customize(ProtocolHandler protocolHandler) {
+            if (executor != null) {
+                protocolHandler.setExecutor(executor);
+                log.info("request execution mode=virtual");
+            }
+        }
+
+        @Override
+        public void destroy() {
+            if (executor != null) {
+                executor.shutdown();
+            }
+        }
+
+//        JDK 21 API를 직접 호출하면 그 아래 버전에서 컴파일이 안 되기 때문에 리플렉션으로 찾는다.
+        private static ExecutorService newVirtualThreadPerTaskExecutor() {
+            try {
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException e) {
+                log.warn("virtual threads need JDK 21+, java.version={}; keeping the platform thread pool",
+                        System.getProperty("java.version"));
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package hello.springmvc.web.view;
+
+import org.springframework.web.servlet.View;
+import org.springframework.web.servlet.support.RequestContextUtils;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+//  뷰 이름 + 모델 값 + Locale 이 같으면 렌더링 결과도 같다고 보고 결과 바이트를 캐시한다.
+//  모델에 String, 숫자, Boolean, enum 같은 단순한 값만 있을 때만 캐시하고, 그 외에는 매번 렌더링한다.
+//  캐시에 없을 때는 원래 뷰가 응답에 바로 쓰는 것을 TeeResponseWrapper로 복사해서 저장한다.
+class RenderedOutputCachingView implements View {
+
+    private final String viewName;
+    private final View delegate;
+    private final RenderedViewCache cache;
+    private final int maxEntryBytes;
+
+    RenderedOutputCachingView(String viewName, View delegate, RenderedViewCache cache, int maxEntryBytes) {
+        this.viewName = viewName;
+        this.delegate = delegate;
+        this.cache = cache;
+        this.maxEntryBytes = maxEntryBytes;
+    }
+
+    @Override
+    public String getContentType() {
+        return delegate.getContentType();
+    }
+
+    @Override
+    public void render(Map<String, ?> model, HttpServletRequest request, HttpServletResponse response) throws Exception {
+        List<Object> key = cacheKey(model, request);
+        if (key == null) {
+            delegate.render(model, request, response);
+            return;
+        }
+
+        RenderedViewCache.Entry entry = cache.get(key);
+        if (entry != null) {
+            response.setContentType(entry.getContentType());
+            response.setContentLength(entry.getBody().length);
+            response.getOutputStream().write(entry.getBody());
+            return;
+        }
+
+        TeeResponseWrapper wrapper = new TeeResponseWrapper(response, maxEntryBytes);
+        delegate.render(model, request, wrapper);
+        wrapper.finish();
+        if (!wrapper.isOverflow() && wrapper.getStatus() == HttpServletResponse.SC_OK) {
+            cache.put(key, new RenderedViewCache.Entry(wrapper.getContentType(), wrapper.getCopy()));
+        }
+    }
+
+//    [뷰 이름, Locale, 이름1, 타입1, 값1, 이름2, ...] (이름 순서)
+//    문자열로 이어 붙이면 {a="1, b=2"} 와 {a="1", b="2"}, null 과 "null" 이 같은 키가 되므로 값을 그대로 담은 List의 equals로 비교한다.
+//    값의 타입도 넣어서 1(Integer)과 1L, "A"와 enum A를 구분한다. CharSequence는 바뀔 수 있으므로 String으로 복사한다.
+    private List<Object> cacheKey(Map<String, ?> model, HttpServletRequest request) {
+        Map<String, Object> values = new TreeMap<>();
+        if (model != null) {
+            for (Map.Entry<String, ?> e : model.entrySet()) {
+                if (e.getKey().startsWith("org.springframework.")) {
+                    continue;
+                }
+                Object value = e.getValue();
+                if (value != null && !isSimple(value)) {
+                    return null;
+                }
+                values.put(e.getKey(), value);
+            }
+        }
+        List<Object> key = new ArrayList<>(2 + values.size() * 3);
+        key.add(viewName);
+        key.add(RequestContextUtils.getLocale(request));
+        for (Map.Entry<String, Object> e : values.entrySet()) {
+            Object value = e.getValue();
+            key.add(e.getKey());
+            key.add(value == null ? null : value.getClass());
+            key.add(value instanceof CharSequence ? value.toString() : value);
+        }
+        return key;
+    }
+
+    private static boolean isSimple(Object value) {
+        return value instanceof CharSequence || value instanceof Number || value instanceof Boolean
+                || value instanceof Character || value instanceof Enum;
+    }
+}
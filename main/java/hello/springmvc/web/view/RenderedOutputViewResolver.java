@@ -0,0 +1,40 @@
+package hello.springmvc.web.view;
+
+import org.springframework.core.Ordered;
+import org.springframework.util.PatternMatchUtils;
+import org.springframework.web.servlet.View;
+import org.springframework.web.servlet.ViewResolver;
+import org.thymeleaf.spring5.view.AbstractThymeleafView;
+
+import java.util.Locale;
+
+//  ThymeleafViewResolver가 찾은 뷰 중에서 viewNames 패턴에 맞는 것을 RenderedOutputCachingView로 감싼다.
+//  redirect:, forward: 같은 뷰는 그대로 둔다.
+public class RenderedOutputViewResolver implements ViewResolver, Ordered {
+
+    private final ViewResolver delegate;
+    private final RenderedViewCache cache;
+    private final String[] viewNames;
+    private final int maxEntryBytes;
+
+    public RenderedOutputViewResolver(ViewResolver delegate, RenderedViewCache cache, String[] viewNames, int maxEntryBytes) {
+        this.delegate = delegate;
+        this.cache = cache;
+        this.viewNames = viewNames;
+        this.maxEntryBytes = maxEntryBytes;
+    }
+
+    @Override
+    public View resolveViewName(String viewName, Locale locale) throws Exception {
+        View view = delegate.resolveViewName(viewName, locale);
+        if (view instanceof AbstractThymeleafView && PatternMatchUtils.simpleMatch(viewNames, viewName)) {
+            return new RenderedOutputCachingView(viewName, view, cache, maxEntryBytes);
+        }
+        return view;
+    }
+
+    @Override
+    public int getOrder() {
+        return 0;
+    }
+}
@@ -0,0 +1,106 @@
+package hello.springmvc.web.view;
+
+import hello.springmvc.web.metrics.MetricsSource;
+import hello.springmvc.web.metrics.PrometheusWriter;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+//  렌더링 결과(바이트) LRU 캐시
+//  키는 equals / hashCode로 비교한다. (RenderedOutputCachingView는 List를 쓴다)
+//  항목 수(maxEntries)와 전체 바이트(maxBytes) 둘 다 넘지 않도록 가장 오래 안 쓴 것부터 지운다.
+public class RenderedViewCache implements MetricsSource {
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private final LinkedHashMap<Object, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public RenderedViewCache(int maxEntries, long maxBytes) {
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+    }
+
+    public Entry get(Object key) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        if (entry == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return entry;
+    }
+
+    public void put(Object key, Entry entry) {
+        if (entry.body.length > maxBytes) {
+            return;
+        }
+        synchronized (entries) {
+            Entry old = entries.put(key, entry);
+            bytes += entry.body.length - (old == null ? 0 : old.body.length);
+            Iterator<Map.Entry<Object, Entry>> it = entries.entrySet().iterator();
+            while ((entries.size() > maxEntries || bytes > maxBytes) && it.hasNext()) {
+                bytes -= it.next().getValue().body.length;
+                it.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+            bytes = 0;
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    @Override
+    public void collect(PrometheusWriter writer) {
+        int size;
+        long totalBytes;
+        synchronized (entries) {
+            size = entries.size();
+            totalBytes = bytes;
+        }
+        writer.counter("hello_view_cache_hits_total", "Rendered view cache hits", hits.sum())
+                .counter("hello_view_cache_misses_total", "Rendered view cache misses", misses.sum())
+                .counter("hello_view_cache_evictions_total", "Rendered view cache evictions", evictions.sum())
+                .gauge("hello_view_cache_entries", "Rendered views in cache", size)
+                .gauge("hello_view_cache_bytes", "Bytes of rendered views in cache", totalBytes);
+    }
+
+    public static final class Entry {
+        private final String contentType;
+        private final byte[] body;
+
+        public Entry(String contentType, byte[] body) {
+            this.contentType = contentType;
+            this.body = body;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+    }
+}
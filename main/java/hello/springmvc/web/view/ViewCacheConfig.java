@@ -0,0 +1,65 @@
+package hello.springmvc.web.view;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring5.SpringTemplateEngine;
+import org.thymeleaf.spring5.view.ThymeleafViewResolver;
+
+import java.io.StringWriter;
+
+//  타임리프 뷰 렌더링 결과 캐시 설정
+//  - 파싱된 템플릿 캐시는 타임리프 자체 캐시(spring.thymeleaf.cache=true)를 쓰고, 시작할 때 warm-templates를 미리 파싱해둔다.
+//  - 렌더링 결과 캐시는 hello.view.cache.view-names 에 맞는 뷰에만 적용한다.
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "hello.view.cache.enabled", havingValue = "true")
+public class ViewCacheConfig {
+
+    @Bean
+    public RenderedViewCache renderedViewCache(@Value("${hello.view.cache.max-entries:1000}") int maxEntries,
+                                               @Value("${hello.view.cache.max-bytes:16777216}") long maxBytes) {
+        return new RenderedViewCache(maxEntries, maxBytes);
+    }
+
+    @Bean
+    public RenderedOutputViewResolver renderedOutputViewResolver(ThymeleafViewResolver thymeleafViewResolver,
+                                                                 RenderedViewCache renderedViewCache,
+                                                                 @Value("${hello.view.cache.view-names:*}") String[] viewNames,
+                                                                 @Value("${hello.view.cache.max-entry-bytes:65536}") int maxEntryBytes) {
+        return new RenderedOutputViewResolver(thymeleafViewResolver, renderedViewCache, viewNames, maxEntryBytes);
+    }
+
+    @Bean
+    public TemplateWarmer templateWarmer(SpringTemplateEngine templateEngine,
+                                         @Value("${hello.view.cache.warm-templates:}") String[] templates) {
+        return new TemplateWarmer(templateEngine, templates);
+    }
+
+    static class TemplateWarmer {
+        private final SpringTemplateEngine templateEngine;
+        private final String[] templates;
+
+        TemplateWarmer(SpringTemplateEngine templateEngine, String[] templates) {
+            this.templateEngine = templateEngine;
+            this.templates = templates;
+        }
+
+        @EventListener(ApplicationReadyEvent.class)
+        public void warm() {
+            for (String template : templates) {
+                try {
+                    templateEngine.process(template, new Context(), new StringWriter());
+                    log.info("template warmed={}", template);
+                } catch (RuntimeException e) {
+                    log.warn("template warm failed={}", template, e);
+                }
+            }
+        }
+    }
+}
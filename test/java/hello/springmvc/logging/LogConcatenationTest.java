@@ -0,0 +1,203 @@
+package hello.springmvc.logging;
+
+import com.sun.source.tree.BinaryTree;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.LiteralTree;
+import com.sun.source.tree.MemberSelectTree;
+import com.sun.source.tree.MethodInvocationTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.util.JavacTask;
+import com.sun.source.util.SourcePositions;
+import com.sun.source.util.TreeScanner;
+import com.sun.source.util.Trees;
+import org.junit.jupiter.api.Test;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//  hello.springmvc 소스를 javac로 파싱해서(타입 확인 없이 구문 트리만) log.xxx(...) 호출에서 메시지를 미리 만드는 코드가 있으면 실패한다.
+//  log.trace("name=" + name) 은 레벨이 꺼져 있어도 문자열을 만든다. log.trace("name={}", name) 으로 쓴다.
+//  - 첫번째 인자(메시지) : + 가 하나라도 있으면 (a + b, "x" + y, (a + b).trim() 모두)
+//  - 나머지 인자         : 문자열 리터럴과 + 로 합친 값
+//  - 모든 인자           : String.format(...), "...".formatted(...), .concat(...)
+//  정말 필요한 줄은 호출이 시작하는 줄에 // log-concat-ok 주석을 단다.
+class LogConcatenationTest {
+
+    private static final Set<String> RECEIVERS = new HashSet<>(Arrays.asList("log", "logger", "LOG"));
+    private static final Set<String> LEVELS = new HashSet<>(Arrays.asList("trace", "debug", "info", "warn", "error"));
+    private static final String ALLOW = "log-concat-ok";
+
+    @Test
+    void noStringConcatenationInLogCalls() throws IOException {
+        Path root = sourceRoot();
+        List<String> violations = new ArrayList<>();
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path file : files.filter(f -> f.toString().endsWith(".java")).collect(Collectors.toList())) {
+                violations.addAll(check(root.relativize(file).toString(), new String(Files.readAllBytes(file), StandardCharsets.UTF_8)));
+            }
+        }
+        assertThat(violations).as("log 호출 인자에서 문자열 + 대신 {} 를 쓴다").isEmpty();
+    }
+
+//    검사 자체가 잡아야 할 것과 넘어가야 할 것
+    @Test
+    void detectsEagerMessageBuilding() throws IOException {
+        String source = String.join("\n",
+                "class Sample {",
+                "    void run(String a, String b, int count, Exception e) {",
+                "        log.info(\"a=\" + a);",
+                "        log.info(a + b);",
+                "        log.warn((a + b).trim(), e);",
+                "        log.debug(String.format(\"a=%s\", a));",
+                "        log.error(\"a={}\", \"[\" + a + \"]\");",
+                "        logger.trace(a.concat(b));",
+                "        log.info(\"a=\" + a); // log-concat-ok",
+                "        log.info(\"a={} b={}\", a, b);",
+                "        log.info(\"count={}\", count + 1);",
+                "        log.error(\"failed\", e);",
+                "        other.info(\"a=\" + a);",
+                "        String text = \"a=\" + a;",
+                "    }",
+                "}");
+
+        assertThat(check("Sample.java", source)).extracting(v -> v.substring(0, v.indexOf(' ')))
+                .containsExactly("Sample.java:3", "Sample.java:4", "Sample.java:5", "Sample.java:6", "Sample.java:7", "Sample.java:8");
+    }
+
+    private static Path sourceRoot() {
+        for (String candidate : new String[]{"main/java/hello/springmvc", "src/main/java/hello/springmvc"}) {
+            Path path = Paths.get(candidate);
+            if (Files.isDirectory(path)) {
+                return path;
+            }
+        }
+        throw new IllegalStateException("hello.springmvc source directory not found from " + Paths.get("").toAbsolutePath());
+    }
+
+    private static List<String> check(String name, String source) throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        String[] lines = source.split("\n", -1);
+        List<String> violations = new ArrayList<>();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8)) {
+            JavaFileObject file = new SourceFile(name, source);
+            JavacTask task = (JavacTask) compiler.getTask(null, fileManager, null, Collections.singletonList("-proc:none"), null,
+                    Collections.singletonList(file));
+            SourcePositions positions = Trees.instance(task).getSourcePositions();
+            for (CompilationUnitTree unit : task.parse()) {
+                new TreeScanner<Void, Void>() {
+                    @Override
+                    public Void visitMethodInvocation(MethodInvocationTree call, Void unused) {
+                        if (isLogCall(call) && eager(call.getArguments())) {
+                            int line = (int) unit.getLineMap().getLineNumber(positions.getStartPosition(unit, call));
+                            if (!lines[line - 1].contains(ALLOW)) {
+                                violations.add(name + ":" + line + " " + lines[line - 1].trim());
+                            }
+                        }
+                        return super.visitMethodInvocation(call, unused);
+                    }
+                }.scan(unit, null);
+            }
+        }
+        return violations;
+    }
+
+    private static boolean isLogCall(MethodInvocationTree call) {
+        if (!(call.getMethodSelect() instanceof MemberSelectTree)) {
+            return false;
+        }
+        MemberSelectTree select = (MemberSelectTree) call.getMethodSelect();
+        ExpressionTree receiver = select.getExpression();
+        String receiverName = receiver instanceof MemberSelectTree
+                ? ((MemberSelectTree) receiver).getIdentifier().toString()
+                : receiver.toString();
+        return LEVELS.contains(select.getIdentifier().toString()) && RECEIVERS.contains(receiverName);
+    }
+
+    private static boolean eager(List<? extends ExpressionTree> arguments) {
+        for (int i = 0; i < arguments.size(); i++) {
+            ExpressionTree argument = arguments.get(i);
+            if (find(argument, i == 0 ? LogConcatenationTest::isPlus : LogConcatenationTest::isStringConcat)
+                    || find(argument, LogConcatenationTest::isFormat)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean find(Tree tree, Predicate<Tree> matches) {
+        Boolean found = new TreeScanner<Boolean, Void>() {
+            @Override
+            public Boolean scan(Tree node, Void unused) {
+                return node != null && (matches.test(node) || Boolean.TRUE.equals(super.scan(node, unused)));
+            }
+
+            @Override
+            public Boolean reduce(Boolean a, Boolean b) {
+                return Boolean.TRUE.equals(a) || Boolean.TRUE.equals(b);
+            }
+        }.scan(tree, null);
+        return Boolean.TRUE.equals(found);
+    }
+
+    private static boolean isPlus(Tree tree) {
+        return tree.getKind() == Tree.Kind.PLUS;
+    }
+
+//    타입을 모르므로 한쪽이 문자열 리터럴이거나 문자열 합치기인 + 만 (count + 1 같은 숫자 계산은 괜찮다)
+    private static boolean isStringConcat(Tree tree) {
+        if (!isPlus(tree)) {
+            return false;
+        }
+        BinaryTree plus = (BinaryTree) tree;
+        return isStringOperand(plus.getLeftOperand()) || isStringOperand(plus.getRightOperand());
+    }
+
+    private static boolean isStringOperand(Tree tree) {
+        return tree.getKind() == Tree.Kind.STRING_LITERAL && ((LiteralTree) tree).getValue() != null || isStringConcat(tree);
+    }
+
+    private static boolean isFormat(Tree tree) {
+        if (!(tree instanceof MethodInvocationTree) || !(((MethodInvocationTree) tree).getMethodSelect() instanceof MemberSelectTree)) {
+            return false;
+        }
+        MemberSelectTree select = (MemberSelectTree) ((MethodInvocationTree) tree).getMethodSelect();
+        String method = select.getIdentifier().toString();
+        return method.equals("format") && select.getExpression().toString().equals("String")
+                || method.equals("formatted") || method.equals("concat");
+    }
+
+    private static final class SourceFile extends SimpleJavaFileObject {
+
+        private final String source;
+
+        SourceFile(String name, String source) {
+            super(Paths.get(name).toUri(), Kind.SOURCE);
+            this.source = source;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return source;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package hello.springmvc.user;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserPersistenceTest {
+
+    @TempDir
+    Path directory;
+
+    private final List<UserPersistence> opened = new ArrayList<>();
+
+    @AfterEach
+    void closeAll() throws InterruptedException {
+        for (UserPersistence persistence : opened) {
+            persistence.close();
+        }
+    }
+
+//    close() 없이 다시 열면(프로세스가 죽은 것과 같다) WAL만으로 복구한다.
+    @Test
+    void recoversFromTheWalAfterACrash() throws IOException {
+        UserStore store = new UserStore(60);
+        crashLater(store);
+        store.create("userA", 10);
+        store.create("userB", 20);
+        store.update(1, "changed", null);
+        store.delete(2);
+
+        UserStore recovered = new UserStore(60);
+        open(recovered);
+
+        assertThat(recovered.find(1)).isEqualTo(new User(1, "changed", 10));
+        assertThat(recovered.find(2)).isNull();
+        assertThat(recovered.size()).isEqualTo(1);
+        assertThat(recovered.getVersion()).isEqualTo(store.getVersion());
+    }
+
+    @Test
+    void recoversFromTheSnapshotAndTheWalAfterIt() throws IOException {
+        UserStore store = new UserStore(60);
+        UserPersistence persistence = crashLater(store);
+        store.create("userA", 10);
+        store.create("userB", 20);
+        persistence.snapshot();
+        store.update(1, "changed", null);
+        store.create("userC", 30);
+
+        assertThat(files("snapshot-")).hasSize(1);
+        assertThat(files("wal-")).hasSize(1);
+
+        UserStore recovered = new UserStore(60);
+        open(recovered);
+
+        assertThat(recovered.find(1)).isEqualTo(new User(1, "changed", 10));
+        assertThat(recovered.find(2)).isEqualTo(new User(2, "userB", 20));
+        assertThat(recovered.find(3)).isEqualTo(new User(3, "userC", 30));
+        assertThat(recovered.getVersion()).isEqualTo(store.getVersion());
+    }
+
+//    마지막 id의 사용자가 지워지고 맵에서도 빠진 다음 스냅샷을 만들어도 다시 시작한 뒤에 그 id를 다시 쓰지 않는다.
+    @Test
+    void doesNotReuseIdsOrVersionsAfterRestart() throws Exception {
+        UserStore store = new UserStore(0);
+        UserPersistence persistence = crashLater(store);
+        store.create("userA", 10);
+        store.create("userB", 20);
+        store.delete(2);
+        store.create("userC", 30);
+        store.delete(3);
+        persistence.close();
+
+        assertThat(files("wal-")).hasSize(1);
+
+        UserStore recovered = new UserStore(0);
+        open(recovered);
+        User created = recovered.create("userD", 40);
+
+        assertThat(created.getId()).isEqualTo(4);
+        assertThat(recovered.getVersion()).isEqualTo(store.getVersion() + 1);
+        assertThat(recovered.size()).isEqualTo(2);
+    }
+
+//    쓰기와 스냅샷이 같이 돌아도 돌아온(디스크에 내려간) 쓰기는 스냅샷과 남은 WAL로 모두 복구된다.
+    @Test
+    void recoversEveryAcknowledgedWriteWhileSnapshotsRun() throws Exception {
+        UserStore store = new UserStore(60);
+        UserPersistence persistence = crashLater(store);
+        int threads = 4;
+        int perThread = 500;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        int snapshots = 0;
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        User user = store.create("user" + i, i);
+                        store.update(user.getId(), null, i + 1);
+                        if (i % 3 == 0) {
+                            store.delete(user.getId());
+                        }
+                    }
+                }));
+            }
+            Future<?> done = executor.submit(() -> {
+                for (Future<?> future : futures) {
+                    future.get(30, TimeUnit.SECONDS);
+                }
+                writing.set(false);
+                return null;
+            });
+            while (writing.get()) {
+                persistence.snapshot();
+                snapshots++;
+            }
+            done.get();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        UserStore recovered = new UserStore(60);
+        open(recovered);
+
+        assertThat(snapshots).isPositive();
+        assertThat(recovered.getVersion()).isEqualTo(store.getVersion());
+        assertThat(recovered.getLastId()).isEqualTo(threads * perThread);
+        assertThat(recovered.size()).isEqualTo(store.size());
+        for (long id = 1; id <= threads * perThread; id++) {
+            assertThat(recovered.find(id)).as("user %d", id).isEqualTo(store.find(id));
+        }
+    }
+
+    private UserPersistence open(UserStore store) throws IOException {
+        UserPersistence persistence = new UserPersistence(store, directory, 1 << 16, 0, 0);
+        opened.add(persistence);
+        return persistence;
+    }
+
+//    먼저 실행된 쪽. closeAll()에서 닫지 않는다. (죽은 것으로 치거나 테스트에서 직접 닫는다)
+    private UserPersistence crashLater(UserStore store) throws IOException {
+        return new UserPersistence(store, directory, 1 << 16, 0, 0);
+    }
+
+    private List<Path> files(String prefix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().startsWith(prefix)).collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package hello.springmvc.user;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UserStoreTest {
+
+    @Test
+    void createFindUpdateDelete() {
+        UserStore store = new UserStore(60);
+        User created = store.create("userA", 10);
+
+        assertThat(store.find(created.getId())).isEqualTo(created);
+        assertThat(store.update(created.getId(), null, 20)).isEqualTo(new User(created.getId(), "userA", 20));
+        assertThat(store.delete(created.getId())).isTrue();
+        assertThat(store.find(created.getId())).isNull();
+        assertThat(store.update(created.getId(), "userB", null)).isNull();
+        assertThat(store.delete(created.getId())).isFalse();
+        assertThat(store.size()).isZero();
+    }
+
+//    첫 페이지를 받은 뒤의 수정, 삭제, 추가는 같은 cursor로 이어 받는 페이지에 보이지 않는다.
+    @Test
+    void pagesKeepTheSnapshotOfTheFirstPage() {
+        UserStore store = new UserStore(60);
+        for (int i = 1; i <= 5; i++) {
+            store.create("user" + i, i);
+        }
+
+        UserPage first = store.page(null, 2);
+        store.update(3, "changed", null);
+        store.delete(4);
+        store.create("user6", 6);
+        UserPage second = store.page(first.getNextCursor(), 2);
+        UserPage third = store.page(second.getNextCursor(), 2);
+
+        assertThat(names(first)).containsExactly("user1", "user2");
+        assertThat(names(second)).containsExactly("user3", "user4");
+        assertThat(names(third)).containsExactly("user5");
+        assertThat(third.getNextCursor()).isNull();
+        assertThat(names(store.page(null, 10))).containsExactly("user1", "user2", "changed", "user5", "user6");
+    }
+
+    @Test
+    void expiredAndInvalidCursorsAreRejected() {
+        UserStore store = new UserStore(60);
+        store.create("userA", 10);
+        long old = System.nanoTime() - TimeUnit.SECONDS.toNanos(120);
+
+        assertThatThrownBy(() -> store.page(store.getVersion() + "." + old + ".0", 10))
+                .isInstanceOf(SnapshotExpiredException.class);
+        assertThatThrownBy(() -> store.page((store.getVersion() + 1) + "." + System.nanoTime() + ".0", 10))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> store.page("not-a-cursor", 10))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+//    cursor 형식(스냅샷.생성시각.마지막id)으로 오래된 스냅샷을 직접 읽는다.
+//    생성시각을 미래로 주면 retention 검사를 지나가므로 체인에 이전 버전이 남아 있는지만 보인다.
+    @Test
+    void oldVersionsArePrunedAfterRetention() {
+        UserStore kept = new UserStore(60);
+        UserStore pruned = new UserStore(0);
+        for (UserStore store : new UserStore[]{kept, pruned}) {
+            store.create("v1", 1);
+            store.update(1, "v2", null);
+            store.update(1, "v3", null);
+        }
+        String firstVersion = "1." + (System.nanoTime() + TimeUnit.MINUTES.toNanos(1)) + ".0";
+
+        assertThat(names(kept.page(firstVersion, 10))).containsExactly("v1");
+        assertThat(names(pruned.page(firstVersion, 10))).isEmpty();
+        assertThat(pruned.find(1).getUsername()).isEqualTo("v3");
+    }
+
+//    삭제된 사용자는 retention 동안 tombstone으로 남고 그 뒤의 쓰기에서 맵에서 빠진다.
+    @Test
+    void tombstonesAreSweptAfterRetention() throws IOException {
+        UserStore kept = new UserStore(60);
+        UserStore swept = new UserStore(0);
+        for (UserStore store : new UserStore[]{kept, swept}) {
+            store.create("userA", 10);
+            store.create("userB", 20);
+            store.delete(1);
+            store.create("userC", 30);
+        }
+
+        assertThat(latestIds(kept)).containsExactly(1L, 2L, 3L);
+        assertThat(latestIds(swept)).containsExactly(2L, 3L);
+        assertThat(kept.size()).isEqualTo(2);
+        assertThat(swept.size()).isEqualTo(2);
+        assertThat(swept.getLastId()).isEqualTo(3);
+    }
+
+    @Test
+    void concurrentWritesGetUniqueIdsAndCommitEveryVersion() throws Exception {
+        UserStore store = new UserStore(60);
+        int threads = 8;
+        int perThread = 500;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        User user = store.create("user", i);
+                        store.update(user.getId(), null, i + 1);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(store.size()).isEqualTo(threads * perThread);
+        assertThat(store.getLastId()).isEqualTo(threads * perThread);
+        assertThat(store.getVersion()).isEqualTo(threads * perThread * 2);
+        assertThat(store.page(null, threads * perThread + 1).getUsers()).hasSize(threads * perThread);
+    }
+
+//    WAL에 기록하지 못한 쓰기는 체인에 붙지 않고, 받은 버전은 빈 번호로 commit 되어서 다음 쓰기가 기다리지 않는다.
+    @Test
+    void writeThatCannotBeLoggedIsNotPublished() {
+        UserStore store = new UserStore(60);
+        store.setChangeLog(new FailingChangeLog(new IllegalStateException("wal is full"), null));
+
+        assertThatThrownBy(() -> store.create("userA", 10)).isInstanceOf(IllegalStateException.class);
+        assertThat(store.find(1)).isNull();
+        assertThat(store.size()).isZero();
+
+        store.setChangeLog(null);
+        User created = store.create("userB", 20);
+
+        assertThat(created.getId()).isEqualTo(2);
+        assertThat(store.getVersion()).isEqualTo(2);
+        assertThat(names(store.page(null, 10))).containsExactly("userB");
+    }
+
+//    디스크에 내려가지 못한 쓰기(future 실패)는 체인에서 빠지고 호출한 쪽이 실패한다.
+    @Test
+    void writeThatFailsToSyncIsRolledBack() {
+        UserStore store = new UserStore(60);
+        User created = store.create("userA", 10);
+        store.setChangeLog(new FailingChangeLog(null, new IllegalStateException("force failed")));
+
+        assertThatThrownBy(() -> store.update(created.getId(), "changed", null)).isInstanceOf(CompletionException.class);
+        assertThatThrownBy(() -> store.create("userB", 20)).isInstanceOf(CompletionException.class);
+        assertThatThrownBy(() -> store.delete(created.getId())).isInstanceOf(CompletionException.class);
+
+        assertThat(store.find(created.getId())).isEqualTo(created);
+        assertThat(store.find(2)).isNull();
+        assertThat(store.size()).isEqualTo(1);
+        assertThat(names(store.page(null, 10))).containsExactly("userA");
+    }
+
+    private static List<String> names(UserPage page) {
+        return page.getUsers().stream().map(User::getUsername).collect(Collectors.toList());
+    }
+
+    private static List<Long> latestIds(UserStore store) throws IOException {
+        List<Long> ids = new ArrayList<>();
+        store.forEachLatest((id, version, user) -> ids.add(id));
+        return ids;
+    }
+
+//    appendFailure가 있으면 append()에서 던지고, syncFailure가 있으면 실패한 future를 돌려준다.
+    private static final class FailingChangeLog implements UserStore.ChangeLog {
+
+        private final RuntimeException appendFailure;
+        private final RuntimeException syncFailure;
+
+        FailingChangeLog(RuntimeException appendFailure, RuntimeException syncFailure) {
+            this.appendFailure = appendFailure;
+            this.syncFailure = syncFailure;
+        }
+
+        @Override
+        public byte[] encode(long id, User user) {
+            return new byte[0];
+        }
+
+        @Override
+        public CompletableFuture<?> append(byte[] record, long version) {
+            if (appendFailure != null) {
+                throw appendFailure;
+            }
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            future.completeExceptionally(syncFailure);
+            return future;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package hello.springmvc.user;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UserWriteAheadLogTest {
+
+//    이름이 한 글자인 기록 하나의 크기 : [길이][CRC] 8 + version 8 + id 8 + op 1 + age 4 + 이름 길이 2 + 이름 1
+    private static final int RECORD = 32;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void replaysRecordsInOrder() throws Exception {
+        try (UserWriteAheadLog wal = new UserWriteAheadLog(directory, 4096, 0)) {
+            append(wal, 1, 1, new User(1, "a", 10));
+            append(wal, 2, 2, new User(2, null, 20));
+            append(wal, 3, 1, null);
+        }
+
+        assertThat(replay(0)).containsExactly("1@1=User(id=1, username=a, age=10)", "2@2=User(id=2, username=null, age=20)", "1@3=null");
+    }
+
+    @Test
+    void rollsToTheNextSegmentWhenFull() throws Exception {
+        try (UserWriteAheadLog wal = new UserWriteAheadLog(directory, RECORD * 2, 0)) {
+            append(wal, 1, 1, new User(1, "a", 10));
+            append(wal, 2, 2, new User(2, "b", 20));
+            append(wal, 3, 3, new User(3, "c", 30));
+        }
+
+        assertThat(segments()).hasSize(2);
+        assertThat(replay(0)).hasSize(3);
+        assertThat(replay(2)).containsExactly("3@3=User(id=3, username=c, age=30)");
+    }
+
+//    쓰다가 죽어서 CRC가 맞지 않는 기록부터는 읽지 않는다.
+    @Test
+    void stopsAtATornRecord() throws Exception {
+        try (UserWriteAheadLog wal = new UserWriteAheadLog(directory, 4096, 0)) {
+            append(wal, 1, 1, new User(1, "a", 10));
+            append(wal, 2, 2, new User(2, "b", 20));
+            append(wal, 3, 3, new User(3, "c", 30));
+        }
+        try (FileChannel channel = FileChannel.open(segments().get(0), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{(byte) 0xFF}), RECORD * 2 + 20);
+        }
+
+        assertThat(replay(0)).containsExactly("1@1=User(id=1, username=a, age=10)", "2@2=User(id=2, username=b, age=20)");
+    }
+
+    @Test
+    void opensANewSegmentAfterExistingOnes() throws Exception {
+        try (UserWriteAheadLog wal = new UserWriteAheadLog(directory, 4096, 0)) {
+            append(wal, 1, 1, new User(1, "a", 10));
+        }
+        try (UserWriteAheadLog wal = new UserWriteAheadLog(directory, 4096, 0)) {
+            append(wal, 2, 2, new User(2, "b", 20));
+            wal.deleteSegmentsBefore(2);
+        }
+
+        assertThat(segments()).hasSize(1);
+        assertThat(replay(0)).containsExactly("2@2=User(id=2, username=b, age=20)");
+    }
+
+//    기록 순서가 version 순서와 달라도 roll()은 이전 세그먼트의 가장 큰 version을 돌려준다.
+    @Test
+    void rollReturnsTheHighestVersionWrittenBeforeIt() throws Exception {
+        try (UserWriteAheadLog wal = new UserWriteAheadLog(directory, 4096, 0)) {
+            assertThat(wal.roll().getLastVersion()).isZero();
+            append(wal, 2, 2, new User(2, "b", 20));
+            append(wal, 1, 1, new User(1, "a", 10));
+
+            UserWriteAheadLog.Rolled rolled = wal.roll();
+
+            assertThat(rolled.getSegment()).isEqualTo(3);
+            assertThat(rolled.getLastVersion()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    void rejectsUsernamesThatDoNotFitTheRecord() throws Exception {
+        StringBuilder name = new StringBuilder();
+        for (int i = 0; i <= Short.MAX_VALUE; i++) {
+            name.append('a');
+        }
+        try (UserWriteAheadLog wal = new UserWriteAheadLog(directory, 4096, 0)) {
+            assertThatThrownBy(() -> wal.encode(1, new User(1, name.toString(), 10))).isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    private static void append(UserWriteAheadLog wal, long version, long id, User user) {
+        wal.append(wal.encode(id, user), version).join();
+    }
+
+    private List<String> replay(long from) throws IOException {
+        List<String> records = new ArrayList<>();
+        UserWriteAheadLog.replay(directory, from, (id, version, user) -> records.add(id + "@" + version + "=" + user));
+        return records;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().startsWith("wal-")).sorted().collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package hello.springmvc.web.bind;
+
+import hello.springmvc.web.io.BufferPool;
+import hello.springmvc.web.io.RequestBodyReader;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.bind.MissingServletRequestParameterException;
+import org.springframework.web.bind.ServletRequestBindingException;
+
+import java.io.IOException;
+
+import static hello.springmvc.web.bind.RawRequestParamsTest.form;
+import static hello.springmvc.web.bind.RawRequestParamsTest.get;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ParamMapTest {
+
+    private final BufferPool pool = new BufferPool(64, 4);
+    private final RequestBodyReader bodyReader = new RequestBodyReader(pool, 1 << 16);
+
+    @Test
+    void findsDecodedNamesAndValues() throws Exception {
+        ParamMap map = index(get("name=hello+world&user%5Fname=kim&age=20&big=9000000000&flag"));
+
+        assertThat(map.size()).isEqualTo(5);
+        assertThat(map.getString("name")).isEqualTo("hello world");
+        assertThat(map.getString("user_name")).isEqualTo("kim");
+        assertThat(map.getInt("age")).isEqualTo(20);
+        assertThat(map.getLong("big")).isEqualTo(9_000_000_000L);
+        assertThat(map.getString("flag")).isEmpty();
+        assertThat(map.getString("none")).isNull();
+        assertThat(map.getString("none", "default")).isEqualTo("default");
+        assertThat(map.getLong("none", -1)).isEqualTo(-1);
+        assertThatThrownBy(() -> map.getInt("big")).isInstanceOf(ServletRequestBindingException.class);
+        assertThatThrownBy(() -> map.getInt("none")).isInstanceOf(MissingServletRequestParameterException.class);
+        map.release();
+    }
+
+//    같은 이름이 여러번 오면 처음 것 (인코딩만 다른 같은 이름도 같은 이름이다)
+    @Test
+    void firstValueWinsForRepeatedNames() throws Exception {
+        ParamMap map = index(get("a=1&a=2&%61=3&b=4"));
+
+        assertThat(map.size()).isEqualTo(2);
+        assertThat(map.getString("a")).isEqualTo("1");
+        assertThat(map.getString("b")).isEqualTo("4");
+        map.release();
+    }
+
+//    칸이 많이 겹쳐도(이름 수가 테이블 크기의 절반 가까이) 모두 찾는다.
+    @Test
+    void findsEveryNameInALargeForm() throws Exception {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            body.append(i == 0 ? "" : "&").append("param").append(i).append('=').append(i * 7);
+        }
+        ParamMap map = index(form(body.toString()));
+
+        assertThat(map.size()).isEqualTo(1000);
+        for (int i = 0; i < 1000; i++) {
+            assertThat(map.getInt("param" + i)).isEqualTo(i * 7);
+        }
+        assertThat(map.contains("param1000")).isFalse();
+        map.release();
+    }
+
+//    같은 스레드에서 두개를 동시에 써도 인덱스(int[])가 섞이지 않는다.
+    @Test
+    void twoMapsOnOneThreadDoNotShareTheTable() throws Exception {
+        ParamMap first = index(get("a=1&b=2"));
+        ParamMap second = index(get("a=10&c=30"));
+
+        assertThat(first.getInt("a")).isEqualTo(1);
+        assertThat(first.contains("c")).isFalse();
+        assertThat(second.getInt("a")).isEqualTo(10);
+        assertThat(second.contains("b")).isFalse();
+        first.release();
+        second.release();
+
+        ParamMap reused = index(get("d=4"));
+        assertThat(reused.getInt("d")).isEqualTo(4);
+        assertThat(reused.contains("a")).isFalse();
+        reused.release();
+    }
+
+    @Test
+    void fallsBackToRequestParametersWhenBodyWasConsumed() throws Exception {
+        MockHttpServletRequest request = form("a=1");
+        request.setQueryString("q=x");
+        StreamUtils.drain(request.getInputStream());
+        request.setParameter("a", "1");
+        ParamMap map = index(request);
+
+        assertThat(map.getString("q")).isEqualTo("x");
+        assertThat(map.getInt("a")).isEqualTo(1);
+        assertThat(map.contains("a")).isTrue();
+        map.release();
+    }
+
+    @Test
+    void cannotBeUsedAfterRelease() throws Exception {
+        ParamMap map = index(get("a=1"));
+        map.release();
+
+        assertThatThrownBy(() -> map.getString("a")).isInstanceOf(IllegalStateException.class);
+    }
+
+    private ParamMap index(MockHttpServletRequest request) throws IOException {
+        return ParamMap.index(RawRequestParams.read(request, bodyReader, pool));
+    }
+}
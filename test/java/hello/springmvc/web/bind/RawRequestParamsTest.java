@@ -0,0 +1,142 @@
+package hello.springmvc.web.bind;
+
+import hello.springmvc.web.io.BufferPool;
+import hello.springmvc.web.io.PayloadTooLargeException;
+import hello.springmvc.web.io.RequestBodyReader;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.bind.MissingServletRequestParameterException;
+import org.springframework.web.bind.ServletRequestBindingException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RawRequestParamsTest {
+
+    private final BufferPool pool = new BufferPool(64, 4);
+    private final RequestBodyReader bodyReader = new RequestBodyReader(pool, 1024);
+
+    @Test
+    void decodesQueryValues() throws Exception {
+        RawRequestParams params = read(get("name=hello+world&city=%EC%84%9C%EC%9A%B8&raw=서울&user%5Fname=kim&age=20"));
+
+        assertThat(params.getString("name")).isEqualTo("hello world");
+        assertThat(params.getString("city")).isEqualTo("서울");
+        assertThat(params.getString("raw")).isEqualTo("서울");
+        assertThat(params.getString("user_name")).isEqualTo("kim");
+        assertThat(params.getInt("age")).isEqualTo(20);
+        params.release();
+    }
+
+    @Test
+    void missingEmptyAndRepeatedNames() throws Exception {
+        RawRequestParams params = read(get("flag&empty=&a=1&a=2&bad=%ZZ%4"));
+
+        assertThat(params.contains("flag")).isTrue();
+        assertThat(params.getString("flag")).isEmpty();
+        assertThat(params.getString("empty")).isEmpty();
+        assertThat(params.getString("a")).isEqualTo("1");
+        assertThat(params.getString("bad")).isEqualTo("%ZZ%4");
+        assertThat(params.getString("none")).isNull();
+        assertThat(params.contains("none")).isFalse();
+        assertThat(params.getInt("none", 7)).isEqualTo(7);
+        assertThatThrownBy(() -> params.getInt("none")).isInstanceOf(MissingServletRequestParameterException.class);
+        params.release();
+    }
+
+//    Integer.parseInt, Long.parseLong과 같은 범위에서 실패한다.
+    @Test
+    void parsesNumbersWithoutStrings() throws Exception {
+        RawRequestParams params = read(get("max=2147483647&over=2147483648&min=-9223372036854775808&enc=%2D5&text=12a&empty=&minus=-"));
+
+        assertThat(params.getInt("max")).isEqualTo(Integer.MAX_VALUE);
+        assertThat(params.getLong("over")).isEqualTo(2147483648L);
+        assertThat(params.getLong("min")).isEqualTo(Long.MIN_VALUE);
+        assertThat(params.getInt("enc")).isEqualTo(-5);
+        assertThatThrownBy(() -> params.getInt("over")).isInstanceOf(ServletRequestBindingException.class);
+        assertThatThrownBy(() -> params.getInt("text")).isInstanceOf(ServletRequestBindingException.class);
+        assertThatThrownBy(() -> params.getInt("empty")).isInstanceOf(ServletRequestBindingException.class);
+        assertThatThrownBy(() -> params.getInt("minus")).isInstanceOf(ServletRequestBindingException.class);
+        params.release();
+    }
+
+    @Test
+    void readsQueryAndFormBody() throws Exception {
+        MockHttpServletRequest request = form("a=1&b=%2B&name=kim+ho");
+        request.setQueryString("q=x");
+        RawRequestParams params = read(request);
+
+        assertThat(params.getString("q")).isEqualTo("x");
+        assertThat(params.getInt("a")).isEqualTo(1);
+        assertThat(params.getString("b")).isEqualTo("+");
+        assertThat(params.getString("name")).isEqualTo("kim ho");
+        params.release();
+    }
+
+//    버퍼(64바이트)보다 긴 바디는 버퍼를 늘려서 읽는다.
+    @Test
+    void readsBodyLongerThanThePooledBuffer() throws Exception {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            body.append("p").append(i).append('=').append(i).append('&');
+        }
+        RawRequestParams params = read(form(body.toString()));
+
+        assertThat(params.getInt("p0")).isEqualTo(0);
+        assertThat(params.getInt("p49")).isEqualTo(49);
+        params.release();
+    }
+
+    @Test
+    void rejectsBodiesOverTheLimit() {
+        StringBuilder body = new StringBuilder("a=");
+        for (int i = 0; i < 1024; i++) {
+            body.append('x');
+        }
+
+        assertThatThrownBy(() -> read(form(body.toString()))).isInstanceOf(PayloadTooLargeException.class);
+    }
+
+//    누가 바디를 먼저 읽었으면 바디에 있던 값은 request.getParameter()로 찾는다.
+    @Test
+    void fallsBackToRequestParametersWhenBodyWasConsumed() throws Exception {
+        MockHttpServletRequest request = form("a=1");
+        StreamUtils.drain(request.getInputStream());
+        request.setParameter("a", "1");
+        RawRequestParams params = read(request);
+
+        assertThat(params.getString("a")).isEqualTo("1");
+        assertThat(params.getInt("a")).isEqualTo(1);
+        assertThat(params.contains("b")).isFalse();
+        params.release();
+    }
+
+    @Test
+    void cannotBeUsedAfterRelease() throws Exception {
+        RawRequestParams params = read(get("a=1"));
+        params.release();
+
+        assertThatThrownBy(() -> params.getString("a")).isInstanceOf(IllegalStateException.class);
+    }
+
+    private RawRequestParams read(MockHttpServletRequest request) throws IOException {
+        return RawRequestParams.read(request, bodyReader, pool);
+    }
+
+    static MockHttpServletRequest get(String query) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/request-param");
+        request.setQueryString(query);
+        return request;
+    }
+
+    static MockHttpServletRequest form(String body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/request-param");
+        request.setContentType("application/x-www-form-urlencoded");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+}
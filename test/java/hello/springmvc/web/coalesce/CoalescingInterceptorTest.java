@@ -0,0 +1,129 @@
+package hello.springmvc.web.coalesce;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CoalescingInterceptorTest {
+
+    private static final byte[] GZIP_BODY = {0x1f, (byte) 0x8b, 8, 0, 0, 0, 0, 0, 0, 0, 3, 0};
+
+    private final CoalescingInterceptor interceptor = new CoalescingInterceptor(10_000, 1 << 20);
+    private final HandlerMethod handler = handler();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+//    ResponseCache처럼 핸들러가 gzip 바이트를 쓰면 follower도 같은 Content-Encoding, Vary를 받는다.
+    @Test
+    void followerGetsTheContentEncodingTheHandlerSet() throws Exception {
+        MockHttpServletRequest leaderRequest = request("gzip");
+        CoalescingResponseWrapper leader = new CoalescingResponseWrapper(new MockHttpServletResponse());
+        assertThat(interceptor.preHandle(leaderRequest, leader, handler)).isTrue();
+        MockHttpServletResponse follower = new MockHttpServletResponse();
+        Future<Boolean> followed = follow(request("gzip"), follower);
+
+        leader.setContentType("application/json");
+        leader.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        leader.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        leader.getOutputStream().write(GZIP_BODY);
+        interceptor.afterCompletion(leaderRequest, leader, handler, null);
+
+        assertThat(followed.get(10, TimeUnit.SECONDS)).isFalse();
+        assertThat(follower.getHeader(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(follower.getHeaders(HttpHeaders.VARY)).containsExactly(HttpHeaders.ACCEPT_ENCODING);
+        assertThat(follower.getContentAsByteArray()).isEqualTo(GZIP_BODY);
+    }
+
+//    바깥의 압축 필터가 실제 응답에 붙인 Content-Encoding은 복사한 바디(압축 전)와 맞지 않으므로 넘기지 않는다.
+    @Test
+    void followerDoesNotGetAContentEncodingSetOutsideTheWrapper() throws Exception {
+        MockHttpServletRequest leaderRequest = request("gzip");
+        MockHttpServletResponse outer = new MockHttpServletResponse();
+        CoalescingResponseWrapper leader = new CoalescingResponseWrapper(outer);
+        assertThat(interceptor.preHandle(leaderRequest, leader, handler)).isTrue();
+        MockHttpServletResponse follower = new MockHttpServletResponse();
+        Future<Boolean> followed = follow(request("gzip"), follower);
+
+        byte[] body = "{\"id\":1}".getBytes(StandardCharsets.UTF_8);
+        leader.setContentType("application/json");
+        outer.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        leader.getOutputStream().write(body);
+        interceptor.afterCompletion(leaderRequest, leader, handler, null);
+
+        assertThat(followed.get(10, TimeUnit.SECONDS)).isFalse();
+        assertThat(follower.getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(follower.getContentAsByteArray()).isEqualTo(body);
+    }
+
+    @Test
+    void requestsWithDifferentAcceptEncodingAreNotCoalesced() throws Exception {
+        MockHttpServletRequest gzip = request("gzip");
+        MockHttpServletRequest identity = request("identity");
+        CoalescingResponseWrapper first = new CoalescingResponseWrapper(new MockHttpServletResponse());
+        CoalescingResponseWrapper second = new CoalescingResponseWrapper(new MockHttpServletResponse());
+
+        assertThat(interceptor.preHandle(gzip, first, handler)).isTrue();
+        assertThat(interceptor.preHandle(identity, second, handler)).isTrue();
+        assertThat(CoalescingInterceptor.key(gzip, handler.getMethodAnnotation(Coalesce.class)))
+                .isEqualTo("GET /users/1\nAccept:application/json\nAccept-Encoding:gzip");
+
+        interceptor.afterCompletion(gzip, first, handler, null);
+        interceptor.afterCompletion(identity, second, handler, null);
+    }
+
+//    follower는 leader를 기다리며 멈춘 것을 확인한 다음에 돌려준다.
+    private Future<Boolean> follow(MockHttpServletRequest request, MockHttpServletResponse response) throws InterruptedException {
+        AtomicReference<Thread> thread = new AtomicReference<>();
+        Future<Boolean> followed = executor.submit(() -> {
+            thread.set(Thread.currentThread());
+            return interceptor.preHandle(request, new CoalescingResponseWrapper(response), handler);
+        });
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (thread.get() == null || thread.get().getState() != Thread.State.TIMED_WAITING) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("follower did not start waiting");
+            }
+            Thread.sleep(1);
+        }
+        return followed;
+    }
+
+    private static MockHttpServletRequest request(String acceptEncoding) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/users/1");
+        request.addHeader(HttpHeaders.ACCEPT, "application/json");
+        request.addHeader(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        return request;
+    }
+
+    private static HandlerMethod handler() {
+        try {
+            return new HandlerMethod(new Handlers(), Handlers.class.getMethod("user"));
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static class Handlers {
+
+        @Coalesce
+        public String user() {
+            return "user";
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package hello.springmvc.web.coalesce;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+    @Test
+    void followersShareTheLeadersResult() {
+        SingleFlight<String, String> flights = new SingleFlight<>();
+        SingleFlight.Call<String> leader = flights.begin("/users/1");
+        SingleFlight.Call<String> follower = flights.begin("/users/1");
+        SingleFlight.Call<String> other = flights.begin("/users/2");
+
+        assertThat(leader.isLeader()).isTrue();
+        assertThat(follower.isLeader()).isFalse();
+        assertThat(other.isLeader()).isTrue();
+        assertThat(flights.getInFlight()).isEqualTo(2);
+
+        flights.complete("/users/1", leader, "userA");
+
+        assertThat(follower.getResult().join()).isEqualTo("userA");
+        assertThat(flights.getInFlight()).isEqualTo(1);
+    }
+
+//    complete() 뒤에 온 요청은 끝난 결과를 받지 않고 새 leader가 된다.
+    @Test
+    void callAfterCompleteStartsANewFlight() {
+        SingleFlight<String, String> flights = new SingleFlight<>();
+        SingleFlight.Call<String> first = flights.begin("key");
+        flights.complete("key", first, "old");
+
+        SingleFlight.Call<String> second = flights.begin("key");
+
+        assertThat(second.isLeader()).isTrue();
+        assertThat(second.getResult().isDone()).isFalse();
+    }
+
+    @Test
+    void concurrentCallersRunTheSupplierOnce() throws Exception {
+        SingleFlight<String, Integer> flights = new SingleFlight<>();
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        int callers = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        List<Thread> threads = new ArrayList<>();
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(() -> {
+                    synchronized (threads) {
+                        threads.add(Thread.currentThread());
+                    }
+                    return flights.execute("key", () -> {
+                        calls.incrementAndGet();
+                        await(release);
+                        return 42;
+                    });
+                }));
+            }
+            awaitAllWaiting(threads, callers);
+            release.countDown();
+
+            for (Future<Integer> result : results) {
+                assertThat(result.get(10, TimeUnit.SECONDS)).isEqualTo(42);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(calls.get()).isEqualTo(1);
+        assertThat(flights.getInFlight()).isZero();
+    }
+
+    @Test
+    void leaderFailureIsSharedAndForgotten() {
+        SingleFlight<String, String> flights = new SingleFlight<>();
+        AtomicReference<SingleFlight.Call<String>> follower = new AtomicReference<>();
+        IllegalStateException failure = new IllegalStateException("backend down");
+
+        assertThatThrownBy(() -> flights.execute("key", () -> {
+            follower.set(flights.begin("key"));
+            throw failure;
+        })).isSameAs(failure);
+
+        assertThatThrownBy(() -> follower.get().getResult().join())
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(IllegalStateException.class);
+        assertThat(flights.getInFlight()).isZero();
+        assertThat(flights.execute("key", () -> "retried")).isEqualTo("retried");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+//    leader는 latch에서, follower들은 join()에서 모두 멈춰 있을 때까지 기다린다.
+    private static void awaitAllWaiting(List<Thread> threads, int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (System.nanoTime() < deadline) {
+            synchronized (threads) {
+                if (threads.size() == count && threads.stream().allMatch(t -> t.getState() == Thread.State.WAITING)) {
+                    return;
+                }
+            }
+            Thread.sleep(1);
+        }
+        throw new AssertionError("callers did not start waiting");
+    }
+}
@@ -0,0 +1,57 @@
+package hello.springmvc.web.io;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.util.StreamUtils;
+
+import java.io.InputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RequestBodyReaderTest {
+
+    private final RequestBodyReader reader = new RequestBodyReader(new BufferPool(64, 4), 100);
+
+    @Test
+    void limitReadsBodiesUpToTheLimit() throws Exception {
+        InputStream in = reader.limit(request(100, false));
+
+        assertThat(StreamUtils.drain(in)).isEqualTo(100);
+    }
+
+    @Test
+    void limitRejectsALargeContentLengthBeforeReading() {
+        assertThatThrownBy(() -> reader.limit(request(101, false))).isInstanceOf(PayloadTooLargeException.class);
+    }
+
+//    Content-Length가 없으면(chunked) 읽다가 넘는 순간 거절한다.
+    @Test
+    void limitRejectsAChunkedBodyWhileReading() throws Exception {
+        InputStream in = reader.limit(request(101, true));
+        byte[] buffer = new byte[60];
+
+        assertThat(in.read(buffer)).isEqualTo(60);
+        assertThatThrownBy(() -> StreamUtils.drain(in)).isInstanceOf(PayloadTooLargeException.class);
+    }
+
+    @Test
+    void readUtf8RejectsAChunkedBodyOverTheLimit() {
+        assertThatThrownBy(() -> reader.readUtf8(request(101, true))).isInstanceOf(PayloadTooLargeException.class);
+    }
+
+    private static MockHttpServletRequest request(int size, boolean chunked) {
+        MockHttpServletRequest request = chunked ? new MockHttpServletRequest("POST", "/request-body-json-v2") {
+            @Override
+            public long getContentLengthLong() {
+                return -1;
+            }
+        } : new MockHttpServletRequest("POST", "/request-body-json-v2");
+        byte[] body = new byte[size];
+        for (int i = 0; i < size; i++) {
+            body[i] = 'a';
+        }
+        request.setContent(body);
+        return request;
+    }
+}
@@ -0,0 +1,181 @@
+package hello.springmvc.web.routing;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.support.StaticWebApplicationContext;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerExecutionChain;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.util.ServletRequestPathUtils;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//  같은 컨트롤러를 스프링 기본 RequestMappingHandlerMapping과 IndexedRequestMappingHandlerMapping에 올리고
+//  요청마다 고른 핸들러와 요청 속성(패턴, URI 변수, 매트릭스 변수)이 같은지 본다.
+class IndexedRequestMappingHandlerMappingTest {
+
+    private RequestMappingHandlerMapping stock;
+    private IndexedRequestMappingHandlerMapping indexed;
+
+    @BeforeEach
+    void setUp() {
+        StaticWebApplicationContext context = new StaticWebApplicationContext();
+        context.setServletContext(new MockServletContext());
+        context.registerSingleton("routes", Routes.class);
+        context.refresh();
+        stock = init(new RequestMappingHandlerMapping(), context);
+        indexed = init(new IndexedRequestMappingHandlerMapping(), context);
+    }
+
+    @Test
+    void literalAndVariablePaths() {
+        assertSame("GET", "/hello-basic");
+        assertSame("GET", "/hello-basic/");
+        assertSame("GET", "/mapping/users");
+        assertSame("GET", "/mapping/userA");
+        assertSame("POST", "/mapping/userA");
+        assertSame("HEAD", "/mapping/userA");
+        assertSame("GET", "/mapping/users/userA/orders/100");
+    }
+
+//    /a/{x}/{y}, /{p}/b/c, /a/b/{z} 중에 스프링은 변수가 적은 것을 고른다.
+    @Test
+    void mostSpecificPatternWins() {
+        assertSame("GET", "/a/b/c");
+        assertSame("GET", "/a/b/d");
+        assertSame("GET", "/a/x/y");
+        assertSame("GET", "/q/b/c");
+    }
+
+    @Test
+    void matrixVariablesAndSessionIdInPath() {
+        assertSame("GET", "/mapping/userA;role=admin");
+        assertSame("GET", "/mapping/users/userA;jsessionid=abc/orders/100");
+        assertSame("GET", "/hello-basic;jsessionid=abc");
+    }
+
+    @Test
+    void encodedPathVariable() {
+        assertSame("GET", "/mapping/user%20A");
+    }
+
+    @Test
+    void deferredPatternsAndConditions() {
+        assertSame("GET", "/files/a/b");
+        assertSame("GET", "/users/1");
+        assertSame("GET", "/users/new");
+        assertSame("GET", "/mapping-param?mode=debug");
+    }
+
+    @Test
+    void unmatchedPathsAndMethods() {
+        assertSame("GET", "/none");
+        assertSame("DELETE", "/mapping/userA");
+    }
+
+    private void assertSame(String method, String uri) {
+        assertThat(resolve(indexed, method, uri)).as(method + " " + uri).isEqualTo(resolve(stock, method, uri));
+    }
+
+//    핸들러 메서드 이름 | 패턴 | URI 변수 | 매트릭스 변수, 못 찾으면 예외 이름
+    private static String resolve(RequestMappingHandlerMapping mapping, String method, String uri) {
+        int query = uri.indexOf('?');
+        MockHttpServletRequest request = new MockHttpServletRequest(method, query < 0 ? uri : uri.substring(0, query));
+        if (query >= 0) {
+            String[] param = uri.substring(query + 1).split("=");
+            request.setParameter(param[0], param[1]);
+        }
+        ServletRequestPathUtils.parseAndCache(request);
+        try {
+            HandlerExecutionChain chain = mapping.getHandler(request);
+            if (chain == null) {
+                return "none";
+            }
+            return ((HandlerMethod) chain.getHandler()).getMethod().getName()
+                    + " | " + request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE)
+                    + " | " + request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE)
+                    + " | " + request.getAttribute(HandlerMapping.MATRIX_VARIABLES_ATTRIBUTE);
+        } catch (Exception e) {
+            return e.getClass().getSimpleName();
+        }
+    }
+
+    private static <T extends RequestMappingHandlerMapping> T init(T mapping, StaticWebApplicationContext context) {
+        mapping.setPatternParser(new PathPatternParser());
+        mapping.setApplicationContext(context);
+        mapping.afterPropertiesSet();
+        return mapping;
+    }
+
+    @RestController
+    static class Routes {
+
+        @GetMapping("/hello-basic")
+        public String helloBasic() {
+            return "ok";
+        }
+
+        @GetMapping("/mapping/users")
+        public String users() {
+            return "ok";
+        }
+
+        @GetMapping("/mapping/{userId}")
+        public String getUser() {
+            return "ok";
+        }
+
+        @PostMapping("/mapping/{userId}")
+        public String postUser() {
+            return "ok";
+        }
+
+        @GetMapping("/mapping/users/{userId}/orders/{orderId}")
+        public String order() {
+            return "ok";
+        }
+
+        @GetMapping("/a/{x}/{y}")
+        public String axy() {
+            return "ok";
+        }
+
+        @GetMapping("/{p}/b/c")
+        public String pbc() {
+            return "ok";
+        }
+
+        @GetMapping("/a/b/{z}")
+        public String abz() {
+            return "ok";
+        }
+
+        @GetMapping("/files/**")
+        public String files() {
+            return "ok";
+        }
+
+        @GetMapping("/users/{id:\\d+}")
+        public String userById() {
+            return "ok";
+        }
+
+        @GetMapping("/users/new")
+        public String newUser() {
+            return "ok";
+        }
+
+        @RequestMapping(value = "/mapping-param", params = "mode=debug")
+        public String param() {
+            return "ok";
+        }
+    }
+}
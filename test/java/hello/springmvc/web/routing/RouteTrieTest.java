@@ -0,0 +1,117 @@
+package hello.springmvc.web.routing;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//  RouteTrie가 고른 패턴이 스프링(PathPattern.SPECIFICITY_COMPARATOR)이 고르는 패턴과 같은지 본다.
+//  인덱스가 defer 한 경로는 스프링이 직접 고르므로 비교하지 않는다.
+class RouteTrieTest {
+
+    private static final List<String> PATTERNS = Arrays.asList(
+            "/hello-basic",
+            "/mapping/{userId}",
+            "/mapping/users",
+            "/mapping/users/{userId}",
+            "/mapping/users/{userId}/orders/{orderId}",
+            "/a/{x}/{y}",
+            "/{p}/b/c",
+            "/a/b/{z}",
+            "/files/**",
+            "/users/{id:\\d+}",
+            "/users/new");
+
+    private static final List<String> PATHS = Arrays.asList(
+            "/hello-basic", "/hello-basic/", "/mapping/userA", "/mapping/users", "/mapping/users/",
+            "/mapping/users/userA", "/mapping/users/userA/orders/100", "/mapping/users/userA/orders",
+            "/a/b/c", "/a/x/y", "/q/b/c", "/a/b/d", "/files/a/b", "/users/new", "/users/1", "/users/x",
+            "/", "/none", "/mapping", "/mapping//userA");
+
+    private final PathPatternParser parser = new PathPatternParser();
+
+    @Test
+    void picksTheSamePatternAsSpringOrDefers() {
+        RouteTrie<String> trie = trie(PATTERNS);
+        for (String path : PATHS) {
+            RouteTrie.Match<String> match = trie.find(path, pattern -> true);
+            if (match != null && match.isDeferred()) {
+                continue;
+            }
+            assertThat(match == null ? null : match.getPattern()).as(path).isEqualTo(springBest(path).orElse(null));
+        }
+    }
+
+    @Test
+    void literalPatternWinsOverVariable() {
+        RouteTrie.Match<String> match = trie(PATTERNS).find("/mapping/users", pattern -> true);
+
+        assertThat(match.isDeferred()).isFalse();
+        assertThat(match.getPattern()).isEqualTo("/mapping/users");
+        assertThat(match.getVariableCount()).isZero();
+    }
+
+    @Test
+    void variablesAreCapturedInOrder() {
+        RouteTrie.Match<String> match = trie(PATTERNS).find("/mapping/users/userA/orders/100", pattern -> true);
+
+        assertThat(match.getPattern()).isEqualTo("/mapping/users/{userId}/orders/{orderId}");
+        assertThat(match.getVariableName(0)).isEqualTo("userId");
+        assertThat(match.getVariableValue(0)).isEqualTo("userA");
+        assertThat(match.getVariableName(1)).isEqualTo("orderId");
+        assertThat(match.getVariableValue(1)).isEqualTo("100");
+    }
+
+//    /a/{x}/{y}, /{p}/b/c, /a/b/{z} 가 모두 맞는다. 스프링은 변수가 적은 쪽을 고르므로 인덱스는 고르지 않는다.
+    @Test
+    void severalMatchingPatternsAreDeferred() {
+        RouteTrie.Match<String> match = trie(PATTERNS).find("/a/b/c", pattern -> true);
+
+        assertThat(match.isDeferred()).isTrue();
+    }
+
+    @Test
+    void wildcardAndRegexPatternsAreDeferred() {
+        RouteTrie<String> trie = trie(PATTERNS);
+
+        assertThat(trie.find("/files/a/b", pattern -> true).isDeferred()).isTrue();
+        assertThat(trie.find("/users/1", pattern -> true).isDeferred()).isTrue();
+    }
+
+    @Test
+    void rejectedValueIsNotMatched() {
+        RouteTrie<String> trie = trie(PATTERNS);
+
+        assertThat(trie.find("/mapping/userA", pattern -> !pattern.equals("/mapping/{userId}"))).isNull();
+    }
+
+    @Test
+    void samePatternTwiceIsDeferred() {
+        RouteTrie<String> trie = new RouteTrie<>();
+
+        assertThat(trie.add("/mapping/{userId}", "first")).isTrue();
+        assertThat(trie.add("/mapping/{id}", "second")).isFalse();
+        assertThat(trie.find("/mapping/userA", value -> true).isDeferred()).isTrue();
+    }
+
+    private static RouteTrie<String> trie(List<String> patterns) {
+        RouteTrie<String> trie = new RouteTrie<>();
+        patterns.forEach(pattern -> trie.add(pattern, pattern));
+        return trie;
+    }
+
+    private Optional<String> springBest(String path) {
+        PathContainer container = PathContainer.parsePath(path);
+        return PATTERNS.stream()
+                .map(parser::parse)
+                .filter(pattern -> pattern.matches(container))
+                .min(PathPattern.SPECIFICITY_COMPARATOR)
+                .map(PathPattern::getPatternString);
+    }
+}